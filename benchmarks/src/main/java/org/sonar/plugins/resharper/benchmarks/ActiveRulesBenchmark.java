@@ -0,0 +1,85 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.rules.Rule;
+import org.sonar.plugins.resharper.ReSharperActiveRules;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-issue rule checks: the average time of a lookup should not depend on the number of active rules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ActiveRulesBenchmark {
+
+  private static final String REPOSITORY_KEY = "resharper-cs";
+  private static final int LOOKUPS = 1024;
+
+  @Param({"10", "100", "600"})
+  public int activeRuleCount;
+
+  private ReSharperActiveRules activeRules;
+  private String[] typeIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    RulesProfile profile = RulesProfile.create();
+    for (int i = 0; i < activeRuleCount; i++) {
+      profile.activateRule(Rule.create(REPOSITORY_KEY, "Rule" + i, "Rule" + i), null);
+    }
+    activeRules = ReSharperActiveRules.of(profile, REPOSITORY_KEY);
+
+    typeIds = new String[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      // Half of the issues are raised by inactive rules
+      typeIds[i] = new String("Rule" + (i % (2 * activeRuleCount)));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void lookup(Blackhole blackhole) {
+    for (String typeId : typeIds) {
+      blackhole.consume(activeRules.ruleKey(typeId));
+    }
+  }
+
+}
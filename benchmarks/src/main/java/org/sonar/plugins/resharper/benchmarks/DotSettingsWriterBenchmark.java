@@ -0,0 +1,70 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.plugins.resharper.ReSharperDotSettingsWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DotSettingsWriterBenchmark {
+
+  @Param({"100", "675"})
+  public int ruleCount;
+
+  private List<String> ruleKeys;
+  private ReSharperDotSettingsWriter writer;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    ImmutableList.Builder<String> builder = ImmutableList.builder();
+    for (int i = 0; i < ruleCount; i++) {
+      builder.add("Some.Rule:Key" + i);
+    }
+    ruleKeys = builder.build();
+    writer = new ReSharperDotSettingsWriter();
+  }
+
+  @Benchmark
+  public String write() throws IOException {
+    StringWriter output = new StringWriter();
+    writer.write(ruleKeys, output);
+    return output.toString();
+  }
+
+}
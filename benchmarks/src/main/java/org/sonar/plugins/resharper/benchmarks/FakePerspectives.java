@@ -0,0 +1,145 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper.benchmarks;
+
+import com.google.common.collect.Maps;
+import org.sonar.api.batch.fs.InputPath;
+import org.sonar.api.component.Component;
+import org.sonar.api.component.Perspective;
+import org.sonar.api.component.ResourcePerspectives;
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.resources.Resource;
+import org.sonar.api.rule.RuleKey;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory stand-in of the SonarQube perspectives, which only counts the issues added to each file.
+ */
+public class FakePerspectives implements ResourcePerspectives {
+
+  private final Map<InputPath, FakeIssuable> issuables = Maps.newHashMap();
+  private long addedIssues;
+
+  @Override
+  public <P extends Perspective> P as(Class<P> perspectiveClass, Resource resource) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public <P extends Perspective> P as(Class<P> perspectiveClass, Component component) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public <P extends Perspective> P as(Class<P> perspectiveClass, InputPath inputPath) {
+    FakeIssuable issuable = issuables.get(inputPath);
+    if (issuable == null) {
+      issuable = new FakeIssuable();
+      issuables.put(inputPath, issuable);
+    }
+    return perspectiveClass.cast(issuable);
+  }
+
+  public long addedIssues() {
+    return addedIssues;
+  }
+
+  private class FakeIssuable implements Issuable {
+
+    @Override
+    public IssueBuilder newIssueBuilder() {
+      return new FakeIssueBuilder();
+    }
+
+    @Override
+    public boolean addIssue(Issue issue) {
+      addedIssues++;
+      return true;
+    }
+
+    @Override
+    public List<Issue> issues() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public List<Issue> resolvedIssues() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public Component component() {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+  /**
+   * Issues are not materialized: the fake issuable only counts them.
+   */
+  private static class FakeIssueBuilder implements Issuable.IssueBuilder {
+
+    @Override
+    public Issuable.IssueBuilder ruleKey(RuleKey ruleKey) {
+      return this;
+    }
+
+    @Override
+    public Issuable.IssueBuilder line(Integer line) {
+      return this;
+    }
+
+    @Override
+    public Issuable.IssueBuilder message(String message) {
+      return this;
+    }
+
+    @Override
+    public Issuable.IssueBuilder severity(String severity) {
+      return this;
+    }
+
+    @Override
+    public Issuable.IssueBuilder reporter(String reporter) {
+      return this;
+    }
+
+    @Override
+    public Issuable.IssueBuilder effortToFix(Double effortToFix) {
+      return this;
+    }
+
+    @Override
+    public Issuable.IssueBuilder attribute(String key, String value) {
+      return this;
+    }
+
+    @Override
+    public Issue build() {
+      return null;
+    }
+
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.plugins.resharper.CSharpReSharperProvider;
+import org.sonar.plugins.resharper.FileProvider;
+import org.sonar.plugins.resharper.ReSharperFileResolver;
+import org.sonar.plugins.resharper.ReSharperReportGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Resolution of report paths, half of them in the quoted form which needs to be repaired,
+ * and of as many paths of generated files which are not indexed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileResolutionBenchmark {
+
+  private static final String LANGUAGE = CSharpReSharperProvider.RESHARPER_CONF.languageKey();
+
+  @Param({"1000"})
+  public int fileCount;
+
+  private ReSharperReportGenerator.Result report;
+  private DefaultFileSystem fileSystem;
+  private FileProvider fileProvider;
+  private List<String> paths;
+  private List<String> excludedPaths;
+  private ReSharperFileResolver warmResolver;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    report = new ReSharperReportGenerator().projects(10).files(fileCount).issues(0).generate(Files.createTempDir());
+    fileSystem = new DefaultFileSystem();
+    ImmutableList.Builder<String> pathsBuilder = ImmutableList.builder();
+    ImmutableList.Builder<String> excludedPathsBuilder = ImmutableList.builder();
+    for (int i = 0; i < report.filePaths().size(); i++) {
+      String filePath = report.filePaths().get(i);
+      File file = report.file(filePath);
+      fileSystem.add(new DefaultInputFile(filePath).setAbsolutePath(file.getAbsolutePath()).setLanguage(LANGUAGE));
+      pathsBuilder.add(i % 2 == 0 ? filePath.replace('/', '\\') : "\"" + file.getAbsolutePath().replace('/', '\\') + "\"");
+      excludedPathsBuilder.add("Project\\obj\\Debug\\Generated" + i + ".Designer.cs");
+    }
+    paths = pathsBuilder.build();
+    excludedPaths = excludedPathsBuilder.build();
+    fileProvider = new FileProvider();
+    warmResolver = newResolver();
+    for (String path : paths) {
+      warmResolver.resolve(path);
+    }
+  }
+
+  private ReSharperFileResolver newResolver() {
+    return new ReSharperFileResolver(fileSystem, LANGUAGE, fileProvider, report.solutionFile());
+  }
+
+  @Benchmark
+  public void fileInSolution(Blackhole blackhole, IssueCounter counter) {
+    for (String path : paths) {
+      blackhole.consume(fileProvider.fileInSolution(report.solutionFile(), path).getAbsolutePath());
+    }
+    counter.issues += paths.size();
+  }
+
+  @Benchmark
+  public void resolveDistinctPaths(Blackhole blackhole, IssueCounter counter) {
+    ReSharperFileResolver resolver = newResolver();
+    for (String path : paths) {
+      blackhole.consume(resolver.resolve(path).inputFile());
+    }
+    counter.issues += paths.size();
+  }
+
+  @Benchmark
+  public void rejectExcludedPaths(Blackhole blackhole, IssueCounter counter) {
+    ReSharperFileResolver resolver = newResolver();
+    for (String path : excludedPaths) {
+      blackhole.consume(resolver.resolve(path).inputFile());
+    }
+    counter.issues += excludedPaths.size();
+  }
+
+  @Benchmark
+  public void resolveKnownPaths(Blackhole blackhole, IssueCounter counter) {
+    for (String path : paths) {
+      blackhole.consume(warmResolver.resolve(path).inputFile());
+    }
+    counter.issues += paths.size();
+  }
+
+}
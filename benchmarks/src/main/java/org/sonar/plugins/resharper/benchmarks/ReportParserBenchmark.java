@@ -0,0 +1,100 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper.benchmarks;
+
+import com.google.common.io.Files;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.plugins.resharper.ReSharperIssue;
+import org.sonar.plugins.resharper.ReSharperIssueHandler;
+import org.sonar.plugins.resharper.ReSharperReportConverter;
+import org.sonar.plugins.resharper.ReSharperReportGenerator;
+import org.sonar.plugins.resharper.ReSharperReportParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportParserBenchmark {
+
+  @Param({"10000", "100000"})
+  public int issueCount;
+
+  @Param({"20"})
+  public int projectCount;
+
+  @Param({"true", "false"})
+  public boolean scanner;
+
+  private ReSharperReportGenerator.Result report;
+  private File binaryReportFile;
+  private ReSharperReportParser parser;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    report = new ReSharperReportGenerator().projects(projectCount).files(500).issues(issueCount)
+      .distribution(ReSharperReportGenerator.Distribution.UNIFORM).generate(Files.createTempDir());
+    parser = new ReSharperReportParser(null, scanner);
+    binaryReportFile = new File(report.reportFile().getParentFile(), "report.bin");
+    ReSharperReportConverter.convert(report.reportFile(), binaryReportFile);
+  }
+
+  @Benchmark
+  public void parseOneProject(final Blackhole blackhole, final IssueCounter counter) {
+    parser.parse(report.reportFile(), report.projects().get(projectCount / 2), new ReSharperIssueHandler() {
+      @Override
+      public void handle(ReSharperIssue issue) {
+        counter.issues++;
+        blackhole.consume(issue);
+      }
+    });
+  }
+
+  @Benchmark
+  public Map<String, List<ReSharperIssue>> parseAllProjects(IssueCounter counter) {
+    Map<String, List<ReSharperIssue>> issuesByProject = parser.parseProjects(report.reportFile());
+    counter.issues += issueCount;
+    return issuesByProject;
+  }
+
+  @Benchmark
+  public Map<String, List<ReSharperIssue>> readAllProjectsFromBinary(IssueCounter counter) {
+    Map<String, List<ReSharperIssue>> issuesByProject = parser.parseProjects(binaryReportFile);
+    counter.issues += issueCount;
+    return issuesByProject;
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper.benchmarks;
+
+import com.google.common.io.Files;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.config.Settings;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.resources.Project;
+import org.sonar.api.rules.Rule;
+import org.sonar.plugins.resharper.CSharpReSharperProvider;
+import org.sonar.plugins.resharper.CSharpReSharperProvider.CSharpReSharperSensor;
+import org.sonar.plugins.resharper.ReSharperInspectCodeRuns;
+import org.sonar.plugins.resharper.ReSharperPlugin;
+import org.sonar.plugins.resharper.ReSharperReportCache;
+import org.sonar.plugins.resharper.ReSharperReportGenerator;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Full {@link CSharpReSharperSensor#analyse} loop, from the report file to the added issues, for one module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SensorBenchmark {
+
+  @Param({"10000", "100000"})
+  public int issueCount;
+
+  @Param({"1", "20"})
+  public int projectCount;
+
+  private ReSharperReportGenerator.Result report;
+  private Settings settings;
+  private RulesProfile profile;
+  private DefaultFileSystem fileSystem;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    File dir = Files.createTempDir();
+    report = new ReSharperReportGenerator().projects(projectCount).files(1000).issues(issueCount)
+      .distribution(ReSharperReportGenerator.Distribution.UNIFORM).generate(dir);
+
+    settings = new Settings();
+    settings.setProperty(ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY, report.solutionFile().getAbsolutePath());
+    settings.setProperty(ReSharperPlugin.PROJECT_NAME_SONAR_PROPERTY_KEY, report.projects().get(0));
+    settings.setProperty(CSharpReSharperProvider.RESHARPER_CONF.reportPathKey(), report.reportFile().getAbsolutePath());
+
+    profile = RulesProfile.create();
+    // Half of the rules raising issues are active
+    for (int i = 0; i < report.ruleKeys().size(); i += 2) {
+      String ruleKey = report.ruleKeys().get(i);
+      profile.activateRule(Rule.create(CSharpReSharperProvider.RESHARPER_CONF.repositoryKey(), ruleKey, ruleKey), null);
+    }
+
+    fileSystem = new DefaultFileSystem();
+    fileSystem.setWorkDir(new File(dir, "work"));
+    for (String filePath : report.filePaths()) {
+      fileSystem.add(new DefaultInputFile(filePath)
+        .setAbsolutePath(report.file(filePath).getAbsolutePath())
+        .setLanguage(CSharpReSharperProvider.RESHARPER_CONF.languageKey()));
+    }
+  }
+
+  @Benchmark
+  public long analyse(IssueCounter counter) {
+    FakePerspectives perspectives = new FakePerspectives();
+    new CSharpReSharperSensor(settings, profile, fileSystem, perspectives, new ReSharperReportCache(), new ReSharperInspectCodeRuns()).analyse(new Project("benchmark"), null);
+    counter.issues += issueCount / projectCount;
+    return perspectives.addedIssues();
+  }
+
+}
@@ -52,8 +52,9 @@ public class CSharpReSharperProvider {
 
   public static class CSharpReSharperSensor extends ReSharperSensor {
 
-    public CSharpReSharperSensor(Settings settings, RulesProfile profile, FileSystem fileSystem, ResourcePerspectives perspectives) {
-      super(RESHARPER_CONF, settings, profile, fileSystem, perspectives);
+    public CSharpReSharperSensor(Settings settings, RulesProfile profile, FileSystem fileSystem, ResourcePerspectives perspectives,
+      ReSharperReportCache reportCache, ReSharperInspectCodeRuns inspectCodeRuns) {
+      super(RESHARPER_CONF, settings, profile, fileSystem, perspectives, reportCache, inspectCodeRuns);
     }
 
   }
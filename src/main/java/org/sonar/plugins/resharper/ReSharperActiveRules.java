@@ -0,0 +1,131 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.ActiveRule;
+
+import javax.annotation.Nullable;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the rules of a repository which are active in a quality profile, built once per analysis.
+ * Looking up a ReSharper TypeId is a single hash lookup, which also returns the shared {@link RuleKey}.
+ */
+public class ReSharperActiveRules {
+
+  private final String repositoryKey;
+  private final Map<String, RuleKey> ruleKeys;
+
+  private ReSharperActiveRules(String repositoryKey, Map<String, RuleKey> ruleKeys) {
+    this.repositoryKey = repositoryKey;
+    this.ruleKeys = ruleKeys;
+  }
+
+  public static ReSharperActiveRules of(RulesProfile profile, String repositoryKey) {
+    Map<String, RuleKey> ruleKeys = Maps.newLinkedHashMap();
+    for (ActiveRule activeRule : profile.getActiveRulesByRepository(repositoryKey)) {
+      String key = activeRule.getRuleKey();
+      if (!ruleKeys.containsKey(key)) {
+        ruleKeys.put(key, RuleKey.of(repositoryKey, key));
+      }
+    }
+    return new ReSharperActiveRules(repositoryKey, ImmutableMap.copyOf(ruleKeys));
+  }
+
+  /**
+   * @return the ReSharper TypeIds active in any of the given repositories
+   */
+  public static Set<String> activeTypeIds(RulesProfile profile, Iterable<String> repositoryKeys) {
+    ImmutableSet.Builder<String> typeIds = ImmutableSet.builder();
+    for (String repositoryKey : repositoryKeys) {
+      for (ActiveRule activeRule : profile.getActiveRulesByRepository(repositoryKey)) {
+        typeIds.add(activeRule.getRuleKey());
+      }
+    }
+    return typeIds.build();
+  }
+
+  public String repositoryKey() {
+    return repositoryKey;
+  }
+
+  public boolean isEmpty() {
+    return ruleKeys.isEmpty();
+  }
+
+  public int size() {
+    return ruleKeys.size();
+  }
+
+  public boolean isActive(String typeId) {
+    return ruleKeys.containsKey(typeId);
+  }
+
+  /**
+   * @return the rule key of the given ReSharper TypeId, or null if the rule is either missing or inactive
+   */
+  @Nullable
+  public RuleKey ruleKey(String typeId) {
+    return ruleKeys.get(typeId);
+  }
+
+  /**
+   * @return a digest of the given repositories and TypeIds, whatever the order of the TypeIds
+   */
+  public static String digest(Iterable<String> repositoryKeys, Iterable<String> typeIds) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw Throwables.propagate(e);
+    }
+    for (String repositoryKey : repositoryKeys) {
+      digest.update(repositoryKey.getBytes(Charsets.UTF_8));
+      digest.update((byte) 0);
+    }
+    for (String typeId : ImmutableSortedSet.copyOf(typeIds)) {
+      digest.update(typeId.getBytes(Charsets.UTF_8));
+      digest.update((byte) 0);
+    }
+    return ReSharperReportDiskCache.hex(digest.digest()).substring(0, 16);
+  }
+
+  /**
+   * @return the active ReSharper TypeIds, in quality profile order
+   */
+  public List<String> keys() {
+    return ImmutableList.copyOf(ruleKeys.keySet());
+  }
+
+}
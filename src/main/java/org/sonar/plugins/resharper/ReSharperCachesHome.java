@@ -0,0 +1,184 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.config.Settings;
+
+import javax.annotation.CheckForNull;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The directory given to inspectcode.exe through its "/caches-home=" option, where it keeps the caches of each solution across analyses.
+ * Once the directory exceeds its maximum size, the caches of the least recently inspected solutions are deleted.
+ * <p>
+ * The processes of a sharded inspection run concurrently, so that each project gets a caches home of its own, in a subdirectory.
+ */
+public class ReSharperCachesHome {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReSharperCachesHome.class);
+
+  private final File directory;
+  private final long maxSize;
+
+  public ReSharperCachesHome(File directory, long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @return the caches home configured by the given settings, or null if inspectcode.exe should use its default one
+   */
+  @CheckForNull
+  public static ReSharperCachesHome create(Settings settings) {
+    String directory = settings.getString(ReSharperPlugin.CACHES_HOME_PROPERTY_KEY);
+    if (directory == null || directory.isEmpty()) {
+      return null;
+    }
+    long maxSizeMb = settings.getLong(ReSharperPlugin.CACHES_HOME_MAX_SIZE_PROPERTY_KEY);
+    return new ReSharperCachesHome(new File(directory), maxSizeMb * 1024 * 1024);
+  }
+
+  public File directory() {
+    return directory;
+  }
+
+  /**
+   * @return the caches home of the given solution, whose name keeps the letters, digits, '.', '-' and '_' of the solution file name, followed by
+   * a digest of its path
+   */
+  public File solutionDirectory(String solutionFile) {
+    File file = new File(solutionFile);
+    return entry("solution-", file.getName(), file.getAbsolutePath());
+  }
+
+  /**
+   * @return the caches home of the given project of a sharded inspection, whose name keeps the letters, digits, '.', '-' and '_' of the project
+   * name, followed by a digest of the whole name, so that "My Lib" and "My_Lib" get distinct caches
+   */
+  public File projectDirectory(String project) {
+    return entry("project-", project, project);
+  }
+
+  private File entry(String prefix, String name, String identity) {
+    return new File(directory, prefix + name.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + ReSharperReportDiskCache.shortDigest(identity));
+  }
+
+  /**
+   * Creates the given entry if needed and sets its modification time to now: inspectcode.exe only writes deeper in the entry,
+   * and {@link #cleanUp(long)} only looks at the modification times of the entries themselves.
+   *
+   * @return the entry
+   */
+  public File use(File entry) {
+    if (!entry.isDirectory() && !entry.mkdirs()) {
+      LOG.warn("Unable to create the inspectcode.exe cache " + entry.getAbsolutePath());
+    }
+    entry.setLastModified(System.currentTimeMillis());
+    return entry;
+  }
+
+  /**
+   * Deletes the entries of the least recently used caches beyond the maximum size, then logs the size of the directory.
+   * The most recently used entry, which is the one of the solution just inspected, is always kept.
+   * A failure to delete an entry is logged, never thrown.
+   * <p>
+   * The entries are ordered by their own modification time, see {@link #use(File)}, without walking their files:
+   * only the kept entries are walked, to add up their sizes.
+   *
+   * @return the size in bytes of the directory once cleaned up
+   */
+  public long cleanUp() {
+    return cleanUp(Long.MAX_VALUE);
+  }
+
+  /**
+   * Same as {@link #cleanUp()}, except that the entries used since the given time, such as the ones of all the projects of a sharded inspection,
+   * are always kept too.
+   *
+   * @param usedSince a time in milliseconds since the epoch
+   */
+  public long cleanUp(long usedSince) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return 0;
+    }
+
+    List<Entry> mostRecentlyUsedFirst = Lists.newArrayList();
+    for (File file : files) {
+      mostRecentlyUsedFirst.add(new Entry(file));
+    }
+    Collections.sort(mostRecentlyUsedFirst, new Comparator<Entry>() {
+      @Override
+      public int compare(Entry a, Entry b) {
+        return a.lastModified > b.lastModified ? -1 : (a.lastModified == b.lastModified ? 0 : 1);
+      }
+    });
+
+    long size = 0;
+    int deleted = 0;
+    boolean full = false;
+    for (int i = 0; i < mostRecentlyUsedFirst.size(); i++) {
+      Entry entry = mostRecentlyUsedFirst.get(i);
+      boolean recentlyUsed = i == 0 || entry.lastModified >= usedSince;
+      // Once the maximum size is reached, all the older entries are deleted
+      long entrySize = full && !recentlyUsed ? 0 : sizeOf(entry.file);
+      if (!recentlyUsed && (full || size + entrySize > maxSize)) {
+        full = true;
+        LOG.debug("Deleting the inspectcode.exe cache " + entry.file.getAbsolutePath());
+        if (FileUtils.deleteQuietly(entry.file)) {
+          deleted++;
+          continue;
+        }
+        LOG.warn("Unable to delete the inspectcode.exe cache " + entry.file.getAbsolutePath());
+        entrySize = sizeOf(entry.file);
+      }
+      size += entrySize;
+    }
+
+    LOG.info("inspectcode.exe caches home " + directory.getAbsolutePath() + ": " + (size / (1024 * 1024)) + " MB in "
+      + (mostRecentlyUsedFirst.size() - deleted) + " entries, " + deleted + " deleted");
+    return size;
+  }
+
+  private static long sizeOf(File file) {
+    return file.exists() ? FileUtils.sizeOf(file) : 0;
+  }
+
+  private static class Entry {
+
+    private final File file;
+    private final long lastModified;
+
+    Entry(File file) {
+      this.file = file;
+      this.lastModified = file.lastModified();
+    }
+
+  }
+
+}
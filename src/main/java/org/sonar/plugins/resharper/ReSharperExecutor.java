@@ -20,25 +20,70 @@
 package org.sonar.plugins.resharper;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import org.sonar.api.utils.command.Command;
 import org.sonar.api.utils.command.CommandException;
 import org.sonar.api.utils.command.CommandExecutor;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
 import java.io.File;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class ReSharperExecutor {
 
   protected static final String EXECUTABLE = "inspectcode.exe";
 
+  private final ReSharperCachesHome cachesHome;
+
+  public ReSharperExecutor() {
+    this(null);
+  }
+
+  /**
+   * @param cachesHome the directory where inspectcode.exe keeps its caches, or null to let it use its default one
+   */
+  public ReSharperExecutor(@Nullable ReSharperCachesHome cachesHome) {
+    this.cachesHome = cachesHome;
+  }
+
+  @CheckForNull
+  public ReSharperCachesHome cachesHome() {
+    return cachesHome;
+  }
+
   public void execute(String executable, String project, String solutionFile, File rulesetFile, File reportFile, int timeout) {
+    execute(executable, project, solutionFile, rulesetFile, reportFile, timeout, ImmutableList.<String>of());
+  }
+
+  /**
+   * @param includes the paths or masks, relative to the solution directory, of the only files to inspect, or an empty list to inspect all of them
+   */
+  public void execute(String executable, String project, String solutionFile, File rulesetFile, File reportFile, int timeout, List<String> includes) {
+    execute(executable, project, solutionFile, rulesetFile, reportFile, timeout, includes, cachesHome == null ? null : cachesHome.use(cachesHome.solutionDirectory(solutionFile)));
+  }
+
+  /**
+   * @param cachesDirectory the caches home of this process, or null to let inspectcode.exe use its default one
+   */
+  public void execute(String executable, String project, String solutionFile, File rulesetFile, File reportFile, int timeout, List<String> includes,
+    @Nullable File cachesDirectory) {
     Command cmd = Command.create(getExecutable(executable))
       .addArgument("/output=" + reportFile.getAbsolutePath())
       .addArgument("/no-swea")
       .addArgument("/project=" + project)
       .addArgument("/profile=" + rulesetFile.getAbsolutePath())
-      .addArgument("/no-buildin-settings")
-      .addArgument(solutionFile);
+      .addArgument("/no-buildin-settings");
+    if (cachesDirectory != null) {
+      cmd.addArgument("/caches-home=" + cachesDirectory.getAbsolutePath());
+    }
+    if (!includes.isEmpty()) {
+      cmd.addArgument("/include=" + Joiner.on(';').join(includes));
+    }
+    cmd.addArgument(solutionFile);
 
     int exitCode = CommandExecutor.create().execute(cmd, TimeUnit.MINUTES.toMillis(timeout));
 
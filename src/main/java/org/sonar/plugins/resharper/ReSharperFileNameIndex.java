@@ -0,0 +1,102 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.Iterables;
+
+/**
+ * Compact membership test of the names of the indexed files, to reject the report paths of files which are
+ * definitely not indexed, such as generated or excluded files, before resolving them.
+ * <p>
+ * Only a case-insensitive hash of each name is kept, in an open-addressing table of ints: a report path whose file name
+ * is unknown is never indexed, while a hash collision at worst lets a path through to the regular resolution.
+ * Testing a path allocates nothing.
+ */
+public class ReSharperFileNameIndex {
+
+  private static final int EMPTY = 0;
+
+  private final int[] table;
+  private final int mask;
+
+  /**
+   * @param paths the absolute paths of the indexed files
+   */
+  public ReSharperFileNameIndex(Iterable<String> paths) {
+    int count = Iterables.size(paths);
+    int capacity = Integer.highestOneBit(Math.max(2, 2 * count - 1)) << 1;
+    table = new int[capacity];
+    mask = capacity - 1;
+    for (String path : paths) {
+      add(nameHash(path));
+    }
+  }
+
+  private void add(int hash) {
+    int slot = slot(hash);
+    while (table[slot] != EMPTY) {
+      if (table[slot] == hash) {
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = hash;
+  }
+
+  /**
+   * @param path a path in the report, with either separator, and possibly ending with a quote
+   * @return false if no indexed file has the name of the given path, whatever its directory and case
+   */
+  public boolean mightContain(String path) {
+    int hash = nameHash(path);
+    int slot = slot(hash);
+    while (table[slot] != EMPTY) {
+      if (table[slot] == hash) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  private int slot(int hash) {
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /**
+   * @return the case-insensitive hash of the last segment of the path, without a trailing quote, which is never {@link #EMPTY}
+   */
+  static int nameHash(String path) {
+    int end = path.length();
+    if (end > 0 && path.charAt(end - 1) == '"') {
+      end--;
+    }
+    int start = end;
+    while (start > 0 && path.charAt(start - 1) != '/' && path.charAt(start - 1) != '\\') {
+      start--;
+    }
+    int hash = 1;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(path.charAt(i)));
+    }
+    return hash == EMPTY ? 1 : hash;
+  }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.PathUtils;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the "File" attributes of a ReSharper report to the main {@link InputFile}s of a language.
+ * The input files are indexed once by absolute path, and each distinct report path is resolved only once.
+ * Report paths can be resolved concurrently.
+ * The paths of files whose name is not even indexed are rejected at once, see {@link ReSharperFileNameIndex}.
+ * The other ones are first looked up by their normalized form, whatever their case and separators, see {@link ReSharperPathIndex},
+ * and only then resolved by the {@link FileProvider} and matched exactly.
+ * The paths which are still not matched, such as the ones relative to another root than the solution directory,
+ * are matched by their longest suffix, see {@link ReSharperPathTrie}, which is only built if needed.
+ */
+public class ReSharperFileResolver {
+
+  private final FileProvider fileProvider;
+  private final File solutionFile;
+  private final Map<String, InputFile> inputFilesByPath;
+  private final ReSharperFileNameIndex fileNames;
+  private final ReSharperPathIndex paths;
+  private final Supplier<ReSharperPathTrie> pathTrie;
+  private final ConcurrentMap<String, Resolution> resolutions = new ConcurrentHashMap<String, Resolution>();
+
+  public ReSharperFileResolver(FileSystem fileSystem, String languageKey, FileProvider fileProvider, File solutionFile) {
+    this.fileProvider = fileProvider;
+    this.solutionFile = solutionFile;
+    this.inputFilesByPath = index(fileSystem, languageKey);
+    this.fileNames = new ReSharperFileNameIndex(inputFilesByPath.keySet());
+    this.paths = new ReSharperPathIndex(inputFilesByPath.values(), solutionFile.getAbsoluteFile().getParentFile());
+    this.pathTrie = Suppliers.memoize(new Supplier<ReSharperPathTrie>() {
+      @Override
+      public ReSharperPathTrie get() {
+        return new ReSharperPathTrie(inputFilesByPath.values());
+      }
+    });
+  }
+
+  private static Map<String, InputFile> index(FileSystem fileSystem, String languageKey) {
+    FilePredicates predicates = fileSystem.predicates();
+    Map<String, InputFile> builder = Maps.newHashMap();
+    for (InputFile inputFile : fileSystem.inputFiles(predicates.and(predicates.hasLanguage(languageKey), predicates.hasType(InputFile.Type.MAIN)))) {
+      builder.put(inputFile.absolutePath(), inputFile);
+    }
+    return ImmutableMap.copyOf(builder);
+  }
+
+  public Resolution resolve(String filePath) {
+    Resolution resolution = resolutions.get(filePath);
+    if (resolution == null) {
+      if (!fileNames.mightContain(filePath)) {
+        return Resolution.REJECTED;
+      }
+      InputFile inputFile = paths.get(filePath);
+      resolution = inputFile != null ? new Resolution(inputFile.file(), inputFile) : resolveInSolution(filePath);
+      Resolution previous = resolutions.putIfAbsent(filePath, resolution);
+      if (previous != null) {
+        resolution = previous;
+      }
+    }
+    return resolution;
+  }
+
+  private Resolution resolveInSolution(String filePath) {
+    File file = repairQuotedPath(fileProvider.fileInSolution(solutionFile, filePath));
+    String absolutePath = file.getAbsolutePath();
+    InputFile inputFile = inputFilesByPath.get(PathUtils.sanitize(absolutePath));
+    if (inputFile == null) {
+      inputFile = paths.get(absolutePath);
+    }
+    if (inputFile == null && !file.exists()) {
+      // A file which exists but is not indexed, such as an excluded or generated file, must not be matched to another one by its suffix
+      inputFile = pathTrie.get().get(filePath);
+      if (inputFile != null) {
+        return new Resolution(inputFile.file(), inputFile);
+      }
+    }
+    return new Resolution(file, inputFile);
+  }
+
+  /**
+   * @return the number of distinct report paths resolved so far
+   */
+  public int resolvedPaths() {
+    return resolutions.size();
+  }
+
+  /**
+   * @return the number of distinct input files the report paths resolved so far point to
+   */
+  public int resolvedFiles() {
+    Set<InputFile> inputFiles = Sets.newHashSet();
+    for (Resolution resolution : resolutions.values()) {
+      if (resolution.inputFile() != null) {
+        inputFiles.add(resolution.inputFile());
+      }
+    }
+    return inputFiles.size();
+  }
+
+  /**
+   * Something is passing a wonky file path i.e.
+   * "D:\\vssrc\\GregsProject\\\"D:\\vssrc\\GregsProject\\Common Libraries\\Common Libraries\\Class1.cs\"";
+   * This detects this type of string and rips out only the full path to the file.
+   */
+  static File repairQuotedPath(File file) {
+    String path = file.getAbsolutePath();
+    if (path.contains("\\\"") && path.endsWith("\"")) {
+      int position = path.indexOf("\\\"");
+      return new File(path.substring(position + 2, path.length() - 1));
+    }
+    return file;
+  }
+
+  public static class Resolution {
+
+    private static final Resolution REJECTED = new Resolution(null, null);
+
+    private final File file;
+    private final InputFile inputFile;
+
+    Resolution(@Nullable File file, @Nullable InputFile inputFile) {
+      this.file = file;
+      this.inputFile = inputFile;
+    }
+
+    /**
+     * @return whether the path was rejected by the index of file names, without being resolved
+     */
+    public boolean isRejected() {
+      return this == REJECTED;
+    }
+
+    /**
+     * @return the file the report path points to, or null if the path was rejected
+     */
+    @CheckForNull
+    public File file() {
+      return file;
+    }
+
+    @Nullable
+    public InputFile inputFile() {
+      return inputFile;
+    }
+
+  }
+
+}
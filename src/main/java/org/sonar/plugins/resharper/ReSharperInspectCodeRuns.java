@@ -0,0 +1,61 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.InstantiationStrategy;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Shares the runs of inspectcode.exe between both language sensors of an analysis, in the deprecated mode where the plugin runs it.
+ * The first sensor inspects the solution with the rules active in either language, and the other one reuses its report.
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class ReSharperInspectCodeRuns implements BatchExtension {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReSharperInspectCodeRuns.class);
+
+  private final Map<String, File> reports = Maps.newHashMap();
+
+  /**
+   * A run which fails is not kept, so that the next sensor runs it again.
+   *
+   * @param key identifies the inspection: its solution, project, active rules and any other option of inspectcode.exe
+   * @param inspection runs inspectcode.exe and returns its report
+   * @return the report of the inspection with the given key, running it only if it has not been run yet
+   */
+  public synchronized File report(String key, Supplier<File> inspection) {
+    File report = reports.get(key);
+    if (report != null && report.isFile()) {
+      LOG.info("Reusing the report of inspectcode.exe already run for the other language: " + report.getAbsolutePath());
+      return report;
+    }
+    report = inspection.get();
+    reports.put(key, report);
+    return report;
+  }
+
+}
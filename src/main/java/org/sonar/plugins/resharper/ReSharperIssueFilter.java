@@ -0,0 +1,127 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSortedSet;
+
+import javax.annotation.Nullable;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Pre-filter applied by {@link ReSharperReportParser} as soon as it has read the TypeId and File attributes of an issue:
+ * the rest of a rejected issue is neither decoded nor kept.
+ */
+public class ReSharperIssueFilter {
+
+  public static final ReSharperIssueFilter ACCEPT_ALL = new ReSharperIssueFilter(null, null);
+
+  private final Set<String> typeIds;
+  private final Predicate<String> filePredicate;
+
+  private ReSharperIssueFilter(@Nullable Set<String> typeIds, @Nullable Predicate<String> filePredicate) {
+    this.typeIds = typeIds;
+    this.filePredicate = filePredicate;
+  }
+
+  /**
+   * @return a filter which only accepts the issues of the given TypeIds
+   */
+  public static ReSharperIssueFilter of(Collection<String> typeIds) {
+    return new ReSharperIssueFilter(ImmutableSortedSet.copyOf(typeIds), null);
+  }
+
+  /**
+   * @param filePredicate applied to the raw File attribute of the issues, or to null when they have none
+   * @return a filter which also requires the File attribute of the issues to satisfy the predicate
+   */
+  public ReSharperIssueFilter withFilePredicate(Predicate<String> filePredicate) {
+    return new ReSharperIssueFilter(typeIds, filePredicate);
+  }
+
+  public boolean acceptsAll() {
+    return typeIds == null && filePredicate == null;
+  }
+
+  public boolean hasFilePredicate() {
+    return filePredicate != null;
+  }
+
+  public boolean acceptsTypeId(String typeId) {
+    return typeIds == null || typeIds.contains(typeId);
+  }
+
+  public boolean acceptsFile(@Nullable String filePath) {
+    return filePredicate == null || filePredicate.apply(filePath);
+  }
+
+  public boolean accepts(String typeId, @Nullable String filePath) {
+    return acceptsTypeId(typeId) && acceptsFile(filePath);
+  }
+
+  /**
+   * @return a short digest of the accepted TypeIds, "all" if every TypeId is accepted, which the results of the filter can be cached with
+   * @throws IllegalStateException if the filter has a file predicate, whose results cannot be cached
+   */
+  public String cacheKey() {
+    if (filePredicate != null) {
+      throw new IllegalStateException("The results of a filter on files cannot be cached");
+    }
+    if (typeIds == null) {
+      return "all";
+    }
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw Throwables.propagate(e);
+    }
+    for (String typeId : typeIds) {
+      digest.update(typeId.getBytes(Charsets.UTF_8));
+      digest.update((byte) 0);
+    }
+    return ReSharperReportDiskCache.hex(digest.digest()).substring(0, 16);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ReSharperIssueFilter)) {
+      return false;
+    }
+    ReSharperIssueFilter other = (ReSharperIssueFilter) o;
+    return Objects.equal(typeIds, other.typeIds) && Objects.equal(filePredicate, other.filePredicate);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(typeIds, filePredicate);
+  }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.Nullable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the issues in three overlapping stages: a producer thread parses the reports, a pool of threads resolves
+ * the file paths of the issues, and the calling thread writes them, in report order. The writer can thus use
+ * the SonarQube issue API, which is not thread-safe.
+ * <p>
+ * The issues go through the stages in batches, connected by a bounded queue: the producer waits whenever
+ * the resolvers are too far ahead of the writer.
+ */
+public class ReSharperIssuePipeline {
+
+  public static final int BATCH_SIZE = 1024;
+
+  public interface Producer {
+
+    /**
+     * Called on the producer thread, to hand all the issues over to the sink.
+     */
+    void produce(Sink sink);
+
+  }
+
+  public interface Writer {
+
+    /**
+     * Called on the thread which runs the pipeline, in report order.
+     *
+     * @param resolution the resolution of the file path of the issue, or null if it has no file or no line
+     */
+    void write(ReSharperIssueStore issues, int row, @Nullable ReSharperFileResolver.Resolution resolution);
+
+  }
+
+  private static final Future<Batch> END = Futures.immediateFuture(null);
+
+  private final ReSharperFileResolver resolver;
+  private final int threads;
+  private final AtomicLong resolvingNanos = new AtomicLong();
+
+  /**
+   * @param resolver which must be thread-safe
+   * @param threads the number of threads resolving the file paths
+   */
+  public ReSharperIssuePipeline(ReSharperFileResolver resolver, int threads) {
+    this.resolver = resolver;
+    this.threads = Math.max(1, threads);
+  }
+
+  /**
+   * @return the time spent resolving file paths, summed over all the resolving threads
+   */
+  public long resolvingNanos() {
+    return resolvingNanos.get();
+  }
+
+  public void run(final Producer producer, Writer writer) {
+    BlockingQueue<Future<Batch>> queue = new ArrayBlockingQueue<Future<Batch>>(4 * threads);
+    ExecutorService producerExecutor = Executors.newSingleThreadExecutor(threadFactory("resharper-pipeline-producer-%d"));
+    ExecutorService resolverExecutor = Executors.newFixedThreadPool(threads, threadFactory("resharper-pipeline-resolver-%d"));
+    try {
+      final Sink sink = new Sink(queue, resolverExecutor);
+      Future<?> production = producerExecutor.submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            producer.produce(sink);
+            sink.flush();
+          } finally {
+            sink.end();
+          }
+        }
+      });
+
+      Future<Batch> future = take(queue);
+      while (future != END) {
+        get(future).write(writer);
+        future = take(queue);
+      }
+      get(production);
+    } finally {
+      // Also interrupts the producer when the writer fails while it waits for room in the queue
+      producerExecutor.shutdownNow();
+      resolverExecutor.shutdownNow();
+    }
+  }
+
+  private static ThreadFactory threadFactory(String nameFormat) {
+    return new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build();
+  }
+
+  private static <T> T take(BlockingQueue<T> queue) {
+    try {
+      return queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private static <T> T get(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Throwables.propagate(e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  /**
+   * Cuts the issues it receives into batches, whose file paths are resolved as soon as they are queued.
+   * Issues handed over one by one are first gathered into stores of {@link #BATCH_SIZE} issues.
+   */
+  public class Sink implements ReSharperIssueHandler, ReSharperReportLoader.ReportHandler<ReSharperIssueStore> {
+
+    private final BlockingQueue<Future<Batch>> queue;
+    private final ExecutorService resolverExecutor;
+    private ReSharperStringDictionary dictionary;
+    private ReSharperIssueStore.Builder builder;
+    private int pending;
+
+    private Sink(BlockingQueue<Future<Batch>> queue, ExecutorService resolverExecutor) {
+      this.queue = queue;
+      this.resolverExecutor = resolverExecutor;
+    }
+
+    @Override
+    public void handle(ReSharperIssue issue) {
+      if (builder == null) {
+        dictionary = new ReSharperStringDictionary();
+        builder = new ReSharperIssueStore.Builder(dictionary);
+      }
+      builder.add(issue);
+      pending++;
+      if (pending == BATCH_SIZE) {
+        flush();
+      }
+    }
+
+    @Override
+    public void handle(ReSharperIssueStore issues) {
+      flush();
+      for (int from = 0; from < issues.size(); from += BATCH_SIZE) {
+        queue(new Batch(issues, from, Math.min(issues.size(), from + BATCH_SIZE)));
+      }
+    }
+
+    private void flush() {
+      if (pending > 0) {
+        queue(new Batch(builder.build(dictionary.toArray()), 0, pending));
+        builder = null;
+        dictionary = null;
+        pending = 0;
+      }
+    }
+
+    private void queue(final Batch batch) {
+      Future<Batch> future = resolverExecutor.submit(new Callable<Batch>() {
+        @Override
+        public Batch call() {
+          return batch.resolve();
+        }
+      });
+      try {
+        queue.put(future);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw Throwables.propagate(e);
+      }
+    }
+
+    private void end() {
+      try {
+        queue.put(END);
+      } catch (InterruptedException e) {
+        // The writer has failed and no longer reads the queue
+        Thread.currentThread().interrupt();
+      }
+    }
+
+  }
+
+  private class Batch {
+
+    private final ReSharperIssueStore issues;
+    private final int from;
+    private final int to;
+    private final ReSharperFileResolver.Resolution[] resolutions;
+
+    Batch(ReSharperIssueStore issues, int from, int to) {
+      this.issues = issues;
+      this.from = from;
+      this.to = to;
+      this.resolutions = new ReSharperFileResolver.Resolution[to - from];
+    }
+
+    Batch resolve() {
+      long start = System.nanoTime();
+      for (int row = from; row < to; row++) {
+        String filePath = issues.filePath(row);
+        if (filePath != null && issues.hasLine(row)) {
+          resolutions[row - from] = resolver.resolve(filePath);
+        }
+      }
+      resolvingNanos.addAndGet(System.nanoTime() - start);
+      return this;
+    }
+
+    void write(Writer writer) {
+      for (int row = from; row < to; row++) {
+        writer.write(issues, row, resolutions[row - from]);
+      }
+    }
+
+  }
+
+}
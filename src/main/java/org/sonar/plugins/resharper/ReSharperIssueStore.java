@@ -0,0 +1,263 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Compact, immutable list of the issues of a project. The TypeIds, file paths and messages are ids in a dictionary
+ * shared by all the projects of a report, and each field is kept in a primitive array, so that an issue takes
+ * about 20 bytes instead of an object, a boxed line and its strings.
+ * <p>
+ * The fields are read by row index, without creating any {@link ReSharperIssue}; {@link #get(int)} creates one on demand.
+ */
+public class ReSharperIssueStore extends AbstractList<ReSharperIssue> implements RandomAccess {
+
+  public static final int NO_FILE = -1;
+  private static final int NO_LINE = Integer.MIN_VALUE;
+  private static final int[] EMPTY = new int[0];
+  private static final ReSharperIssueStore EMPTY_STORE = new ReSharperIssueStore(new String[0], 0, EMPTY, EMPTY, EMPTY, EMPTY, EMPTY);
+
+  private final String[] strings;
+  private final int size;
+  private final int[] reportLines;
+  private final int[] ruleKeys;
+  private final int[] files;
+  private final int[] lines;
+  private final int[] messages;
+
+  private ReSharperIssueStore(String[] strings, int size, int[] reportLines, int[] ruleKeys, int[] files, int[] lines, int[] messages) {
+    this.strings = strings;
+    this.size = size;
+    this.reportLines = reportLines;
+    this.ruleKeys = ruleKeys;
+    this.files = files;
+    this.lines = lines;
+    this.messages = messages;
+  }
+
+  public static ReSharperIssueStore empty() {
+    return EMPTY_STORE;
+  }
+
+  /**
+   * @return the given issues if they already are a store, or a new store of them
+   */
+  public static ReSharperIssueStore copyOf(List<ReSharperIssue> issues) {
+    if (issues instanceof ReSharperIssueStore) {
+      return (ReSharperIssueStore) issues;
+    }
+    ReSharperStringDictionary dictionary = new ReSharperStringDictionary();
+    Builder builder = new Builder(dictionary);
+    for (ReSharperIssue issue : issues) {
+      builder.add(issue);
+    }
+    return builder.build(dictionary.toArray());
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public ReSharperIssue get(int row) {
+    return new ReSharperIssue(reportLine(row), ruleKey(row), filePath(row), hasLine(row) ? line(row) : null, message(row));
+  }
+
+  public int reportLine(int row) {
+    checkRow(row);
+    return reportLines[row];
+  }
+
+  public int ruleKeyId(int row) {
+    checkRow(row);
+    return ruleKeys[row];
+  }
+
+  public String ruleKey(int row) {
+    return strings[ruleKeyId(row)];
+  }
+
+  /**
+   * @return the id of the file path, or {@link #NO_FILE}
+   */
+  public int fileId(int row) {
+    checkRow(row);
+    return files[row];
+  }
+
+  @CheckForNull
+  public String filePath(int row) {
+    int file = fileId(row);
+    return file == NO_FILE ? null : strings[file];
+  }
+
+  public boolean hasLine(int row) {
+    checkRow(row);
+    return lines[row] != NO_LINE;
+  }
+
+  /**
+   * @return the line, which is meaningful only if {@link #hasLine(int)}
+   */
+  public int line(int row) {
+    checkRow(row);
+    return lines[row];
+  }
+
+  public int messageId(int row) {
+    checkRow(row);
+    return messages[row];
+  }
+
+  public String message(int row) {
+    return strings[messageId(row)];
+  }
+
+  /**
+   * @return the number of distinct strings of the dictionary, whose ids range from zero to this size, excluded
+   */
+  public int dictionarySize() {
+    return strings.length;
+  }
+
+  public String string(int id) {
+    return strings[id];
+  }
+
+  /**
+   * Stable counting sort of the rows by file id, which takes two arrays of ints and no object per row.
+   * The counts are sized by the range of the file ids of this project, not by the dictionary shared by the whole report.
+   * Should the ids of the project be too sparse in that range, the rows are sorted by their file id and row instead.
+   *
+   * @return the rows of the issues of each file next to each other, in report order, the rows without file first
+   */
+  public int[] rowsByFile() {
+    int minFile = Integer.MAX_VALUE;
+    int maxFile = NO_FILE;
+    for (int row = 0; row < size; row++) {
+      if (files[row] != NO_FILE) {
+        minFile = Math.min(minFile, files[row]);
+        maxFile = Math.max(maxFile, files[row]);
+      }
+    }
+    if (maxFile != NO_FILE && (long) maxFile - minFile >= 2L * size) {
+      return sortedRowsByFile();
+    }
+
+    // The rows without file go to slot 0, the rows of the smallest file id to slot 1
+    int offset = minFile - 1;
+    int[] starts = new int[maxFile == NO_FILE ? 2 : (maxFile - offset + 2)];
+    for (int row = 0; row < size; row++) {
+      starts[slot(files[row], offset) + 1]++;
+    }
+    for (int i = 2; i < starts.length; i++) {
+      starts[i] += starts[i - 1];
+    }
+    int[] rows = new int[size];
+    for (int row = 0; row < size; row++) {
+      rows[starts[slot(files[row], offset)]++] = row;
+    }
+    return rows;
+  }
+
+  private static int slot(int file, int offset) {
+    return file == NO_FILE ? 0 : (file - offset);
+  }
+
+  private int[] sortedRowsByFile() {
+    long[] keys = new long[size];
+    for (int row = 0; row < size; row++) {
+      keys[row] = ((long) (files[row] + 1) << 32) | row;
+    }
+    Arrays.sort(keys);
+    int[] rows = new int[size];
+    for (int i = 0; i < size; i++) {
+      rows[i] = (int) keys[i];
+    }
+    return rows;
+  }
+
+  private void checkRow(int row) {
+    if (row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    }
+  }
+
+  public static class Builder {
+
+    private final ReSharperStringDictionary dictionary;
+    private int size;
+    private int[] reportLines = new int[16];
+    private int[] ruleKeys = new int[16];
+    private int[] files = new int[16];
+    private int[] lines = new int[16];
+    private int[] messages = new int[16];
+
+    /**
+     * @param dictionary the dictionary of the strings, which may be shared with the builders of the other projects of the report
+     */
+    public Builder(ReSharperStringDictionary dictionary) {
+      this.dictionary = dictionary;
+    }
+
+    public Builder add(ReSharperIssue issue) {
+      return add(issue.reportLine(), issue.ruleKey(), issue.filePath(), issue.line(), issue.message());
+    }
+
+    public Builder add(int reportLine, String ruleKey, @Nullable String filePath, @Nullable Integer line, String message) {
+      if (size == reportLines.length) {
+        int capacity = size + (size >> 1);
+        reportLines = Arrays.copyOf(reportLines, capacity);
+        ruleKeys = Arrays.copyOf(ruleKeys, capacity);
+        files = Arrays.copyOf(files, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        messages = Arrays.copyOf(messages, capacity);
+      }
+      reportLines[size] = reportLine;
+      ruleKeys[size] = dictionary.id(ruleKey);
+      files[size] = filePath == null ? NO_FILE : dictionary.id(filePath);
+      lines[size] = line == null ? NO_LINE : line;
+      messages[size] = dictionary.id(message);
+      size++;
+      return this;
+    }
+
+    /**
+     * @param strings the strings of the dictionary, once all the issues it is shared by have been added
+     */
+    public ReSharperIssueStore build(String[] strings) {
+      if (strings.length < dictionary.size()) {
+        throw new IllegalStateException("The strings are missing some of the dictionary");
+      }
+      return new ReSharperIssueStore(strings, size,
+        Arrays.copyOf(reportLines, size), Arrays.copyOf(ruleKeys, size), Arrays.copyOf(files, size), Arrays.copyOf(lines, size), Arrays.copyOf(messages, size));
+    }
+
+  }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.sonar.api.batch.fs.InputFile;
+
+import javax.annotation.CheckForNull;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of input files by a normalized form of their absolute path, to match the paths of reports produced on Windows
+ * whatever the OS of the analysis: see {@link #key(String)}.
+ * <p>
+ * Report paths relative to the solution directory are resolved against it. Resolving a path is a single lookup, which
+ * does not create any {@link File}. Input files whose keys collide, such as files only differing by case on a
+ * case-sensitive file system, are left out of the index, so that they are only matched by their exact path.
+ */
+public class ReSharperPathIndex {
+
+  private final String baseDirectory;
+  private final Map<String, InputFile> inputFilesByKey;
+
+  /**
+   * @param inputFiles the files to index
+   * @param baseDirectory the directory the relative report paths are relative to
+   */
+  public ReSharperPathIndex(Iterable<InputFile> inputFiles, File baseDirectory) {
+    this.baseDirectory = baseDirectory.getAbsolutePath();
+    Map<String, InputFile> builder = Maps.newHashMap();
+    Set<String> ambiguousKeys = Sets.newHashSet();
+    for (InputFile inputFile : inputFiles) {
+      String key = key(inputFile.absolutePath());
+      InputFile previous = builder.put(key, inputFile);
+      if (previous != null && !previous.equals(inputFile)) {
+        ambiguousKeys.add(key);
+      }
+    }
+    builder.keySet().removeAll(ambiguousKeys);
+    this.inputFilesByKey = ImmutableMap.copyOf(builder);
+  }
+
+  /**
+   * @param reportPath a path of the report, either absolute or relative to the base directory
+   * @return the input file of the path, or null if none or several input files have its key
+   */
+  @CheckForNull
+  public InputFile get(String reportPath) {
+    return inputFilesByKey.get(key(baseDirectory, reportPath));
+  }
+
+  /**
+   * @return the normalized form of the path, once resolved against the given directory if it is relative, see {@link #key(String)}
+   */
+  public static String key(String baseDirectory, String path) {
+    return key(isAbsolute(path) ? path : (baseDirectory + '/' + path));
+  }
+
+  /**
+   * @return the number of indexed files
+   */
+  public int size() {
+    return inputFilesByKey.size();
+  }
+
+  /**
+   * The normalized form of a path:
+   * <ul>
+   * <li>quoted paths are repaired, see {@link ReSharperFileResolver#repairQuotedPath(File)}: only the path between the quotes is kept</li>
+   * <li>backslashes are replaced by slashes, and successive separators are merged</li>
+   * <li>"." segments are removed, and ".." segments are collapsed with the previous one</li>
+   * <li>the case is folded, the same way as {@link ReSharperFileNameIndex} does</li>
+   * </ul>
+   */
+  static String key(String path) {
+    int start = 0;
+    int end = path.length();
+    if (end > 1 && path.charAt(end - 1) == '"') {
+      int quote = path.indexOf('"');
+      if (quote < end - 1) {
+        start = quote + 1;
+        end--;
+      }
+    }
+
+    StringBuilder sb = new StringBuilder(end - start);
+    // Length of the root of the path, which ".." segments never remove
+    int root = 0;
+    if (start < end && isSeparator(path.charAt(start))) {
+      sb.append('/');
+      root = 1;
+    }
+    int i = start;
+    while (i < end) {
+      while (i < end && isSeparator(path.charAt(i))) {
+        i++;
+      }
+      int segmentStart = i;
+      while (i < end && !isSeparator(path.charAt(i))) {
+        i++;
+      }
+      int segmentLength = i - segmentStart;
+      if (segmentLength == 0 || (segmentLength == 1 && path.charAt(segmentStart) == '.')) {
+        continue;
+      }
+      if (segmentLength == 2 && path.charAt(segmentStart) == '.' && path.charAt(segmentStart + 1) == '.') {
+        int parent = Math.max(root, sb.lastIndexOf("/"));
+        if (parent < sb.length() && !endsWithParentSegment(sb, parent)) {
+          sb.setLength(parent);
+          continue;
+        } else if (root > 0) {
+          // Nothing above the root
+          continue;
+        }
+      }
+      if (sb.length() > root) {
+        sb.append('/');
+      }
+      for (int j = segmentStart; j < i; j++) {
+        sb.append(Character.toLowerCase(Character.toUpperCase(path.charAt(j))));
+      }
+      if (sb.length() == 2 && sb.charAt(1) == ':') {
+        // Drive letter, the root of a Windows path
+        sb.append('/');
+        root = 3;
+      }
+    }
+    return sb.toString();
+  }
+
+  private static boolean endsWithParentSegment(StringBuilder sb, int parent) {
+    int segmentStart = sb.charAt(parent) == '/' ? parent + 1 : parent;
+    return sb.length() - segmentStart == 2 && sb.charAt(segmentStart) == '.' && sb.charAt(segmentStart + 1) == '.';
+  }
+
+  private static boolean isAbsolute(String path) {
+    int start = 0;
+    int end = path.length();
+    if (end > 1 && path.charAt(end - 1) == '"' && path.indexOf('"') < end - 1) {
+      start = path.indexOf('"') + 1;
+    }
+    return (start < end && isSeparator(path.charAt(start)))
+      || (start + 1 < end && Character.isLetter(path.charAt(start)) && path.charAt(start + 1) == ':');
+  }
+
+  private static boolean isSeparator(char c) {
+    return c == '/' || c == '\\';
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.Maps;
+import org.sonar.api.batch.fs.InputFile;
+
+import javax.annotation.CheckForNull;
+
+import java.util.Map;
+
+/**
+ * Trie of the segments of the normalized paths of the input files, from their file name up to their root, to resolve report paths
+ * which are not relative to the solution directory, such as the paths of nested solutions, shared projects or linked files.
+ * <p>
+ * A report path is matched to the input file with the longest common suffix of segments, provided that this file is the only one
+ * with that suffix and that the suffix is at least the file name and its directory, or the whole report path. Matching a path
+ * costs one lookup per segment, whatever the number of roots the input files are under.
+ */
+public class ReSharperPathTrie {
+
+  private static final int MIN_MATCHED_SEGMENTS = 2;
+
+  private final Node root = new Node();
+
+  /**
+   * @param inputFiles the files to index, see {@link ReSharperPathIndex#key(String)} for the normalization of their path
+   */
+  public ReSharperPathTrie(Iterable<InputFile> inputFiles) {
+    for (InputFile inputFile : inputFiles) {
+      add(ReSharperPathIndex.key(inputFile.absolutePath()), inputFile);
+    }
+  }
+
+  private void add(String key, InputFile inputFile) {
+    Node node = root;
+    node.add(inputFile);
+    int end = key.length();
+    while (end > 0) {
+      int start = key.lastIndexOf('/', end - 1) + 1;
+      if (start < end) {
+        node = node.child(key.substring(start, end));
+        node.add(inputFile);
+      }
+      end = start - 1;
+    }
+  }
+
+  /**
+   * @param reportPath a path of the report, with any root, case and separators
+   * @return the only input file whose path ends with the longest suffix of the report path, or null if none or several
+   */
+  @CheckForNull
+  public InputFile get(String reportPath) {
+    String key = ReSharperPathIndex.key(reportPath);
+    Node node = root;
+    int matched = 0;
+    boolean whole = true;
+    int end = key.length();
+    while (end > 0) {
+      int start = key.lastIndexOf('/', end - 1) + 1;
+      String segment = key.substring(start, end);
+      if ("..".equals(segment)) {
+        // The rest of a relative path is above its root
+        break;
+      }
+      if (start < end) {
+        Node child = node.children == null ? null : node.children.get(segment);
+        if (child == null) {
+          whole = false;
+          break;
+        }
+        node = child;
+        matched++;
+      }
+      end = start - 1;
+    }
+    if (matched == 0 || (matched < MIN_MATCHED_SEGMENTS && !whole) || node.count != 1) {
+      return null;
+    }
+    return node.inputFile;
+  }
+
+  private static class Node {
+
+    private Map<String, Node> children;
+    private int count;
+    private InputFile inputFile;
+
+    private void add(InputFile inputFile) {
+      count++;
+      this.inputFile = inputFile;
+    }
+
+    private Node child(String segment) {
+      if (children == null) {
+        children = Maps.newHashMapWithExpectedSize(1);
+      }
+      Node child = children.get(segment);
+      if (child == null) {
+        child = new Node();
+        children.put(segment, child);
+      }
+      return child;
+    }
+
+  }
+
+}
@@ -34,6 +34,18 @@ public class ReSharperPlugin extends SonarPlugin {
   public static final String SOLUTION_FILE_PROPERTY_KEY = "sonar.resharper.solutionFile";
   public static final String INSPECTCODE_PATH_PROPERTY_KEY = "sonar.resharper.inspectCodePath";
   public static final String TIMEOUT_MINUTES_PROPERTY_KEY = "sonar.resharper.timeoutMinutes";
+  public static final String REPORT_PARSING_THREADS_PROPERTY_KEY = "sonar.resharper.reportParsingThreads";
+  public static final String PIPELINE_THREADS_PROPERTY_KEY = "sonar.resharper.pipelineThreads";
+  public static final String REPORT_SCANNER_PROPERTY_KEY = "sonar.resharper.reportScanner";
+  public static final String REPORT_CACHE_DIRECTORY_PROPERTY_KEY = "sonar.resharper.reportCacheDirectory";
+  public static final String REPORT_CACHE_MAX_SIZE_PROPERTY_KEY = "sonar.resharper.reportCacheMaxSizeMb";
+  public static final String CHANGED_FILES_PROPERTY_KEY = "sonar.resharper.changedFiles";
+  public static final String CHANGED_FILES_LIST_PROPERTY_KEY = "sonar.resharper.changedFilesList";
+  public static final String FULL_REPORT_DIRECTORY_PROPERTY_KEY = "sonar.resharper.fullReportDirectory";
+  public static final String CACHES_HOME_PROPERTY_KEY = "sonar.resharper.cachesHome";
+  public static final String CACHES_HOME_MAX_SIZE_PROPERTY_KEY = "sonar.resharper.cachesHomeMaxSizeMb";
+  public static final String SHARDED_INSPECTION_PROPERTY_KEY = "sonar.resharper.shardedInspection";
+  public static final String SHARDED_INSPECTION_THREADS_PROPERTY_KEY = "sonar.resharper.shardedInspectionThreads";
 
   public static final String CS_REPORT_PATH_KEY = "sonar.resharper.cs.reportPath";
   public static final String VBNET_REPORT_PATH_KEY = "sonar.resharper.vbnet.reportPath";
@@ -53,6 +65,8 @@ public class ReSharperPlugin extends SonarPlugin {
 
     builder.addAll(CSharpReSharperProvider.extensions());
     builder.addAll(VBNetReSharperProvider.extensions());
+    builder.add(ReSharperReportCache.class);
+    builder.add(ReSharperInspectCodeRuns.class);
 
     builder.addAll(pluginProperties());
 
@@ -63,18 +77,64 @@ public class ReSharperPlugin extends SonarPlugin {
     return ImmutableList.of(
       PropertyDefinition.builder(CS_REPORT_PATH_KEY)
         .name("ReSharper report path for C#")
-        .description("Path to the ReSharper report for C#, i.e. reports/cs-report.xml")
+        .description("Comma-separated paths or glob patterns of the ReSharper reports for C#, i.e. reports/cs-report.xml or reports/**/cs-*.xml")
         .category(CATEGORY)
         .onlyOnQualifiers(Qualifiers.PROJECT, Qualifiers.MODULE)
         .build(),
 
       PropertyDefinition.builder(VBNET_REPORT_PATH_KEY)
         .name("ReSharper report path for VB.NET")
-        .description("Path to the ReSharper report for VB.NET, i.e. reports/vbnet-report.xml")
+        .description("Comma-separated paths or glob patterns of the ReSharper reports for VB.NET, i.e. reports/vbnet-report.xml or reports/**/vbnet-*.xml")
         .category(CATEGORY)
         .onlyOnQualifiers(Qualifiers.PROJECT, Qualifiers.MODULE)
         .build(),
 
+      PropertyDefinition.builder(REPORT_PARSING_THREADS_PROPERTY_KEY)
+        .name("Report parsing threads")
+        .description("Maximum number of ReSharper reports parsed concurrently, when the report path property lists several of them.")
+        .defaultValue("4")
+        .category(CATEGORY)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.INTEGER)
+        .build(),
+
+      PropertyDefinition.builder(PIPELINE_THREADS_PROPERTY_KEY)
+        .name("Pipeline threads")
+        .description("Number of threads resolving the file paths of the issues while the reports are still being parsed, on another thread. "
+          + "The issues are then saved as soon as they are resolved. Set to 0 to parse, resolve and save the issues one after the other.")
+        .defaultValue("0")
+        .category(CATEGORY)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.INTEGER)
+        .build(),
+
+      PropertyDefinition.builder(REPORT_SCANNER_PROPERTY_KEY)
+        .name("Fast report scanner")
+        .description("Whether to read the ReSharper reports with a fast scanner of their bytes, which falls back to the XML parser "
+          + "on any unexpected content. Disable to always use the XML parser.")
+        .defaultValue("true")
+        .category(CATEGORY)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.BOOLEAN)
+        .build(),
+
+      PropertyDefinition.builder(REPORT_CACHE_DIRECTORY_PROPERTY_KEY)
+        .name("Parsed report cache directory")
+        .description("Directory where the parsed ReSharper reports are kept across analyses, so that an unchanged report is not parsed again. "
+          + "Leave empty to disable this cache.")
+        .category(CATEGORY)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+
+      PropertyDefinition.builder(REPORT_CACHE_MAX_SIZE_PROPERTY_KEY)
+        .name("Parsed report cache maximum size")
+        .description("Size in megabytes beyond which the least recently used parsed reports are evicted from the cache directory.")
+        .defaultValue("1024")
+        .category(CATEGORY)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.INTEGER)
+        .build(),
+
       PropertyDefinition.builder(SOLUTION_FILE_PROPERTY_KEY)
         .name("Solution file")
         .description("The absolute path to the solution or project file given as input to inspectcode.exe. Example: C:/Projects/MyProject/MySolution.sln.")
@@ -82,6 +142,71 @@ public class ReSharperPlugin extends SonarPlugin {
         .onlyOnQualifiers(Qualifiers.PROJECT, Qualifiers.MODULE)
         .build(),
 
+      PropertyDefinition.builder(CHANGED_FILES_PROPERTY_KEY)
+        .name("Changed files")
+        .description("When inspectcode.exe is run by the plugin, comma-separated paths, relative to the solution directory, of the only files to inspect. "
+          + "Their issues are merged into the report of the previous inspection of the whole project, which is run instead when there is none "
+          + "for the active rules. Example: MyLibrary/Class1.cs, MyLibrary/Class2.cs.")
+        .category(CATEGORY)
+        .onlyOnQualifiers(Qualifiers.PROJECT, Qualifiers.MODULE)
+        .build(),
+
+      PropertyDefinition.builder(CHANGED_FILES_LIST_PROPERTY_KEY)
+        .name("Changed files list")
+        .description("Path to a file which lists the changed files, one per line, instead of the \"" + CHANGED_FILES_PROPERTY_KEY + "\" property. "
+          + "When it is empty, the report of the previous inspection is reused as it is.")
+        .category(CATEGORY)
+        .onlyOnQualifiers(Qualifiers.PROJECT, Qualifiers.MODULE)
+        .build(),
+
+      PropertyDefinition.builder(FULL_REPORT_DIRECTORY_PROPERTY_KEY)
+        .name("Full report directory")
+        .description("Directory where the report of the last inspection of the whole project is kept across analyses, for the changed files to be "
+          + "merged into. Leave empty to keep it in the working directory, which the scanner may clean between analyses, in which case "
+          + "the whole project is inspected again.")
+        .category(CATEGORY)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+
+      PropertyDefinition.builder(CACHES_HOME_PROPERTY_KEY)
+        .name("inspectcode.exe caches home")
+        .description("When inspectcode.exe is run by the plugin, directory where it keeps its caches across analyses, through its /caches-home= option, "
+          + "so that the next inspection of the same solution on this machine is faster. Leave empty to let inspectcode.exe use its default one.")
+        .category(CATEGORY)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+
+      PropertyDefinition.builder(CACHES_HOME_MAX_SIZE_PROPERTY_KEY)
+        .name("inspectcode.exe caches home maximum size")
+        .description("Size in megabytes beyond which the caches of the least recently inspected solutions are deleted from the caches home, "
+          + "after each inspection.")
+        .defaultValue("2048")
+        .category(CATEGORY)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.INTEGER)
+        .build(),
+
+      PropertyDefinition.builder(SHARDED_INSPECTION_PROPERTY_KEY)
+        .name("Sharded inspection")
+        .description("When inspectcode.exe is run by the plugin, whether to inspect each project of the solution file with an inspectcode.exe "
+          + "process of its own, several of them concurrently, instead of the project of the \"" + PROJECT_NAME_PROPERTY_KEY + "\" property only. "
+          + "The report of the whole solution is then shared by all the modules.")
+        .defaultValue("false")
+        .category(CATEGORY)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.BOOLEAN)
+        .build(),
+
+      PropertyDefinition.builder(SHARDED_INSPECTION_THREADS_PROPERTY_KEY)
+        .name("Sharded inspection processes")
+        .description("Maximum number of inspectcode.exe processes run concurrently by the sharded inspection. "
+          + "Set to 0 to run one process per couple of available cores.")
+        .defaultValue("0")
+        .category(CATEGORY)
+        .onQualifiers(Qualifiers.PROJECT)
+        .type(PropertyType.INTEGER)
+        .build(),
+
       PropertyDefinition.builder(PROJECT_NAME_PROPERTY_KEY)
         .name(deprecatedName("Visual Studio project name"))
         .description(deprecatedDescription("Example: MyLibrary."))
@@ -0,0 +1,59 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the issues of a report into one {@link ReSharperIssueStore} per project name, in report order.
+ * The stores of all the projects share the same dictionary.
+ */
+public class ReSharperProjectIssuesBuilder implements ReSharperProjectIssueHandler {
+
+  private final ReSharperStringDictionary dictionary = new ReSharperStringDictionary();
+  private final Map<String, ReSharperIssueStore.Builder> builders = Maps.newLinkedHashMap();
+
+  @Override
+  public void handle(String projectName, ReSharperIssue issue) {
+    ReSharperIssueStore.Builder builder = builders.get(projectName);
+    if (builder == null) {
+      builder = new ReSharperIssueStore.Builder(dictionary);
+      builders.put(projectName, builder);
+    }
+    builder.add(issue);
+  }
+
+  /**
+   * @return the issues of each project, as {@link ReSharperIssueStore}s
+   */
+  public Map<String, List<ReSharperIssue>> build() {
+    String[] strings = dictionary.toArray();
+    ImmutableMap.Builder<String, List<ReSharperIssue>> result = ImmutableMap.builder();
+    for (Map.Entry<String, ReSharperIssueStore.Builder> entry : builders.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().build(strings));
+    }
+    return result.build();
+  }
+
+}
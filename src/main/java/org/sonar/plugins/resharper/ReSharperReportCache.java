@@ -0,0 +1,198 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.InstantiationStrategy;
+
+import javax.annotation.CheckForNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shares the parsed ReSharper reports between all the modules and both language sensors of an analysis.
+ * A report is read once, in a single pass, into one bucket of issues per project, which each sensor then claims.
+ * A bucket is freed once all its readers have claimed it.
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class ReSharperReportCache implements BatchExtension {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReSharperReportCache.class);
+
+  private final Map<String, Entry> entries = Maps.newHashMap();
+
+  /**
+   * Can be called concurrently: distinct reports are parsed in parallel, and a report requested by several threads is parsed only once.
+   *
+   * @return the issues of the given project, parsing the report only if it has not been parsed yet or changed since
+   */
+  public ReSharperIssueStore issues(ReSharperReportParser parser, File reportFile, String projectName) {
+    return issues(parser, reportFile, projectName, ReSharperIssueFilter.ACCEPT_ALL);
+  }
+
+  /**
+   * The report is parsed once per distinct filter, which is why the callers sharing a report should share their filter as well.
+   *
+   * @param filter the pre-filter of the parser, which must not filter files: the issues are shared by all the modules
+   * @return the issues of the given project accepted by the filter
+   */
+  public ReSharperIssueStore issues(ReSharperReportParser parser, File reportFile, String projectName, ReSharperIssueFilter filter) {
+    return issues(parser, reportFile, projectName, filter, Integer.MAX_VALUE);
+  }
+
+  /**
+   * The issues of the project are released once they have been requested by all their readers, so that the memory of the report
+   * is freed as the modules are analyzed. Should they be requested again, the project is parsed again, on its own.
+   *
+   * @param readers the number of sensors which request the issues of the project
+   * @see #issues(ReSharperReportParser, File, String, ReSharperIssueFilter)
+   */
+  public ReSharperIssueStore issues(ReSharperReportParser parser, File reportFile, String projectName, ReSharperIssueFilter filter, int readers) {
+    if (filter.hasFilePredicate()) {
+      throw new IllegalArgumentException("The shared ReSharper reports cannot be filtered by files");
+    }
+    List<ReSharperIssue> issues = entry(ReportKey.of(reportFile)).bucket(parser, reportFile, filter).claim(parser, reportFile, projectName, filter, readers);
+    return issues == null ? ReSharperIssueStore.empty() : ReSharperIssueStore.copyOf(issues);
+  }
+
+  private synchronized Entry entry(ReportKey key) {
+    Entry entry = entries.get(key.canonicalPath);
+    if (entry == null || !entry.key.equals(key)) {
+      entry = new Entry(key);
+      entries.put(key.canonicalPath, entry);
+    }
+    return entry;
+  }
+
+  private static class Entry {
+
+    private final ReportKey key;
+    private final Map<ReSharperIssueFilter, Bucket> bucketsByFilter = Maps.newHashMap();
+
+    Entry(ReportKey key) {
+      this.key = key;
+    }
+
+    synchronized Bucket bucket(ReSharperReportParser parser, File reportFile, ReSharperIssueFilter filter) {
+      Bucket bucket = bucketsByFilter.get(filter);
+      if (bucket == null) {
+        bucket = new Bucket(parser.parseProjects(reportFile, filter));
+        bucketsByFilter.put(filter, bucket);
+      } else {
+        LOG.debug("Reusing the already parsed ReSharper report: " + reportFile);
+      }
+      return bucket;
+    }
+
+  }
+
+  /**
+   * The issues of a report accepted by a filter, per project, and the number of times each project was claimed.
+   */
+  private static class Bucket {
+
+    private final Map<String, List<ReSharperIssue>> issuesByProject;
+    private final Map<String, Integer> claims = Maps.newHashMap();
+    private final Set<String> released = Sets.newHashSet();
+
+    Bucket(Map<String, List<ReSharperIssue>> issuesByProject) {
+      this.issuesByProject = Maps.newHashMap(issuesByProject);
+    }
+
+    @CheckForNull
+    synchronized List<ReSharperIssue> claim(ReSharperReportParser parser, File reportFile, String projectName, ReSharperIssueFilter filter, int readers) {
+      if (released.contains(projectName)) {
+        LOG.debug("Parsing the ReSharper report " + reportFile + " again for the already released project " + projectName);
+        ReSharperStringDictionary dictionary = new ReSharperStringDictionary();
+        final ReSharperIssueStore.Builder builder = new ReSharperIssueStore.Builder(dictionary);
+        parser.parse(reportFile, projectName, filter, new ReSharperIssueHandler() {
+          @Override
+          public void handle(ReSharperIssue issue) {
+            builder.add(issue);
+          }
+        });
+        return builder.build(dictionary.toArray());
+      }
+      List<ReSharperIssue> issues = issuesByProject.get(projectName);
+      Integer claimed = claims.get(projectName);
+      int count = claimed == null ? 1 : (claimed + 1);
+      if (count >= readers) {
+        issuesByProject.remove(projectName);
+        claims.remove(projectName);
+        released.add(projectName);
+      } else {
+        claims.put(projectName, count);
+      }
+      return issues;
+    }
+
+  }
+
+  static class ReportKey {
+
+    private final String canonicalPath;
+    private final long size;
+    private final long lastModified;
+
+    ReportKey(String canonicalPath, long size, long lastModified) {
+      this.canonicalPath = canonicalPath;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+
+    static ReportKey of(File file) {
+      String canonicalPath;
+      try {
+        canonicalPath = file.getCanonicalPath();
+      } catch (IOException e) {
+        canonicalPath = file.getAbsolutePath();
+      }
+      return new ReportKey(canonicalPath, file.length(), file.lastModified());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ReportKey)) {
+        return false;
+      }
+      ReportKey other = (ReportKey) o;
+      return canonicalPath.equals(other.canonicalPath) && size == other.size && lastModified == other.lastModified;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(canonicalPath, size, lastModified);
+    }
+
+  }
+
+}
@@ -0,0 +1,319 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+
+import javax.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of the issues of a report, which is read several times faster than the XML report.
+ * <p>
+ * All the integers are unsigned variable-length integers, 7 bits per byte, least significant group first.
+ * <ul>
+ *   <li>the magic number, as four bytes, and the format version</li>
+ *   <li>the dictionary: the number of strings, then each string as its UTF-8 length and bytes.
+ *   The TypeIds, file paths, messages and project names are all references to this dictionary</li>
+ *   <li>the project index: the number of projects, then for each of them its name, number of issues, and the offset
+ *   and length in bytes of its section, relative to the end of the index</li>
+ *   <li>the section of each project, with its issues in report order: the difference of the report line with the previous issue,
+ *   the TypeId, the file path plus one (zero without file), the line plus one (zero without line) and the message</li>
+ * </ul>
+ */
+public class ReSharperReportCodec {
+
+  private static final byte[] MAGIC = {'R', 'S', 'R', 'B'};
+  static final int FORMAT_VERSION = 2;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private ReSharperReportCodec() {
+  }
+
+  public static void write(Map<String, List<ReSharperIssue>> issuesByProject, OutputStream out) throws IOException {
+    ReSharperStringDictionary dictionary = new ReSharperStringDictionary();
+    List<byte[]> sections = Lists.newArrayList();
+    for (Map.Entry<String, List<ReSharperIssue>> entry : issuesByProject.entrySet()) {
+      dictionary.id(entry.getKey());
+      ByteArrayOutputStream section = new ByteArrayOutputStream();
+      int previousReportLine = 0;
+      for (ReSharperIssue issue : entry.getValue()) {
+        writeVarint(section, zigZag(issue.reportLine() - previousReportLine));
+        previousReportLine = issue.reportLine();
+        writeVarint(section, dictionary.id(issue.ruleKey()));
+        writeVarint(section, issue.filePath() == null ? 0 : dictionary.id(issue.filePath()) + 1);
+        writeVarint(section, issue.line() == null ? 0 : issue.line() + 1);
+        writeVarint(section, dictionary.id(issue.message()));
+      }
+      sections.add(section.toByteArray());
+    }
+
+    out.write(MAGIC);
+    writeVarint(out, FORMAT_VERSION);
+
+    String[] strings = dictionary.toArray();
+    writeVarint(out, strings.length);
+    for (String string : strings) {
+      byte[] bytes = string.getBytes(Charsets.UTF_8);
+      writeVarint(out, bytes.length);
+      out.write(bytes);
+    }
+
+    writeVarint(out, issuesByProject.size());
+    int offset = 0;
+    int i = 0;
+    for (Map.Entry<String, List<ReSharperIssue>> entry : issuesByProject.entrySet()) {
+      byte[] section = sections.get(i);
+      writeVarint(out, dictionary.id(entry.getKey()));
+      writeVarint(out, entry.getValue().size());
+      writeVarint(out, offset);
+      writeVarint(out, section.length);
+      offset += section.length;
+      i++;
+    }
+
+    for (byte[] section : sections) {
+      out.write(section);
+    }
+    out.flush();
+  }
+
+  /**
+   * @return whether the file starts with the magic number of this format
+   */
+  public static boolean isBinaryReport(File file) {
+    if (!file.isFile() || file.length() < MAGIC.length) {
+      return false;
+    }
+    InputStream in = null;
+    try {
+      in = new FileInputStream(file);
+      byte[] magic = new byte[MAGIC.length];
+      new DataInputStream(in).readFully(magic);
+      return Arrays.equals(magic, MAGIC);
+    } catch (IOException e) {
+      return false;
+    } finally {
+      Closeables.closeQuietly(in);
+    }
+  }
+
+  /**
+   * The strings repeated all over the report are shared between the issues, as when the report is parsed.
+   *
+   * @return the issues of each project, by project name, in report order
+   */
+  public static Map<String, List<ReSharperIssue>> read(InputStream in) throws IOException {
+    return read(in, ReSharperIssueFilter.ACCEPT_ALL);
+  }
+
+  /**
+   * @return the issues accepted by the filter, see {@link #read(InputStream)}
+   */
+  public static Map<String, List<ReSharperIssue>> read(InputStream in, ReSharperIssueFilter filter) throws IOException {
+    ReSharperProjectIssuesBuilder builder = new ReSharperProjectIssuesBuilder();
+    read(in, null, filter, builder);
+    return builder.build();
+  }
+
+  /**
+   * Streams the issues of the given project to the handler, in report order. The sections of the other projects are skipped, not decoded.
+   */
+  public static void read(InputStream in, String projectName, ReSharperIssueHandler handler) throws IOException {
+    read(in, projectName, ReSharperIssueFilter.ACCEPT_ALL, handler);
+  }
+
+  public static void read(InputStream in, String projectName, ReSharperIssueFilter filter, final ReSharperIssueHandler handler) throws IOException {
+    read(in, projectName, filter, new ReSharperProjectIssueHandler() {
+      @Override
+      public void handle(String projectName, ReSharperIssue issue) {
+        handler.handle(issue);
+      }
+    });
+  }
+
+  public static Map<String, List<ReSharperIssue>> read(File file) {
+    return read(file, ReSharperIssueFilter.ACCEPT_ALL);
+  }
+
+  public static Map<String, List<ReSharperIssue>> read(File file, ReSharperIssueFilter filter) {
+    InputStream in = null;
+    try {
+      in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+      return read(in, filter);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read the binary ReSharper report " + file.getAbsolutePath(), e);
+    } finally {
+      Closeables.closeQuietly(in);
+    }
+  }
+
+  public static void read(File file, String projectName, ReSharperIssueHandler handler) {
+    read(file, projectName, ReSharperIssueFilter.ACCEPT_ALL, handler);
+  }
+
+  public static void read(File file, String projectName, ReSharperIssueFilter filter, ReSharperIssueHandler handler) {
+    InputStream in = null;
+    try {
+      in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+      read(in, projectName, filter, handler);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read the binary ReSharper report " + file.getAbsolutePath(), e);
+    } finally {
+      Closeables.closeQuietly(in);
+    }
+  }
+
+  /**
+   * @param projectName the only project to read, or null to read all of them
+   */
+  private static void read(InputStream in, @Nullable String projectName, ReSharperIssueFilter filter, ReSharperProjectIssueHandler handler)
+    throws IOException {
+    byte[] magic = new byte[MAGIC.length];
+    new DataInputStream(in).readFully(magic);
+    if (!Arrays.equals(magic, MAGIC)) {
+      throw new IOException("Not a binary ReSharper report");
+    }
+    int version = readVarint(in);
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unsupported binary ReSharper report format version: " + version);
+    }
+
+    String[] strings = new String[readVarint(in)];
+    byte[] buffer = new byte[256];
+    DataInputStream data = new DataInputStream(in);
+    for (int i = 0; i < strings.length; i++) {
+      int length = readVarint(in);
+      if (buffer.length < length) {
+        buffer = new byte[Math.max(length, 2 * buffer.length)];
+      }
+      data.readFully(buffer, 0, length);
+      strings[i] = new String(buffer, 0, length, Charsets.UTF_8);
+    }
+
+    int projects = readVarint(in);
+    String[] names = new String[projects];
+    int[] issueCounts = new int[projects];
+    int[] offsets = new int[projects];
+    int[] lengths = new int[projects];
+    for (int i = 0; i < projects; i++) {
+      names[i] = string(strings, readVarint(in));
+      issueCounts[i] = readVarint(in);
+      offsets[i] = readVarint(in);
+      lengths[i] = readVarint(in);
+    }
+
+    long position = 0;
+    for (int i = 0; i < projects; i++) {
+      if (projectName != null && !projectName.equals(names[i])) {
+        continue;
+      }
+      skipFully(in, offsets[i] - position);
+      readSection(in, names[i], issueCounts[i], strings, filter, handler);
+      position = (long) offsets[i] + lengths[i];
+    }
+  }
+
+  private static void readSection(InputStream in, String projectName, int issueCount, String[] strings, ReSharperIssueFilter filter,
+    ReSharperProjectIssueHandler handler) throws IOException {
+    int reportLine = 0;
+    for (int i = 0; i < issueCount; i++) {
+      reportLine += unZigZag(readVarint(in));
+      String ruleKey = string(strings, readVarint(in));
+      int file = readVarint(in);
+      String filePath = file == 0 ? null : string(strings, file - 1);
+      int line = readVarint(in);
+      String message = string(strings, readVarint(in));
+      if (filter.accepts(ruleKey, filePath)) {
+        handler.handle(projectName, new ReSharperIssue(reportLine, ruleKey, filePath, line == 0 ? null : (line - 1), message));
+      }
+    }
+  }
+
+  private static String string(String[] strings, int index) throws IOException {
+    if (index < 0 || index >= strings.length) {
+      throw new IOException("Invalid string reference " + index + " in the binary ReSharper report");
+    }
+    return strings[index];
+  }
+
+  private static void skipFully(InputStream in, long count) throws IOException {
+    long remaining = count;
+    while (remaining > 0) {
+      long skipped = in.skip(remaining);
+      if (skipped <= 0) {
+        if (in.read() == -1) {
+          throw new EOFException();
+        }
+        skipped = 1;
+      }
+      remaining -= skipped;
+    }
+  }
+
+  static void writeVarint(OutputStream out, int value) throws IOException {
+    int remaining = value;
+    while ((remaining & ~0x7F) != 0) {
+      out.write((remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    out.write(remaining);
+  }
+
+  static int readVarint(InputStream in) throws IOException {
+    int result = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.read();
+      if (b == -1) {
+        throw new EOFException();
+      }
+      result |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0 && result >= 0) {
+        return result;
+      } else if ((b & 0x80) == 0) {
+        break;
+      }
+    }
+    throw new IOException("Malformed variable-length integer in the binary ReSharper report");
+  }
+
+  private static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int unZigZag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Throwables;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts an inspectcode XML report to the binary form read by {@link ReSharperReportParser}, on the build agent for instance.
+ * Guava and the SLF4J API, which SonarQube provides to the plugin, must be on the classpath next to the plugin:
+ * <pre>java -cp sonar-resharper-plugin.jar:guava-10.0.1.jar:slf4j-api-1.7.5.jar org.sonar.plugins.resharper.ReSharperReportConverter report.xml report.bin</pre>
+ */
+public class ReSharperReportConverter {
+
+  private ReSharperReportConverter() {
+  }
+
+  /**
+   * @return the number of issues converted
+   */
+  public static int convert(File xmlReport, File binaryReport) {
+    Map<String, List<ReSharperIssue>> issuesByProject = new ReSharperReportParser().parseProjects(xmlReport);
+
+    OutputStream out = null;
+    try {
+      Files.createParentDirs(binaryReport);
+      out = new BufferedOutputStream(new FileOutputStream(binaryReport), 64 * 1024);
+      ReSharperReportCodec.write(issuesByProject, out);
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    } finally {
+      Closeables.closeQuietly(out);
+    }
+
+    int issues = 0;
+    for (List<ReSharperIssue> projectIssues : issuesByProject.values()) {
+      issues += projectIssues.size();
+    }
+    return issues;
+  }
+
+  public static void main(String[] args) {
+    if (args.length != 2) {
+      System.err.println("Usage: ReSharperReportConverter <inspectcode XML report> <binary report>");
+      System.exit(1);
+    }
+    File xmlReport = new File(args[0]);
+    File binaryReport = new File(args[1]);
+    int issues = convert(xmlReport, binaryReport);
+    System.out.println("Converted " + issues + " issues: " + xmlReport.length() + " bytes -> " + binaryReport.length() + " bytes");
+  }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.config.Settings;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the parsed reports on disk, across analyses, keyed by the SHA-256 of the report, the version of the parser and the format version of the codec.
+ * The least recently used entries are evicted once the directory exceeds its maximum size.
+ */
+public class ReSharperReportDiskCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReSharperReportDiskCache.class);
+  private static final String EXTENSION = ".bin";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final File directory;
+  private final long maxSize;
+
+  public ReSharperReportDiskCache(File directory, long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @return the cache configured by the given settings, or null if it is disabled
+   */
+  @CheckForNull
+  public static ReSharperReportDiskCache create(Settings settings) {
+    String directory = settings.getString(ReSharperPlugin.REPORT_CACHE_DIRECTORY_PROPERTY_KEY);
+    if (directory == null || directory.isEmpty()) {
+      return null;
+    }
+    long maxSizeMb = settings.getLong(ReSharperPlugin.REPORT_CACHE_MAX_SIZE_PROPERTY_KEY);
+    return new ReSharperReportDiskCache(new File(directory), maxSizeMb * 1024 * 1024);
+  }
+
+  public File directory() {
+    return directory;
+  }
+
+  /**
+   * @return the key of the report, which changes with its content, with the version of the parser and with the format of the cached entries
+   */
+  public static String key(File reportFile) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw Throwables.propagate(e);
+    }
+
+    InputStream in = null;
+    try {
+      in = new FileInputStream(reportFile);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read the ReSharper report " + reportFile.getAbsolutePath(), e);
+    } finally {
+      Closeables.closeQuietly(in);
+    }
+
+    return hex(digest.digest()) + "-v" + ReSharperReportParser.VERSION + "." + ReSharperReportCodec.FORMAT_VERSION;
+  }
+
+  /**
+   * @return the key of the report once filtered, see {@link ReSharperIssueFilter#cacheKey()}
+   */
+  public static String key(File reportFile, ReSharperIssueFilter filter) {
+    String key = key(reportFile);
+    return filter.acceptsAll() ? key : (key + "-" + filter.cacheKey());
+  }
+
+  /**
+   * @return the first 16 hexadecimal digits of the SHA-256 digest of the given value, to tell apart values whose names are alike
+   */
+  static String shortDigest(String value) {
+    try {
+      return hex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(Charsets.UTF_8))).substring(0, 16);
+    } catch (NoSuchAlgorithmException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  static String hex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder();
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return the cached issues of the report with the given key, or null if they are not cached or cannot be read
+   */
+  @CheckForNull
+  public Map<String, List<ReSharperIssue>> load(String key) {
+    File file = file(key);
+    if (!file.isFile()) {
+      return null;
+    }
+
+    InputStream in = null;
+    try {
+      in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+      Map<String, List<ReSharperIssue>> result = ReSharperReportCodec.read(in);
+      touch(file);
+      LOG.debug("Loaded the parsed ReSharper report from the cache: " + file.getAbsolutePath());
+      return result;
+    } catch (IOException e) {
+      LOG.warn("Unable to read the cached ReSharper report " + file.getAbsolutePath() + ", it will be parsed again", e);
+      closeAndDelete(in, file);
+      in = null;
+      return null;
+    } finally {
+      Closeables.closeQuietly(in);
+    }
+  }
+
+  /**
+   * Streams the cached issues of the given project to the handler, in report order, without decoding the sections of the other projects.
+   *
+   * @return whether the report with the given key is cached and could be read, in which case all the issues of the project were handled
+   */
+  public boolean load(String key, String projectName, final ReSharperIssueHandler handler) {
+    File file = file(key);
+    if (!file.isFile()) {
+      return false;
+    }
+
+    final int[] handled = {0};
+    InputStream in = null;
+    try {
+      in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+      ReSharperReportCodec.read(in, projectName, new ReSharperIssueHandler() {
+        @Override
+        public void handle(ReSharperIssue issue) {
+          handled[0]++;
+          handler.handle(issue);
+        }
+      });
+      touch(file);
+      LOG.debug("Loaded the issues of the project " + projectName + " from the cached ReSharper report: " + file.getAbsolutePath());
+      return true;
+    } catch (IOException e) {
+      closeAndDelete(in, file);
+      in = null;
+      if (handled[0] > 0) {
+        // The issues already handled cannot be taken back
+        throw new IllegalStateException("Unable to read the cached ReSharper report " + file.getAbsolutePath(), e);
+      }
+      LOG.warn("Unable to read the cached ReSharper report " + file.getAbsolutePath() + ", it will be parsed again", e);
+      return false;
+    } finally {
+      Closeables.closeQuietly(in);
+    }
+  }
+
+  /**
+   * Stores the issues of the report with the given key, then evicts the least recently used entries beyond the maximum size.
+   * A failure to write the cache only loses its benefit: it is logged, never thrown.
+   */
+  public void store(String key, Map<String, List<ReSharperIssue>> issuesByProject) {
+    File file = file(key);
+    File tmp = null;
+    OutputStream out = null;
+    try {
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        throw new IOException("Unable to create the directory " + directory.getAbsolutePath());
+      }
+      tmp = File.createTempFile("tmp-" + key, ".tmp", directory);
+      out = new BufferedOutputStream(new FileOutputStream(tmp), BUFFER_SIZE);
+      ReSharperReportCodec.write(issuesByProject, out);
+      out.close();
+      out = null;
+      if (!tmp.renameTo(file) && !file.isFile()) {
+        throw new IOException("Unable to rename " + tmp.getAbsolutePath() + " to " + file.getAbsolutePath());
+      }
+    } catch (IOException e) {
+      LOG.warn("Unable to cache the parsed ReSharper report in " + directory.getAbsolutePath(), e);
+    } finally {
+      closeAndDelete(out, tmp);
+    }
+    evict();
+  }
+
+  void evict() {
+    File[] files = directory.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return file.isFile() && file.getName().endsWith(EXTENSION);
+      }
+    });
+    if (files == null) {
+      return;
+    }
+
+    List<File> mostRecentlyUsedFirst = Lists.newArrayList(files);
+    Collections.sort(mostRecentlyUsedFirst, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        long aLastModified = a.lastModified();
+        long bLastModified = b.lastModified();
+        return aLastModified > bLastModified ? -1 : (aLastModified == bLastModified ? 0 : 1);
+      }
+    });
+
+    long size = 0;
+    for (File file : mostRecentlyUsedFirst) {
+      size += file.length();
+      if (size > maxSize) {
+        LOG.debug("Evicting the cached ReSharper report " + file.getAbsolutePath());
+        if (!file.delete()) {
+          LOG.warn("Unable to delete the cached ReSharper report " + file.getAbsolutePath());
+        }
+      }
+    }
+  }
+
+  File file(String key) {
+    return new File(directory, key + EXTENSION);
+  }
+
+  private static void touch(File file) {
+    if (!file.setLastModified(System.currentTimeMillis())) {
+      LOG.debug("Unable to update the last modification time of " + file.getAbsolutePath());
+    }
+  }
+
+  private static void closeAndDelete(@Nullable Closeable closeable, @Nullable File file) {
+    Closeables.closeQuietly(closeable);
+    if (file != null && file.exists() && !file.delete()) {
+      LOG.debug("Unable to delete " + file.getAbsolutePath());
+    }
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads several reports concurrently, on a bounded pool of threads, and hands them over to a single handler
+ * on the calling thread, in the order of the reports.
+ * The handler can thus use the SonarQube issue API, which is not thread-safe.
+ */
+public class ReSharperReportLoader {
+
+  private final int threads;
+
+  public ReSharperReportLoader(int threads) {
+    this.threads = threads;
+  }
+
+  public interface ReportHandler<T> {
+
+    void handle(T report);
+
+  }
+
+  public <T> void load(List<File> reportFiles, final Function<File, T> loader, ReportHandler<T> handler) {
+    int poolSize = Math.min(Math.max(1, threads), reportFiles.size());
+    if (poolSize <= 1) {
+      for (File reportFile : reportFiles) {
+        handler.handle(loader.apply(reportFile));
+      }
+      return;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(poolSize, new ThreadFactoryBuilder()
+      .setNameFormat("resharper-report-loader-%d")
+      .setDaemon(true)
+      .build());
+    try {
+      List<Future<T>> futures = Lists.newArrayList();
+      for (final File reportFile : reportFiles) {
+        futures.add(executor.submit(new Callable<T>() {
+          @Override
+          public T call() {
+            return loader.apply(reportFile);
+          }
+        }));
+      }
+      for (Future<T> future : futures) {
+        handler.handle(get(future));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static <T> T get(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Throwables.propagate(e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+}
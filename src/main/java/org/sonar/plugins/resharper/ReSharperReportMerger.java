@@ -0,0 +1,398 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+import javax.annotation.Nullable;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges the report of an inspectcode execution limited to some files into the report of a previous execution over the whole project,
+ * so that the result is the report of the whole project.
+ * <p>
+ * The files inspected again are the given ones, which may have no issue anymore or have been deleted, and the ones of the partial report.
+ * All their issues are taken from the partial report, and the issues of the other files from the previous report, as well as the issues
+ * without file, which are not related to a SonarQube file anyway. The issue types of both reports are kept.
+ * <p>
+ * It also concatenates the reports of executions on distinct projects, see {@link #concatenate(List, File)}.
+ */
+public class ReSharperReportMerger {
+
+  private static final QName ID = new QName("Id");
+  private static final QName NAME = new QName("Name");
+  private static final QName FILE = new QName("File");
+
+  private ReSharperReportMerger() {
+  }
+
+  /**
+   * @param inspectedAgain whether the file of the given report path was inspected again
+   * @param mergedReport the merged report, which may be the partial report itself
+   */
+  public static void merge(File previousReport, File partialReport, Predicate<String> inspectedAgain, File mergedReport) {
+    Partial partial = readPartial(partialReport);
+    File tmp = new File(mergedReport.getAbsolutePath() + ".tmp");
+    Reader reader = null;
+    OutputStream out = null;
+    try {
+      reader = new InputStreamReader(new FileInputStream(previousReport), Charsets.UTF_8);
+      out = new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024);
+      XMLEventReader events = XMLInputFactory.newInstance().createXMLEventReader(reader);
+      XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, Charsets.UTF_8.name());
+      new Merger(events, writer, partial, inspectedAgain).merge();
+      writer.close();
+      events.close();
+      out.close();
+      out = null;
+      Files.move(tmp, mergedReport);
+    } catch (IOException | XMLStreamException e) {
+      throw new IllegalStateException("Unable to merge the ReSharper report " + partialReport.getAbsolutePath()
+        + " into the previous report " + previousReport.getAbsolutePath(), e);
+    } finally {
+      Closeables.closeQuietly(reader);
+      Closeables.closeQuietly(out);
+      if (tmp.exists() && !tmp.delete()) {
+        tmp.deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * Concatenates the reports of inspectcode executions on distinct projects of the same solution, such as the ones of a sharded inspection.
+   * The concatenated report has the information of the first report, the issue types of all of them, and the projects of each of them in turn.
+   */
+  public static void concatenate(List<File> reports, File concatenatedReport) {
+    if (reports.isEmpty()) {
+      throw new IllegalArgumentException("No ReSharper report to concatenate");
+    }
+    Header header = new Header();
+    for (File report : reports) {
+      readHeader(report, header);
+    }
+
+    XMLEventFactory factory = XMLEventFactory.newInstance();
+    File tmp = new File(concatenatedReport.getAbsolutePath() + ".tmp");
+    OutputStream out = null;
+    try {
+      out = new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024);
+      XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, Charsets.UTF_8.name());
+      writer.add(factory.createStartDocument(Charsets.UTF_8.name(), "1.0"));
+      writer.add(header.report != null ? header.report : factory.createStartElement("", "", "Report"));
+      for (XMLEvent event : header.information) {
+        writer.add(event);
+      }
+      writer.add(factory.createStartElement("", "", "IssueTypes"));
+      for (StartElement issueType : header.issueTypes.values()) {
+        writer.add(issueType);
+        writer.add(factory.createEndElement(issueType.getName(), null));
+      }
+      writer.add(factory.createEndElement("", "", "IssueTypes"));
+      writer.add(factory.createStartElement("", "", "Issues"));
+      for (File report : reports) {
+        copyIssues(report, writer);
+      }
+      writer.add(factory.createEndElement("", "", "Issues"));
+      writer.add(factory.createEndElement("", "", "Report"));
+      writer.add(factory.createEndDocument());
+      writer.close();
+      out.close();
+      out = null;
+      Files.move(tmp, concatenatedReport);
+    } catch (IOException | XMLStreamException e) {
+      throw new IllegalStateException("Unable to concatenate the ReSharper reports into " + concatenatedReport.getAbsolutePath(), e);
+    } finally {
+      Closeables.closeQuietly(out);
+      if (tmp.exists() && !tmp.delete()) {
+        tmp.deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * Reads the report up to its issues: its root element and information if they are not known yet, and its issue types.
+   */
+  private static void readHeader(File report, Header header) {
+    InputStream in = null;
+    try {
+      in = new FileInputStream(report);
+      XMLEventReader events = XMLInputFactory.newInstance().createXMLEventReader(new InputStreamReader(in, Charsets.UTF_8));
+      boolean first = header.report == null;
+      boolean inInformation = false;
+      while (events.hasNext()) {
+        XMLEvent event = events.nextEvent();
+        if (event.isStartElement()) {
+          StartElement element = event.asStartElement();
+          String tagName = element.getName().getLocalPart();
+          if ("Report".equals(tagName) && first) {
+            header.report = element;
+          } else if ("Information".equals(tagName)) {
+            inInformation = first;
+          } else if ("IssueType".equals(tagName) && !header.issueTypes.containsKey(attribute(element, ID))) {
+            header.issueTypes.put(attribute(element, ID), element);
+          } else if ("Issues".equals(tagName)) {
+            break;
+          }
+        }
+        if (inInformation) {
+          header.information.add(event);
+          inInformation = !(event.isEndElement() && "Information".equals(event.asEndElement().getName().getLocalPart()));
+        }
+      }
+      events.close();
+    } catch (IOException | XMLStreamException e) {
+      throw new IllegalStateException("Unable to read the ReSharper report " + report.getAbsolutePath(), e);
+    } finally {
+      Closeables.closeQuietly(in);
+    }
+  }
+
+  /**
+   * Copies the content of the Issues element of the report.
+   */
+  private static void copyIssues(File report, XMLEventWriter writer) {
+    InputStream in = null;
+    try {
+      in = new FileInputStream(report);
+      XMLEventReader events = XMLInputFactory.newInstance().createXMLEventReader(new InputStreamReader(in, Charsets.UTF_8));
+      int depth = 0;
+      while (events.hasNext()) {
+        XMLEvent event = events.nextEvent();
+        if (depth == 0) {
+          if (event.isStartElement() && "Issues".equals(event.asStartElement().getName().getLocalPart())) {
+            depth = 1;
+          }
+          continue;
+        }
+        if (event.isStartElement()) {
+          depth++;
+        } else if (event.isEndElement() && --depth == 0) {
+          break;
+        }
+        writer.add(event);
+      }
+      events.close();
+    } catch (IOException | XMLStreamException e) {
+      throw new IllegalStateException("Unable to read the ReSharper report " + report.getAbsolutePath(), e);
+    } finally {
+      Closeables.closeQuietly(in);
+    }
+  }
+
+  private static Partial readPartial(File partialReport) {
+    Partial partial = new Partial();
+    InputStream in = null;
+    try {
+      in = new FileInputStream(partialReport);
+      XMLEventReader events = XMLInputFactory.newInstance().createXMLEventReader(new InputStreamReader(in, Charsets.UTF_8));
+      String projectName = null;
+      while (events.hasNext()) {
+        XMLEvent event = events.nextEvent();
+        if (!event.isStartElement()) {
+          continue;
+        }
+        StartElement element = event.asStartElement();
+        String tagName = element.getName().getLocalPart();
+        if ("IssueType".equals(tagName)) {
+          partial.issueTypes.put(attribute(element, ID), element);
+        } else if ("Project".equals(tagName)) {
+          projectName = attribute(element, NAME);
+        } else if ("Issue".equals(tagName) && projectName != null) {
+          String filePath = attribute(element, FILE);
+          if (filePath != null) {
+            partial.filePaths.add(filePath);
+            partial.issues(projectName).add(element);
+          }
+        }
+      }
+      events.close();
+    } catch (IOException | XMLStreamException e) {
+      throw Throwables.propagate(e);
+    } finally {
+      Closeables.closeQuietly(in);
+    }
+    return partial;
+  }
+
+  @Nullable
+  private static String attribute(StartElement element, QName name) {
+    Attribute attribute = element.getAttributeByName(name);
+    return attribute == null ? null : attribute.getValue();
+  }
+
+  private static class Header {
+
+    private StartElement report;
+    private final List<XMLEvent> information = Lists.newArrayList();
+    private final Map<String, StartElement> issueTypes = Maps.newLinkedHashMap();
+
+  }
+
+  private static class Partial {
+
+    private final Map<String, StartElement> issueTypes = Maps.newLinkedHashMap();
+    private final Map<String, List<StartElement>> issuesByProject = Maps.newLinkedHashMap();
+    private final Set<String> filePaths = Sets.newHashSet();
+
+    private List<StartElement> issues(String projectName) {
+      List<StartElement> issues = issuesByProject.get(projectName);
+      if (issues == null) {
+        issues = Lists.newArrayList();
+        issuesByProject.put(projectName, issues);
+      }
+      return issues;
+    }
+
+  }
+
+  /**
+   * Copies the events of the previous report, except for the issues of the files inspected again,
+   * and adds the missing issue types and the issues of the partial report at the end of their parent element.
+   */
+  private static class Merger {
+
+    private final XMLEventFactory factory = XMLEventFactory.newInstance();
+    private final XMLEventReader events;
+    private final XMLEventWriter writer;
+    private final Partial partial;
+    private final Predicate<String> inspectedAgain;
+    private final Set<String> issueTypeIds = Sets.newHashSet();
+    private String projectName;
+
+    Merger(XMLEventReader events, XMLEventWriter writer, Partial partial, Predicate<String> inspectedAgain) {
+      this.events = events;
+      this.writer = writer;
+      this.partial = partial;
+      this.inspectedAgain = inspectedAgain;
+    }
+
+    void merge() throws XMLStreamException {
+      while (events.hasNext()) {
+        XMLEvent event = events.nextEvent();
+        if (event.isStartElement()) {
+          if (!startElement(event.asStartElement())) {
+            skipElement();
+            continue;
+          }
+        } else if (event.isEndElement()) {
+          endElement(event.asEndElement().getName().getLocalPart());
+        }
+        writer.add(event);
+      }
+    }
+
+    /**
+     * @return whether the element is kept
+     */
+    private boolean startElement(StartElement element) {
+      String tagName = element.getName().getLocalPart();
+      if ("IssueType".equals(tagName)) {
+        issueTypeIds.add(attribute(element, ID));
+      } else if ("Project".equals(tagName)) {
+        projectName = attribute(element, NAME);
+      } else if ("Issue".equals(tagName)) {
+        String filePath = attribute(element, FILE);
+        return filePath == null || !(partial.filePaths.contains(filePath) || inspectedAgain.apply(filePath));
+      }
+      return true;
+    }
+
+    private void endElement(String tagName) throws XMLStreamException {
+      if ("IssueTypes".equals(tagName)) {
+        for (Map.Entry<String, StartElement> issueType : partial.issueTypes.entrySet()) {
+          if (!issueTypeIds.contains(issueType.getKey())) {
+            writeEmptyElement(issueType.getValue());
+          }
+        }
+      } else if ("Project".equals(tagName)) {
+        writeIssues(projectName);
+        projectName = null;
+      } else if ("Issues".equals(tagName)) {
+        // The projects which are not in the previous report
+        for (String name : ImmutableList.copyOf(partial.issuesByProject.keySet())) {
+          writer.add(factory.createStartElement("", "", "Project", ImmutableList.of(factory.createAttribute("Name", name)).iterator(), null));
+          writeIssues(name);
+          writer.add(factory.createEndElement("", "", "Project"));
+        }
+      }
+    }
+
+    /**
+     * Writes the issues of the partial report for the project, once: the elements repeating its name get none.
+     */
+    private void writeIssues(@Nullable String name) throws XMLStreamException {
+      List<StartElement> issues = name == null ? null : partial.issuesByProject.remove(name);
+      if (issues != null) {
+        for (StartElement issue : issues) {
+          writeEmptyElement(issue);
+        }
+      }
+    }
+
+    private void writeEmptyElement(StartElement element) throws XMLStreamException {
+      writer.add(element);
+      writer.add(factory.createEndElement(element.getName(), null));
+    }
+
+    private void skipElement() throws XMLStreamException {
+      int depth = 1;
+      while (depth > 0 && events.hasNext()) {
+        XMLEvent event = events.nextEvent();
+        if (event.isStartElement()) {
+          depth++;
+        } else if (event.isEndElement()) {
+          depth--;
+        }
+      }
+    }
+
+  }
+
+}
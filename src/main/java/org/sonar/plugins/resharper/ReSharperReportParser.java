@@ -22,6 +22,8 @@ package org.sonar.plugins.resharper;
 import com.google.common.base.Charsets;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.io.Closeables;
 
 import javax.annotation.Nullable;
@@ -38,20 +40,190 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.List;
+import java.util.Map;
 
 public class ReSharperReportParser {
 
+  private static final Logger LOG = LoggerFactory.getLogger(ReSharperReportParser.class);
+
+  /**
+   * To be incremented whenever the issues read from a report change, so that the reports cached on disk are parsed again.
+   */
+  public static final int VERSION = 1;
+
+  private final ReSharperReportDiskCache diskCache;
+  private final boolean scanner;
+
+  public ReSharperReportParser() {
+    this(null, true);
+  }
+
+  /**
+   * @param diskCache where {@link #parseProjects(File)} loads and stores its results, or null to always parse the reports
+   * @param scanner whether to read the reports with {@link ReSharperReportScanner} first, falling back to the XML parser
+   * only when the scanner does not understand them
+   */
+  public ReSharperReportParser(@Nullable ReSharperReportDiskCache diskCache, boolean scanner) {
+    this.diskCache = diskCache;
+    this.scanner = scanner;
+  }
+
   public List<ReSharperIssue> parse(File file, String projectName) {
-    return new Parser().parse(file, projectName);
+    final ImmutableList.Builder<ReSharperIssue> builder = ImmutableList.builder();
+    parse(file, projectName, new ReSharperIssueHandler() {
+      @Override
+      public void handle(ReSharperIssue issue) {
+        builder.add(issue);
+      }
+    });
+    return builder.build();
+  }
+
+  /**
+   * Streams the issues of the given project to the handler, in report order, without keeping them in memory.
+   */
+  public void parse(File file, String projectName, ReSharperIssueHandler handler) {
+    parse(file, projectName, ReSharperIssueFilter.ACCEPT_ALL, handler);
+  }
+
+  /**
+   * Streams the issues of the given project accepted by the filter to the handler, in report order.
+   * The filter is applied as soon as the TypeId and File attributes of an issue are read, the rest of the rejected issues is not decoded.
+   * When a disk cache is configured, see {@link #parseProjects(File, ReSharperIssueFilter)}, the issues are read from it instead.
+   */
+  public void parse(File file, String projectName, ReSharperIssueFilter filter, final ReSharperIssueHandler handler) {
+    if (ReSharperReportCodec.isBinaryReport(file)) {
+      ReSharperReportCodec.read(file, projectName, filter, handler);
+      return;
+    } else if (diskCache != null && !filter.hasFilePredicate()) {
+      parseCached(file, projectName, filter, handler);
+      return;
+    }
+
+    final int[] handled = {0};
+    if (scanner && scan(file, projectName, false, filter, new ReSharperProjectIssueHandler() {
+      @Override
+      public void handle(String projectName, ReSharperIssue issue) {
+        handled[0]++;
+        handler.handle(issue);
+      }
+    })) {
+      return;
+    }
+
+    // The issues already handled when the scanner gave up are the first ones the XML parser reads
+    new Parser(new ReSharperProjectIssueHandler() {
+      private int skipped;
+
+      @Override
+      public void handle(String projectName, ReSharperIssue issue) {
+        if (skipped < handled[0]) {
+          skipped++;
+        } else {
+          handler.handle(issue);
+        }
+      }
+    }, false, filter).parse(file, projectName);
+  }
+
+  /**
+   * Only the section of the project is decoded from the disk cache. A report which is not cached yet is parsed entirely once,
+   * to be cached for the next analyses.
+   */
+  private void parseCached(File file, String projectName, ReSharperIssueFilter filter, ReSharperIssueHandler handler) {
+    String key = ReSharperReportDiskCache.key(file, filter);
+    if (diskCache.load(key, projectName, handler)) {
+      return;
+    }
+
+    Map<String, List<ReSharperIssue>> issuesByProject = parseAllProjects(file, filter);
+    diskCache.store(key, issuesByProject);
+    List<ReSharperIssue> issues = issuesByProject.get(projectName);
+    if (issues != null) {
+      for (ReSharperIssue issue : issues) {
+        handler.handle(issue);
+      }
+    }
+  }
+
+  private static boolean scan(File file, @Nullable String projectName, boolean intern, ReSharperIssueFilter filter, ReSharperProjectIssueHandler handler) {
+    try {
+      if (ReSharperReportScanner.scan(file, projectName, intern, filter, handler)) {
+        return true;
+      }
+    } catch (IOException e) {
+      LOG.debug("Unable to scan the ReSharper report " + file.getAbsolutePath(), e);
+    }
+    LOG.debug("Falling back to the XML parser to read the ReSharper report " + file.getAbsolutePath());
+    return false;
+  }
+
+  /**
+   * Reads the issues of every project of the report in a single pass.
+   * Several elements with the same project name are merged, and the TypeIds, file paths, lines and messages
+   * repeated all over the report are shared between the issues, to keep the buckets compact.
+   * When a disk cache is configured, a report already parsed by a previous analysis is loaded from it instead.
+   * Binary reports, see {@link ReSharperReportCodec}, are read as well.
+   *
+   * @return the issues of each project, by project name, in report order
+   */
+  public Map<String, List<ReSharperIssue>> parseProjects(File file) {
+    return parseProjects(file, ReSharperIssueFilter.ACCEPT_ALL);
+  }
+
+  /**
+   * @param filter applied as in {@link #parse(File, String, ReSharperIssueFilter, ReSharperIssueHandler)}; the disk cache keeps
+   * the issues filtered by distinct TypeIds apart, but is bypassed by a filter on files
+   * @return the issues accepted by the filter, see {@link #parseProjects(File)}
+   */
+  public Map<String, List<ReSharperIssue>> parseProjects(File file, ReSharperIssueFilter filter) {
+    if (ReSharperReportCodec.isBinaryReport(file)) {
+      return ReSharperReportCodec.read(file, filter);
+    } else if (diskCache == null || filter.hasFilePredicate()) {
+      return parseAllProjects(file, filter);
+    }
+
+    String key = ReSharperReportDiskCache.key(file, filter);
+    Map<String, List<ReSharperIssue>> result = diskCache.load(key);
+    if (result == null) {
+      result = parseAllProjects(file, filter);
+      diskCache.store(key, result);
+    }
+    return result;
+  }
+
+  private Map<String, List<ReSharperIssue>> parseAllProjects(File file, ReSharperIssueFilter filter) {
+    ReSharperProjectIssuesBuilder builder = new ReSharperProjectIssuesBuilder();
+    if (scanner && scan(file, null, true, filter, builder)) {
+      return builder.build();
+    }
+
+    builder = new ReSharperProjectIssuesBuilder();
+    new Parser(builder, true, filter).parse(file, null);
+    return builder.build();
   }
 
   private static class Parser {
+    private final ReSharperProjectIssueHandler handler;
+    private final ReSharperIssueFilter filter;
     private File file;
     private String projectName;
+    private String currentProjectName;
     private XMLStreamReader stream;
-    private final ImmutableList.Builder<ReSharperIssue> filesBuilder = ImmutableList.builder();
+    private final Interner<String> strings;
+    private final Interner<Integer> integers;
+
+    public Parser(ReSharperProjectIssueHandler handler, boolean intern, ReSharperIssueFilter filter) {
+      this.handler = handler;
+      this.filter = filter;
+      this.strings = intern ? Interners.<String>newStrongInterner() : null;
+      this.integers = intern ? Interners.<Integer>newStrongInterner() : null;
+    }
 
-    public List<ReSharperIssue> parse(File file, String projectName) {
+    /**
+     * @param projectName the only project to read, or null to read all of them
+     */
+    public void parse(File file, @Nullable String projectName) {
       this.file = file;
       this.projectName = projectName;
 
@@ -67,10 +239,8 @@ public class ReSharperReportParser {
             String tagName = stream.getLocalName();
 
             if ("Project".equals(tagName)) {
-              if(handleProjectTag()) {
-                // break after project tag has been handled.
-                break;
-              };              
+              // The elements repeating the name of the requested project are read as well
+              handleProjectTag();
             }
           }
         }
@@ -80,8 +250,6 @@ public class ReSharperReportParser {
         closeXmlStream();
         Closeables.closeQuietly(reader);
       }
-
-      return filesBuilder.build();
     }
 
     private void closeXmlStream() {
@@ -94,12 +262,10 @@ public class ReSharperReportParser {
       }
     }
     
-    private boolean handleProjectTag() throws XMLStreamException {
-      boolean handled = false;
-      
-      String projectName = getAttribute("Name");
-      if(this.projectName.equals(projectName)) {
-        handled = true;
+    private void handleProjectTag() throws XMLStreamException {
+      String name = getAttribute("Name");
+      if (projectName == null ? name != null : projectName.equals(name)) {
+        currentProjectName = name;
         while(stream.hasNext()) {
           int nextTag = stream.next();
           if(nextTag == XMLStreamConstants.START_ELEMENT) {
@@ -114,21 +280,33 @@ public class ReSharperReportParser {
               String tagName = stream.getLocalName();
               
               if("Project".equals(tagName)) {
-                return handled;
+                return;
               }                  
             }
           }
         }
       }
-      return handled;
     }
 
     private void handleIssueTag() throws XMLStreamException {
       String typeId = getRequiredAttribute("TypeId");
+      if (!filter.acceptsTypeId(typeId)) {
+        return;
+      }
       String filePath = getAttribute("File");
-      Integer line = getIntAttribute("Line");
-      String message = getRequiredAttribute("Message");
-      filesBuilder.add(new ReSharperIssue(stream.getLocation().getLineNumber(), typeId, filePath, line, message));
+      if (!filter.acceptsFile(filePath)) {
+        return;
+      }
+      typeId = intern(strings, typeId);
+      filePath = intern(strings, filePath);
+      Integer line = intern(integers, getIntAttribute("Line"));
+      String message = intern(strings, getRequiredAttribute("Message"));
+      handler.handle(currentProjectName, new ReSharperIssue(stream.getLocation().getLineNumber(), typeId, filePath, line, message));
+    }
+
+    @Nullable
+    private static <T> T intern(@Nullable Interner<T> interner, @Nullable T value) {
+      return interner == null || value == null ? value : interner.intern(value);
     }
 
     private String getRequiredAttribute(String name) {
@@ -0,0 +1,118 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Expands the values of a report path property, each of which is either the path to a report or a glob pattern
+ * such as "reports/**&#47;resharper-*.xml", into the list of report files.
+ */
+public class ReSharperReportPaths {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReSharperReportPaths.class);
+
+  private ReSharperReportPaths() {
+  }
+
+  /**
+   * @return the distinct report files, in the order of the patterns, and sorted by path for each glob pattern
+   */
+  public static List<File> resolve(String... patterns) {
+    Set<File> files = Sets.newLinkedHashSet();
+    for (String pattern : patterns) {
+      if (isGlob(pattern)) {
+        List<File> matches = glob(pattern);
+        if (matches.isEmpty()) {
+          LOG.warn("No ReSharper report matches the pattern: " + pattern);
+        }
+        files.addAll(matches);
+      } else {
+        files.add(new File(pattern).getAbsoluteFile());
+      }
+    }
+    return ImmutableList.copyOf(files);
+  }
+
+  static boolean isGlob(String pattern) {
+    return pattern.contains("*") || pattern.contains("?") || pattern.contains("[") || pattern.contains("{");
+  }
+
+  /**
+   * The pattern is split into the deepest directory without any wildcard, which is walked, and the glob the files below it must match.
+   */
+  private static List<File> glob(String pattern) {
+    String normalized = pattern.replace('\\', '/');
+    int wildcard = firstWildcard(normalized);
+    int separator = normalized.lastIndexOf('/', wildcard);
+    File root = separator < 0 ? new File(".") : new File(separator == 0 ? "/" : normalized.substring(0, separator));
+    if (!root.isDirectory()) {
+      return Collections.emptyList();
+    }
+
+    final Path rootPath = root.getAbsoluteFile().toPath().normalize();
+    final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalized.substring(separator + 1));
+    final List<File> matches = Lists.newArrayList();
+    try {
+      Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (attrs.isRegularFile() && matcher.matches(rootPath.relativize(file))) {
+            matches.add(file.toFile());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+    Collections.sort(matches);
+    return matches;
+  }
+
+  private static int firstWildcard(String pattern) {
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '*' || c == '?' || c == '[' || c == '{') {
+        return i;
+      }
+    }
+    return pattern.length();
+  }
+
+}
@@ -0,0 +1,659 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.io.Closeables;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads the issues of an inspectcode report straight from its UTF-8 bytes, decoding only the attributes it needs.
+ * The bytes are read through a window of the file which only grows to hold the longest tag, rather than mapped in memory:
+ * a mapped file stays locked on Windows until the buffer is garbage collected, which would fail the deletion of the report.
+ * It understands the regular structure that inspectcode writes, including its UTF-8 byte order mark, and gives up on anything else:
+ * DOCTYPE, namespaces, nested projects, unknown entities, whitespace to normalize within the needed attributes, invalid Line
+ * or missing TypeId and Message attributes, truncated documents. The report must then be read with a real XML parser,
+ * which reports the errors.
+ */
+public class ReSharperReportScanner {
+
+  private static final byte[] PROJECT = ascii("Project");
+  private static final byte[] ISSUE = ascii("Issue");
+  private static final byte[] NAME = ascii("Name");
+  private static final byte[] TYPE_ID = ascii("TypeId");
+  private static final byte[] FILE = ascii("File");
+  private static final byte[] LINE = ascii("Line");
+  private static final byte[] MESSAGE = ascii("Message");
+
+  private static final int MAX_ATTRIBUTES = 16;
+  private static final int MAX_CACHED_STRINGS = 1 << 16;
+  private static final int MAX_CACHED_LENGTH = 256;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final FileChannel channel;
+  private final int limit;
+  private final String projectName;
+  private final ReSharperIssueFilter filter;
+  private final ReSharperProjectIssueHandler handler;
+  private final Interner<String> strings;
+  private final Interner<Integer> integers;
+
+  private byte[] window;
+  private int windowStart;
+  private int windowLength;
+  // The first offset still needed, such as the start of the current tag, whose attributes are read back once it is parsed
+  private int mark;
+
+  private int position;
+  private int line = 1;
+  private byte[] scratch = new byte[256];
+  private byte[][] cachedBytes = new byte[1024][];
+  private String[] cachedStrings = new String[1024];
+  private int cachedCount;
+
+  private int attributeCount;
+  private final int[] attributeNameStarts = new int[MAX_ATTRIBUTES];
+  private final int[] attributeNameEnds = new int[MAX_ATTRIBUTES];
+  private final int[] attributeValueStarts = new int[MAX_ATTRIBUTES];
+  private final int[] attributeValueEnds = new int[MAX_ATTRIBUTES];
+  private final boolean[] attributeValueEscaped = new boolean[MAX_ATTRIBUTES];
+  private final boolean[] attributeValueWhitespace = new boolean[MAX_ATTRIBUTES];
+
+  private ReSharperReportScanner(FileChannel channel, int size, int bufferSize, @Nullable String projectName, boolean intern,
+    ReSharperIssueFilter filter, ReSharperProjectIssueHandler handler) {
+    this.channel = channel;
+    this.limit = size;
+    this.window = new byte[Math.min(size, bufferSize)];
+    this.projectName = projectName;
+    this.filter = filter;
+    this.handler = handler;
+    this.strings = intern ? Interners.<String>newStrongInterner() : null;
+    this.integers = intern ? Interners.<Integer>newStrongInterner() : null;
+  }
+
+  /**
+   * @param projectName the only project to read, or null to read all of them
+   * @param intern whether to share the strings and lines repeated all over the report between the issues
+   * @return false if the report is not in the expected form, in which case the handler may have received some of its issues already
+   */
+  public static boolean scan(File file, @Nullable String projectName, boolean intern, ReSharperProjectIssueHandler handler) throws IOException {
+    return scan(file, projectName, intern, ReSharperIssueFilter.ACCEPT_ALL, handler);
+  }
+
+  /**
+   * @param filter applied right after the TypeId and File attributes of each issue are decoded: the Line and Message
+   * attributes of the rejected issues are neither decoded nor validated
+   * @see #scan(File, String, boolean, ReSharperProjectIssueHandler)
+   */
+  public static boolean scan(File file, @Nullable String projectName, boolean intern, ReSharperIssueFilter filter, ReSharperProjectIssueHandler handler)
+    throws IOException {
+    return scan(file, projectName, intern, filter, handler, BUFFER_SIZE);
+  }
+
+  @VisibleForTesting
+  static boolean scan(File file, @Nullable String projectName, boolean intern, ReSharperIssueFilter filter, ReSharperProjectIssueHandler handler,
+    int bufferSize) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      long size = channel.size();
+      if (size == 0 || size > Integer.MAX_VALUE) {
+        return false;
+      }
+      return new ReSharperReportScanner(channel, (int) size, bufferSize, projectName, intern, filter, handler).scan();
+    } catch (ReadException e) {
+      throw e.cause;
+    } finally {
+      Closeables.closeQuietly(randomAccessFile);
+    }
+  }
+
+  private boolean scan() {
+    if (limit >= 3 && (byteAt(0) & 0xFF) == 0xEF && (byteAt(1) & 0xFF) == 0xBB && (byteAt(2) & 0xFF) == 0xBF) {
+      // UTF-8 byte order mark, which inspectcode writes as .NET does
+      position = 3;
+    }
+
+    int depth = 0;
+    int projectDepth = -1;
+    String currentProjectName = null;
+    boolean rootSeen = false;
+    while (skipToTag()) {
+      int tagLine = line;
+      position++;
+      if (position >= limit) {
+        return false;
+      }
+      byte b = byteAt(position);
+      if (b == '?') {
+        if (!skipPast("?>")) {
+          return false;
+        }
+      } else if (b == '!') {
+        if (!skipDeclaration()) {
+          return false;
+        }
+      } else if (b == '/') {
+        position++;
+        int nameStart = position;
+        int nameEnd = skipName();
+        skipWhitespace();
+        if (nameEnd <= nameStart || position >= limit || byteAt(position) != '>' || depth == 0) {
+          return false;
+        }
+        position++;
+        depth--;
+        if (depth == projectDepth && equals(nameStart, nameEnd, PROJECT)) {
+          projectDepth = -1;
+          currentProjectName = null;
+        }
+      } else {
+        if (depth == 0 && rootSeen) {
+          return false;
+        }
+        rootSeen = true;
+        int nameStart = position;
+        int nameEnd = skipName();
+        if (nameEnd <= nameStart || !readAttributes()) {
+          return false;
+        }
+        boolean selfClosing = byteAt(position - 2) == '/';
+
+        if (equals(nameStart, nameEnd, PROJECT)) {
+          if (currentProjectName != null || selfClosing) {
+            return false;
+          }
+          String name = attribute(NAME, false, false);
+          if (name == null && attributeIndex(NAME) >= 0) {
+            return false;
+          }
+          if (projectName == null ? name != null : projectName.equals(name)) {
+            currentProjectName = name;
+            projectDepth = depth;
+          }
+        } else if (currentProjectName != null && equals(nameStart, nameEnd, ISSUE) && !handleIssue(currentProjectName, tagLine)) {
+          return false;
+        }
+
+        if (!selfClosing) {
+          depth++;
+        }
+      }
+    }
+    return rootSeen && depth == 0;
+  }
+
+  /**
+   * @param tagLine the line of the start of the element, which is the location the XML parser reports for it
+   */
+  private boolean handleIssue(String currentProjectName, int tagLine) {
+    String typeId = attribute(TYPE_ID, true, true);
+    if (typeId == null) {
+      return false;
+    } else if (!filter.acceptsTypeId(typeId)) {
+      return true;
+    }
+    String filePath = attribute(FILE, true, true);
+    if (filePath == null && attributeIndex(FILE) >= 0) {
+      return false;
+    } else if (!filter.acceptsFile(filePath)) {
+      return true;
+    }
+    // Messages are mostly distinct, and long: they are only interned
+    String message = attribute(MESSAGE, true, false);
+    if (message == null) {
+      return false;
+    }
+
+    Integer issueLine = null;
+    int index = attributeIndex(LINE);
+    if (index >= 0) {
+      int start = attributeValueStarts[index];
+      int end = attributeValueEnds[index];
+      if (end == start || end - start > 9) {
+        return false;
+      }
+      int value = 0;
+      for (int i = start; i < end; i++) {
+        byte b = byteAt(i);
+        if (b < '0' || b > '9') {
+          return false;
+        }
+        value = value * 10 + (b - '0');
+      }
+      issueLine = integers == null ? Integer.valueOf(value) : integers.intern(value);
+    }
+
+    handler.handle(currentProjectName, new ReSharperIssue(tagLine, typeId, filePath, issueLine, message));
+    return true;
+  }
+
+  /**
+   * @param intern whether to share the value between the issues, when the scanner interns
+   * @param cache whether to look the bytes of the value up in the table of the decoded values, if they are short enough
+   * @return the decoded value of the attribute, or null if it is missing or cannot be decoded
+   */
+  @CheckForNull
+  private String attribute(byte[] name, boolean intern, boolean cache) {
+    int index = attributeIndex(name);
+    if (index < 0 || attributeValueWhitespace[index]) {
+      return null;
+    }
+    int start = attributeValueStarts[index];
+    int length = attributeValueEnds[index] - start;
+    if (scratch.length < length) {
+      scratch = new byte[Math.max(length, 2 * scratch.length)];
+    }
+    int hash = 1;
+    for (int i = 0; i < length; i++) {
+      byte b = byteAt(start + i);
+      scratch[i] = b;
+      hash = 31 * hash + b;
+    }
+
+    int slot = cache && length <= MAX_CACHED_LENGTH ? cachedSlot(hash, length) : -1;
+    if (slot >= 0 && cachedStrings[slot] != null) {
+      return cachedStrings[slot];
+    }
+
+    String value = new String(scratch, 0, length, Charsets.UTF_8);
+    if (attributeValueEscaped[index]) {
+      value = unescape(value);
+      if (value == null) {
+        return null;
+      }
+    }
+    if (strings != null && intern) {
+      value = strings.intern(value);
+    }
+    if (slot >= 0) {
+      cache(slot, length, value);
+    }
+    return value;
+  }
+
+  /**
+   * The short values repeated all over the report, such as the TypeId and File attributes, are decoded only once, by looking
+   * their bytes up in an open-addressing table.
+   *
+   * @return the slot of the bytes in the scratch buffer, which holds their string if they were already decoded,
+   * or -1 if the table is full
+   */
+  private int cachedSlot(int hash, int length) {
+    int mask = cachedBytes.length - 1;
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    while (cachedBytes[slot] != null) {
+      byte[] bytes = cachedBytes[slot];
+      if (bytes.length == length && sameBytes(bytes, length)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return cachedCount < MAX_CACHED_STRINGS ? slot : -1;
+  }
+
+  private boolean sameBytes(byte[] bytes, int length) {
+    for (int i = 0; i < length; i++) {
+      if (bytes[i] != scratch[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void cache(int slot, int length, String value) {
+    byte[] bytes = new byte[length];
+    System.arraycopy(scratch, 0, bytes, 0, length);
+    cachedBytes[slot] = bytes;
+    cachedStrings[slot] = value;
+    cachedCount++;
+    if (2 * cachedCount > cachedBytes.length) {
+      byte[][] oldBytes = cachedBytes;
+      String[] oldStrings = cachedStrings;
+      cachedBytes = new byte[2 * oldBytes.length][];
+      cachedStrings = new String[2 * oldStrings.length];
+      int mask = cachedBytes.length - 1;
+      for (int i = 0; i < oldBytes.length; i++) {
+        if (oldBytes[i] != null) {
+          int hash = 1;
+          for (byte b : oldBytes[i]) {
+            hash = 31 * hash + b;
+          }
+          int newSlot = (hash ^ (hash >>> 16)) & mask;
+          while (cachedBytes[newSlot] != null) {
+            newSlot = (newSlot + 1) & mask;
+          }
+          cachedBytes[newSlot] = oldBytes[i];
+          cachedStrings[newSlot] = oldStrings[i];
+        }
+      }
+    }
+  }
+
+  private int attributeIndex(byte[] name) {
+    for (int i = 0; i < attributeCount; i++) {
+      if (equals(attributeNameStarts[i], attributeNameEnds[i], name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Reads the attributes of the current start tag, up to and including its closing "&gt;" or "/&gt;".
+   */
+  private boolean readAttributes() {
+    attributeCount = 0;
+    while (true) {
+      skipWhitespace();
+      if (position >= limit) {
+        return false;
+      }
+      byte b = byteAt(position);
+      if (b == '>') {
+        position++;
+        return true;
+      } else if (b == '/') {
+        position++;
+        if (position >= limit || byteAt(position) != '>') {
+          return false;
+        }
+        position++;
+        return true;
+      } else if (attributeCount == MAX_ATTRIBUTES || !readAttribute()) {
+        return false;
+      }
+    }
+  }
+
+  private boolean readAttribute() {
+    int nameStart = position;
+    int nameEnd = skipName();
+    skipWhitespace();
+    if (nameEnd <= nameStart || position >= limit || byteAt(position) != '=') {
+      return false;
+    }
+    position++;
+    skipWhitespace();
+    if (position >= limit) {
+      return false;
+    }
+    byte quote = byteAt(position);
+    if (quote != '"' && quote != '\'') {
+      return false;
+    }
+    position++;
+    int valueStart = position;
+    boolean escaped = false;
+    boolean whitespace = false;
+    while (position < limit) {
+      byte b = byteAt(position);
+      if (b == quote) {
+        attributeNameStarts[attributeCount] = nameStart;
+        attributeNameEnds[attributeCount] = nameEnd;
+        attributeValueStarts[attributeCount] = valueStart;
+        attributeValueEnds[attributeCount] = position;
+        attributeValueEscaped[attributeCount] = escaped;
+        attributeValueWhitespace[attributeCount] = whitespace;
+        attributeCount++;
+        position++;
+        return true;
+      } else if (b == '<') {
+        return false;
+      } else if (b == '&') {
+        escaped = true;
+      } else if (b == '\t' || b == '\n' || b == '\r') {
+        whitespace = true;
+        countLine(b);
+      }
+      position++;
+    }
+    return false;
+  }
+
+  private int skipName() {
+    while (position < limit) {
+      byte b = byteAt(position);
+      if (b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '/' || b == '>' || b == '=') {
+        break;
+      } else if (b == ':' || b == '<' || b == '"' || b == '\'') {
+        // Namespaces or malformed names: the position is left on this byte, which the caller rejects
+        return -1;
+      }
+      position++;
+    }
+    return position;
+  }
+
+  private void skipWhitespace() {
+    while (position < limit) {
+      byte b = byteAt(position);
+      if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+        return;
+      }
+      countLine(b);
+      position++;
+    }
+  }
+
+  /**
+   * Moves to the next "&lt;", counting the lines on the way.
+   */
+  private boolean skipToTag() {
+    while (position < limit) {
+      mark = position;
+      byte b = byteAt(position);
+      if (b == '<') {
+        return true;
+      }
+      countLine(b);
+      position++;
+    }
+    return false;
+  }
+
+  /**
+   * Skips comments and CDATA sections; DOCTYPE and other declarations are not supported.
+   */
+  private boolean skipDeclaration() {
+    if (startsWith("!--")) {
+      return skipPast("-->");
+    } else if (startsWith("![CDATA[")) {
+      return skipPast("]]>");
+    }
+    return false;
+  }
+
+  private boolean startsWith(String prefix) {
+    if (position + prefix.length() > limit) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (byteAt(position + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean skipPast(String terminator) {
+    while (position < limit) {
+      mark = position;
+      if (startsWith(terminator)) {
+        position += terminator.length();
+        return true;
+      }
+      countLine(byteAt(position));
+      position++;
+    }
+    return false;
+  }
+
+  /**
+   * Counts the line breaks as an XML parser does, after normalizing "\r\n" and "\r" to "\n".
+   */
+  private void countLine(byte b) {
+    if (b == '\n' || (b == '\r' && (position + 1 >= limit || byteAt(position + 1) != '\n'))) {
+      line++;
+    }
+  }
+
+  /**
+   * @param index an offset in the file, at or after the mark
+   */
+  private byte byteAt(int index) {
+    int offset = index - windowStart;
+    if (offset >= 0 && offset < windowLength) {
+      return window[offset];
+    }
+    fill(index);
+    return window[index - windowStart];
+  }
+
+  /**
+   * Drops the bytes before the mark from the window, then reads the file until the window holds the given offset,
+   * growing the window only if the bytes from the mark to the offset do not fit in it.
+   */
+  private void fill(int index) {
+    if (index < mark || index >= limit) {
+      throw new IllegalStateException("Offset " + index + " out of the window of the report, from " + mark + " to " + limit);
+    }
+    int kept = Math.max(0, windowStart + windowLength - mark);
+    if (kept > 0) {
+      System.arraycopy(window, mark - windowStart, window, 0, kept);
+    }
+    windowStart = mark;
+    windowLength = kept;
+    if (index - windowStart >= window.length) {
+      byte[] grown = new byte[Math.min(limit - windowStart, Math.max(index - windowStart + 1, 2 * window.length))];
+      System.arraycopy(window, 0, grown, 0, windowLength);
+      window = grown;
+    }
+    try {
+      ByteBuffer target = ByteBuffer.wrap(window, windowLength, Math.min(window.length, limit - windowStart) - windowLength);
+      while (windowStart + windowLength <= index) {
+        int read = channel.read(target, windowStart + windowLength);
+        if (read < 0) {
+          throw new EOFException("The report was truncated while being read");
+        }
+        windowLength += read;
+      }
+    } catch (IOException e) {
+      throw new ReadException(e);
+    }
+  }
+
+  /**
+   * Carries the failures to read the file through the parsing methods, up to {@link #scan(File, String, boolean, ReSharperIssueFilter,
+   * ReSharperProjectIssueHandler, int)}.
+   */
+  private static class ReadException extends RuntimeException {
+
+    private final IOException cause;
+
+    ReadException(IOException cause) {
+      super(cause);
+      this.cause = cause;
+    }
+
+  }
+
+  private boolean equals(int start, int end, byte[] name) {
+    if (start < 0 || end < 0 || end - start != name.length) {
+      return false;
+    }
+    for (int i = 0; i < name.length; i++) {
+      if (byteAt(start + i) != name[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the value with its predefined entities and character references replaced, or null if it contains any other entity
+   */
+  @CheckForNull
+  static String unescape(String value) {
+    StringBuilder sb = new StringBuilder(value.length());
+    int i = 0;
+    while (i < value.length()) {
+      char c = value.charAt(i);
+      if (c != '&') {
+        sb.append(c);
+        i++;
+        continue;
+      }
+      int end = value.indexOf(';', i);
+      if (end < 0) {
+        return null;
+      }
+      String entity = value.substring(i + 1, end);
+      if ("lt".equals(entity)) {
+        sb.append('<');
+      } else if ("gt".equals(entity)) {
+        sb.append('>');
+      } else if ("amp".equals(entity)) {
+        sb.append('&');
+      } else if ("quot".equals(entity)) {
+        sb.append('"');
+      } else if ("apos".equals(entity)) {
+        sb.append('\'');
+      } else if (!appendCharacterReference(sb, entity)) {
+        return null;
+      }
+      i = end + 1;
+    }
+    return sb.toString();
+  }
+
+  private static boolean appendCharacterReference(StringBuilder sb, String entity) {
+    if (entity.length() < 2 || entity.charAt(0) != '#') {
+      return false;
+    }
+    try {
+      int codePoint = entity.charAt(1) == 'x' ? Integer.parseInt(entity.substring(2), 16) : Integer.parseInt(entity.substring(1));
+      if (!Character.isValidCodePoint(codePoint) || codePoint == 0) {
+        return false;
+      }
+      sb.appendCodePoint(codePoint);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private static byte[] ascii(String name) {
+    return name.getBytes(Charsets.US_ASCII);
+  }
+
+}
@@ -20,7 +20,19 @@
 package org.sonar.plugins.resharper;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.base.Predicate;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.Sensor;
@@ -33,27 +45,48 @@ import org.sonar.api.issue.Issuable;
 import org.sonar.api.profiles.RulesProfile;
 import org.sonar.api.resources.Project;
 import org.sonar.api.rule.RuleKey;
-import org.sonar.api.rules.ActiveRule;
+import org.sonar.plugins.resharper.ReSharperSensorMetrics.Phase;
+import org.sonar.plugins.resharper.ReSharperSensorMetrics.SkipReason;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class ReSharperSensor implements Sensor {
 
   private static final Logger LOG = LoggerFactory.getLogger(ReSharperSensor.class);
+  private static final String FULL_REPORT_PREFIX = "resharper-report-full-";
+
+  /**
+   * The shared reports are filtered by the rules active in either language, so that both sensors share the parsed reports
+   */
+  private static final List<String> REPOSITORY_KEYS = ImmutableList.of(
+    CSharpReSharperProvider.RESHARPER_CONF.repositoryKey(),
+    VBNetReSharperProvider.RESHARPER_CONF.repositoryKey());
 
   private final ReSharperConfiguration reSharperConf;
   private final Settings settings;
   private final RulesProfile profile;
   private final FileSystem fileSystem;
   private final ResourcePerspectives perspectives;
+  private final ReSharperReportCache reportCache;
+  private final ReSharperInspectCodeRuns inspectCodeRuns;
 
-  public ReSharperSensor(ReSharperConfiguration reSharperConf, Settings settings, RulesProfile profile, FileSystem fileSystem, ResourcePerspectives perspectives) {
+  public ReSharperSensor(ReSharperConfiguration reSharperConf, Settings settings, RulesProfile profile, FileSystem fileSystem, ResourcePerspectives perspectives,
+    ReSharperReportCache reportCache, ReSharperInspectCodeRuns inspectCodeRuns) {
     this.reSharperConf = reSharperConf;
     this.settings = settings;
     this.profile = profile;
     this.fileSystem = fileSystem;
     this.perspectives = perspectives;
+    this.reportCache = reportCache;
+    this.inspectCodeRuns = inspectCodeRuns;
   }
 
   @VisibleForTesting
@@ -65,7 +98,7 @@ public class ReSharperSensor implements Sensor {
   public boolean shouldExecuteOnProject(Project project) {
     boolean shouldExecute;
 
-    if (!hasFilesToAnalyze()) {
+    if (!hasFilesToAnalyze(reSharperConf.languageKey())) {
       shouldExecute = false;
     } else if (profile.getActiveRulesByRepository(getConfiguration().repositoryKey()).isEmpty()) {
       LOG.info("All ReSharper rules are disabled, skipping its execution.");
@@ -77,19 +110,20 @@ public class ReSharperSensor implements Sensor {
     return shouldExecute;
   }
 
-  private boolean hasFilesToAnalyze() {
-    return fileSystem.files(fileSystem.predicates().hasLanguage(reSharperConf.languageKey())).iterator().hasNext();
+  private boolean hasFilesToAnalyze(String languageKey) {
+    return fileSystem.files(fileSystem.predicates().hasLanguage(languageKey)).iterator().hasNext();
   }
 
   @Override
   public void analyse(Project project, SensorContext context) {
     FileProvider fileProvider = new FileProvider();
-    ReSharperReportParser parser = new ReSharperReportParser();
+    ReSharperReportParser parser = new ReSharperReportParser(ReSharperReportDiskCache.create(settings),
+      !settings.hasKey(ReSharperPlugin.REPORT_SCANNER_PROPERTY_KEY) || settings.getBoolean(ReSharperPlugin.REPORT_SCANNER_PROPERTY_KEY));
     if (!settings.hasKey(ReSharperPlugin.PROJECT_NAME_PROPERTY_KEY)) {
       logMessageIfLegacySettingsDefined();
-      analyseReportPath(fileProvider, parser);
+      analyseReportPath(project, fileProvider, parser);
     } else {
-      analyseRunInspectCode(fileProvider, new ReSharperDotSettingsWriter(), parser, new ReSharperExecutor());
+      analyseRunInspectCode(project, fileProvider, new ReSharperDotSettingsWriter(), parser, new ReSharperExecutor(ReSharperCachesHome.create(settings)));
     }
   }
 
@@ -100,107 +134,533 @@ public class ReSharperSensor implements Sensor {
     }
   }
 
-  private void analyseReportPath(FileProvider fileProvider, ReSharperReportParser parser) {
+  private void analyseReportPath(Project project, FileProvider fileProvider, ReSharperReportParser parser) {
     checkProperty(settings, reSharperConf.reportPathKey());
     checkProperty(settings, ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY);
-    File reportFile = new File(settings.getString(reSharperConf.reportPathKey()));
-    parseReport(fileProvider, parser, reportFile);
+    List<File> reportFiles = ReSharperReportPaths.resolve(settings.getStringArray(reSharperConf.reportPathKey()));
+    if (reportFiles.isEmpty()) {
+      throw new IllegalStateException("No ReSharper report matches the property \"" + reSharperConf.reportPathKey() + "\".");
+    }
+    ReSharperSensorMetrics metrics = new ReSharperSensorMetrics();
+    ReSharperIssueFilter filter = ReSharperIssueFilter.of(ReSharperActiveRules.activeTypeIds(profile, repositoryKeys()));
+    parseReports(fileProvider, parser, reportFiles, activeRules(metrics), filter, sharedReaders(project, reportReaders(reportFiles)), metrics);
+    report(metrics);
+  }
+
+  /**
+   * @return the given readers, or null if the reports are read by no other module nor language, in which case the issues
+   * of the project are streamed without keeping the reports in memory
+   */
+  @CheckForNull
+  private static Map<File, Integer> sharedReaders(Project project, Map<File, Integer> readers) {
+    boolean singleModule = project.getParent() == null && project.getModules().isEmpty();
+    return singleModule && !readers.containsValue(2) ? null : readers;
+  }
+
+  /**
+   * @return the number of sensors of this module which read each report: this one, and the one of the other language
+   * if it executes and its report paths match the report too
+   */
+  private Map<File, Integer> reportReaders(List<File> reportFiles) {
+    Set<String> otherReports = Sets.newHashSet();
+    for (ReSharperConfiguration conf : otherLanguages()) {
+      if (settings.hasKey(conf.reportPathKey())) {
+        for (File reportFile : ReSharperReportPaths.resolve(settings.getStringArray(conf.reportPathKey()))) {
+          otherReports.add(canonicalPath(reportFile));
+        }
+      }
+    }
+    Map<File, Integer> readers = Maps.newLinkedHashMap();
+    for (File reportFile : reportFiles) {
+      readers.put(reportFile, otherReports.contains(canonicalPath(reportFile)) ? 2 : 1);
+    }
+    return readers;
+  }
+
+  /**
+   * @return the configurations of the other languages whose sensor executes on this module
+   */
+  private List<ReSharperConfiguration> otherLanguages() {
+    List<ReSharperConfiguration> result = Lists.newArrayList();
+    for (ReSharperConfiguration conf : ImmutableList.of(CSharpReSharperProvider.RESHARPER_CONF, VBNetReSharperProvider.RESHARPER_CONF)) {
+      if (!conf.languageKey().equals(reSharperConf.languageKey())
+        && hasFilesToAnalyze(conf.languageKey()) && !profile.getActiveRulesByRepository(conf.repositoryKey()).isEmpty()) {
+        result.add(conf);
+      }
+    }
+    return result;
+  }
+
+  private static String canonicalPath(File file) {
+    try {
+      return file.getCanonicalPath();
+    } catch (IOException e) {
+      return file.getAbsolutePath();
+    }
   }
 
   @VisibleForTesting
-  void analyseRunInspectCode(FileProvider fileProvider, ReSharperDotSettingsWriter writer, ReSharperReportParser parser, ReSharperExecutor executor) {
+  void analyseRunInspectCode(Project project, FileProvider fileProvider, final ReSharperDotSettingsWriter writer, ReSharperReportParser parser, final ReSharperExecutor executor) {
     LOG.warn("ReSharper plugin is running in deprecated mode. inspectcode.exe should be ran outside the " +
       "plugin and the report imported through " + reSharperConf.reportPathKey() + " property.");
     checkProperty(settings, ReSharperPlugin.PROJECT_NAME_PROPERTY_KEY);
     checkProperty(settings, ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY);
 
+    final ReSharperSensorMetrics metrics = new ReSharperSensorMetrics();
+    ReSharperActiveRules activeRules = activeRules(metrics);
+    final List<String> typeIds = inspectedTypeIds(activeRules);
+    final String rulesDigest = ReSharperActiveRules.digest(repositoryKeys(), typeIds);
+    final List<String> changedFiles = changedFiles();
+    String inspectedProjects = isSharded() ? "*" : settings.getString(ReSharperPlugin.PROJECT_NAME_PROPERTY_KEY);
+    String solutionFile = new File(settings.getString(ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY)).getAbsolutePath();
+    String key = Joiner.on('|').useForNull("").join(solutionFile, inspectedProjects, rulesDigest, changedFiles == null ? null : Joiner.on(';').join(changedFiles));
+    final String fullReportPrefix = FULL_REPORT_PREFIX + ReSharperReportDiskCache.shortDigest(solutionFile + "|" + inspectedProjects) + "-";
+    File reportFile = inspectCodeRuns.report(key, new Supplier<File>() {
+      @Override
+      public File get() {
+        return inspectCode(writer, executor, typeIds, fullReportPrefix + rulesDigest + ".xml", changedFiles, metrics);
+      }
+    });
+
+    // The report is shared with the sensor of the other language, and in sharded mode with the other modules
+    Map<File, Integer> readers = ImmutableMap.of(reportFile, 1 + otherLanguages().size());
+    parseReports(fileProvider, parser, ImmutableList.of(reportFile), activeRules, ReSharperIssueFilter.of(typeIds), sharedReaders(project, readers), metrics);
+    report(metrics);
+  }
+
+  /**
+   * The repositories of both languages, so that inspectcode.exe is run once with the rules active in either of them.
+   */
+  private Set<String> repositoryKeys() {
+    return ImmutableSet.<String>builder().addAll(REPOSITORY_KEYS).add(reSharperConf.repositoryKey()).build();
+  }
+
+  /**
+   * @return the TypeIds active in this language, then the other ones active in the other language
+   */
+  private List<String> inspectedTypeIds(ReSharperActiveRules activeRules) {
+    Set<String> typeIds = Sets.newLinkedHashSet(activeRules.keys());
+    List<String> otherRepositoryKeys = Lists.newArrayList(REPOSITORY_KEYS);
+    otherRepositoryKeys.remove(reSharperConf.repositoryKey());
+    typeIds.addAll(ReSharperActiveRules.activeTypeIds(profile, otherRepositoryKeys));
+    return ImmutableList.copyOf(typeIds);
+  }
+
+  /**
+   * @param typeIds the rules active in either language
+   * @param fullReportName the name of the report of the whole project kept for the next analyses, which changes with the solution,
+   * the inspected projects and the active rules
+   * @param changedFiles the files to inspect, or null to inspect the whole project
+   * @return the report of inspectcode.exe
+   */
+  private File inspectCode(ReSharperDotSettingsWriter writer, ReSharperExecutor executor, List<String> typeIds, String fullReportName,
+    @Nullable List<String> changedFiles, ReSharperSensorMetrics metrics) {
     File rulesetFile = new File(fileSystem.workDir(), "resharper-sonarqube.DotSettings");
-    writer.write(enabledRuleKeys(), rulesetFile);
+    Stopwatch stopwatch = metrics.stopwatch(Phase.DOT_SETTINGS).start();
+    writer.write(typeIds, rulesetFile);
+    stopwatch.stop();
 
     File reportFile = new File(fileSystem.workDir(), "resharper-report.xml");
+    File fullReportFile = new File(fullReportDirectory(), fullReportName);
+    boolean scoped = changedFiles != null && fullReportFile.isFile();
+    if (changedFiles != null && !scoped) {
+      LOG.info("No previous ReSharper report of the whole project for the active rules: inspecting the whole project");
+    }
 
-    executor.execute(
-      settings.getString(ReSharperPlugin.INSPECTCODE_PATH_PROPERTY_KEY), settings.getString(ReSharperPlugin.PROJECT_NAME_PROPERTY_KEY),
-      settings.getString(ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY), rulesetFile, reportFile, settings.getInt(ReSharperPlugin.TIMEOUT_MINUTES_PROPERTY_KEY));
-
-    parseReport(fileProvider, parser, reportFile);
+    stopwatch = metrics.stopwatch(Phase.INSPECTCODE).start();
+    // Rounded down to the second, the precision of the modification times of some file systems
+    long inspectionStart = System.currentTimeMillis() / 1000 * 1000;
+    if (!scoped) {
+      execute(executor, rulesetFile, reportFile, ImmutableList.<String>of());
+      if (changedFiles != null) {
+        keepFullReport(reportFile, fullReportFile);
+      }
+    } else if (changedFiles.isEmpty()) {
+      LOG.info("No changed file: reusing the previous ReSharper report " + fullReportFile.getAbsolutePath());
+      copy(fullReportFile, reportFile);
+    } else {
+      LOG.info("Inspecting the " + changedFiles.size() + " changed files only");
+      execute(executor, rulesetFile, reportFile, changedFiles);
+      ReSharperReportMerger.merge(fullReportFile, reportFile, inspectedAgain(changedFiles), reportFile);
+      keepFullReport(reportFile, fullReportFile);
+    }
+    ReSharperCachesHome cachesHome = executor.cachesHome();
+    if (cachesHome != null) {
+      // Once all the processes of a sharded inspection are over
+      cachesHome.cleanUp(inspectionStart);
+    }
+    stopwatch.stop();
+    return reportFile;
   }
 
-  private void parseReport(FileProvider fileProvider, ReSharperReportParser parser, File reportFile) {
-    LOG.info("Parsing ReSharper report: " + reportFile);
-    File solutionFile = new File(settings.getString(ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY));
-    String projectName = settings.getString(ReSharperPlugin.PROJECT_NAME_SONAR_PROPERTY_KEY);
-    LOG.info(ReSharperPlugin.PROJECT_NAME_SONAR_PROPERTY_KEY + " " + projectName);
-    List<ReSharperIssue> parse = parser.parse(reportFile, projectName);
-    for (ReSharperIssue issue : parse) {
-      if (!hasFileAndLine(issue)) {
-        logSkippedIssue(issue, "which has no associated file.");
-        continue;
+  /**
+   * Runs inspectcode.exe on the project, or on each project of the solution in sharded mode.
+   *
+   * @param includes the only files to inspect, or an empty list to inspect all of them
+   */
+  private void execute(ReSharperExecutor executor, File rulesetFile, File reportFile, List<String> includes) {
+    String executable = settings.getString(ReSharperPlugin.INSPECTCODE_PATH_PROPERTY_KEY);
+    String solutionFile = settings.getString(ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY);
+    int timeout = settings.getInt(ReSharperPlugin.TIMEOUT_MINUTES_PROPERTY_KEY);
+    if (isSharded()) {
+      int threads = settings.getInt(ReSharperPlugin.SHARDED_INSPECTION_THREADS_PROPERTY_KEY);
+      new ReSharperShardedExecutor(executor, threads > 0 ? threads : ReSharperShardedExecutor.defaultThreads())
+        .execute(executable, ReSharperSolutionFile.projects(new File(solutionFile)), solutionFile, rulesetFile, reportFile, timeout, includes);
+    } else {
+      String project = settings.getString(ReSharperPlugin.PROJECT_NAME_PROPERTY_KEY);
+      if (includes.isEmpty()) {
+        executor.execute(executable, project, solutionFile, rulesetFile, reportFile, timeout);
+      } else {
+        executor.execute(executable, project, solutionFile, rulesetFile, reportFile, timeout, includes);
       }
+    }
+  }
 
-      File file = fileProvider.fileInSolution(solutionFile, issue.filePath());
+  private boolean isSharded() {
+    return settings.getBoolean(ReSharperPlugin.SHARDED_INSPECTION_PROPERTY_KEY);
+  }
 
-      //The below code is implemented to try to resolve an issue where something is passing a wonky file path i.e.
-      // "D:\\vssrc\\GregsProject\\\"D:\\vssrc\\GregsProject\\Common Libraries\\Common Libraries\\Class1.cs\"";
-      //The below condition will attempt to detect this type of string and rip out only the full path to the file
-      if(file.getAbsolutePath().contains("\\\"") && file.getAbsolutePath().endsWith("\"")){
-        String badFilePath = file.getAbsolutePath();
-        int position = badFilePath.indexOf("\\\"");
-        String newPath = file.getAbsolutePath().substring(position + 2,file.getAbsolutePath().length()-1);
+  /**
+   * @return the files to inspect, relative to the solution directory, or null to inspect the whole project
+   */
+  @CheckForNull
+  private List<String> changedFiles() {
+    String listFile = settings.getString(ReSharperPlugin.CHANGED_FILES_LIST_PROPERTY_KEY);
+    List<String> paths;
+    if (listFile != null && !listFile.isEmpty()) {
+      try {
+        paths = Files.readLines(new File(listFile), Charsets.UTF_8);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to read the list of changed files " + listFile, e);
+      }
+    } else if (settings.hasKey(ReSharperPlugin.CHANGED_FILES_PROPERTY_KEY)) {
+      paths = ImmutableList.copyOf(settings.getStringArray(ReSharperPlugin.CHANGED_FILES_PROPERTY_KEY));
+    } else {
+      return null;
+    }
+    ImmutableList.Builder<String> changedFiles = ImmutableList.builder();
+    for (String path : paths) {
+      if (!path.trim().isEmpty()) {
+        changedFiles.add(path.trim());
+      }
+    }
+    return changedFiles.build();
+  }
 
-        //change the file variable to the new filePath.
-        file = new File(newPath);
+  private Predicate<String> inspectedAgain(List<String> changedFiles) {
+    final String solutionDirectory = new File(settings.getString(ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY)).getAbsoluteFile().getParent();
+    final Set<String> keys = Sets.newHashSet();
+    for (String changedFile : changedFiles) {
+      keys.add(ReSharperPathIndex.key(solutionDirectory, changedFile));
+    }
+    return new Predicate<String>() {
+      @Override
+      public boolean apply(String reportPath) {
+        return keys.contains(ReSharperPathIndex.key(solutionDirectory, reportPath));
       }
+    };
+  }
 
-      InputFile inputFile;
-      try {
-        inputFile = fileSystem.inputFile(
-                fileSystem.predicates().and(
-                        fileSystem.predicates().hasAbsolutePath(file.getAbsolutePath()),
-                        fileSystem.predicates().hasType(InputFile.Type.MAIN))
-        );
-      }catch (Exception ex){
-        logSkippedIssue(issue, "Failed to get input file: \"" + ex.getMessage() +"\"");
-        continue;
+  private File fullReportDirectory() {
+    String directory = settings.getString(ReSharperPlugin.FULL_REPORT_DIRECTORY_PROPERTY_KEY);
+    if (directory == null || directory.isEmpty()) {
+      LOG.warn("\"" + ReSharperPlugin.FULL_REPORT_DIRECTORY_PROPERTY_KEY + "\" is not set: the report of the whole project is kept in the working "
+        + "directory, and the whole project is inspected again whenever the scanner cleans it");
+      return fileSystem.workDir();
+    }
+    return new File(directory);
+  }
+
+  /**
+   * Keeps the report of the whole project for the next analysis, in place of the ones of the same solution and projects for other active rules.
+   */
+  private void keepFullReport(File reportFile, final File fullReportFile) {
+    try {
+      Files.createParentDirs(fullReportFile);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to create the directory of " + fullReportFile.getAbsolutePath(), e);
+    }
+    copy(reportFile, fullReportFile);
+    // The rules digest is the last part of the name
+    final String prefix = fullReportFile.getName().substring(0, fullReportFile.getName().lastIndexOf('-') + 1);
+    File[] staleReports = fullReportFile.getParentFile().listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return file.getName().startsWith(prefix) && !file.equals(fullReportFile);
       }
-      if (inputFile == null) {
-        logSkippedIssueOutsideOfSonarQube(issue, file);
-      } else if (reSharperConf.languageKey().equals(inputFile.language())) {
-        Issuable issuable = perspectives.as(Issuable.class, inputFile);
-        if (issuable == null) {
-          logSkippedIssueOutsideOfSonarQube(issue, file);
-        } else if (!enabledRuleKeys().contains(issue.ruleKey())) {
-          logSkippedIssue(issue, "because the rule \"" + issue.ruleKey() + "\" is either missing or inactive in the quality profile.");
-        } else {
-          issuable.addIssue(
-            issuable.newIssueBuilder()
-              .ruleKey(RuleKey.of(reSharperConf.repositoryKey(), issue.ruleKey()))
-              .line(issue.line())
-              .message(issue.message())
-              .build());
+    });
+    if (staleReports != null) {
+      for (File staleReport : staleReports) {
+        if (!staleReport.delete()) {
+          LOG.debug("Unable to delete " + staleReport.getAbsolutePath());
         }
       }
     }
   }
 
-  private static boolean hasFileAndLine(ReSharperIssue issue) {
-    return issue.filePath() != null && issue.line() != null;
+  private static void copy(File from, File to) {
+    try {
+      Files.copy(from, to);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to copy " + from.getAbsolutePath() + " to " + to.getAbsolutePath(), e);
+    }
   }
 
-  private static void logSkippedIssueOutsideOfSonarQube(ReSharperIssue issue, File file) {
-    logSkippedIssue(issue, "whose file \"" + file.getAbsolutePath() + "\" is not in SonarQube.");
+  private void report(ReSharperSensorMetrics metrics) {
+    metrics.stop();
+    LOG.info("ReSharper analysis: " + metrics.summary());
+    if (LOG.isDebugEnabled()) {
+      for (SkipReason reason : SkipReason.values()) {
+        long skipped = metrics.issuesSkipped(reason);
+        if (skipped > 0) {
+          LOG.debug("Skipped " + skipped + " ReSharper issues " + reason.description() + ", for example: " + Joiner.on("; ").join(metrics.samples(reason)));
+        }
+      }
+    }
+    metrics.writeJson(metricsFile());
   }
 
-  private static void logSkippedIssue(ReSharperIssue issue, String reason) {
-    LOG.debug("Skipping the ReSharper issue at line " + issue.reportLine() + " " + reason);
+  @VisibleForTesting
+  File metricsFile() {
+    return new File(fileSystem.workDir(), "resharper-" + reSharperConf.languageKey() + "-metrics.json");
   }
 
-  private List<String> enabledRuleKeys() {
-    ImmutableList.Builder<String> builder = ImmutableList.builder();
-    for (ActiveRule activeRule : profile.getActiveRulesByRepository(reSharperConf.repositoryKey())) {
-      builder.add(activeRule.getRuleKey());
+  /**
+   * @param filter the pre-filter of the parser, so that the issues of inactive rules are not even read
+   * @param readers the number of sensors of this module which read each report, when the reports may be shared with other modules
+   * and languages, in which case each is parsed only once, and several of them concurrently; or null to stream the issues of the reports
+   */
+  private void parseReports(FileProvider fileProvider, final ReSharperReportParser parser, List<File> reportFiles, ReSharperActiveRules activeRules,
+    final ReSharperIssueFilter filter, @Nullable Map<File, Integer> readers, ReSharperSensorMetrics metrics) {
+    for (File reportFile : reportFiles) {
+      LOG.info("Parsing ReSharper report: " + reportFile);
     }
-    return builder.build();
+    File solutionFile = new File(settings.getString(ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY));
+    ReSharperFileResolver resolver = new ReSharperFileResolver(fileSystem, reSharperConf.languageKey(), fileProvider, solutionFile);
+    final String projectName = settings.getString(ReSharperPlugin.PROJECT_NAME_SONAR_PROPERTY_KEY);
+    LOG.info(ReSharperPlugin.PROJECT_NAME_SONAR_PROPERTY_KEY + " " + projectName);
+    final IssueEmitter emitter = new IssueEmitter(resolver, activeRules, metrics);
+    int pipelineThreads = settings.getInt(ReSharperPlugin.PIPELINE_THREADS_PROPERTY_KEY);
+    if (pipelineThreads > 0) {
+      final List<File> files = reportFiles;
+      final Map<File, Integer> shared = readers;
+      final Stopwatch parsing = metrics.stopwatch(Phase.PARSE);
+      ReSharperIssuePipeline pipeline = new ReSharperIssuePipeline(resolver, pipelineThreads);
+      pipeline.run(new ReSharperIssuePipeline.Producer() {
+        @Override
+        public void produce(ReSharperIssuePipeline.Sink sink) {
+          // Includes the time spent waiting for the resolvers and the writer to catch up
+          parsing.start();
+          try {
+            readReports(parser, files, projectName, filter, shared, sink);
+          } finally {
+            parsing.stop();
+          }
+        }
+      }, emitter);
+      metrics.addElapsed(Phase.RESOLVE, pipeline.resolvingNanos());
+    } else {
+      Stopwatch parsing = metrics.stopwatch(Phase.PARSE).start();
+      readReports(parser, reportFiles, projectName, filter, readers, emitter);
+      parsing.stop();
+    }
+    metrics.resolved(resolver.resolvedPaths(), resolver.resolvedFiles());
+  }
+
+  private <H extends ReSharperIssueHandler & ReSharperReportLoader.ReportHandler<ReSharperIssueStore>> void readReports(final ReSharperReportParser parser,
+    List<File> reportFiles, final String projectName, final ReSharperIssueFilter filter, @Nullable final Map<File, Integer> readers, H handler) {
+    if (readers != null) {
+      new ReSharperReportLoader(settings.getInt(ReSharperPlugin.REPORT_PARSING_THREADS_PROPERTY_KEY)).load(reportFiles, new Function<File, ReSharperIssueStore>() {
+        @Override
+        public ReSharperIssueStore apply(File reportFile) {
+          return reportCache.issues(parser, reportFile, projectName, filter, readers.get(reportFile));
+        }
+      }, handler);
+    } else {
+      for (File reportFile : reportFiles) {
+        parser.parse(reportFile, projectName, filter, handler);
+      }
+    }
+  }
+
+  private class IssueEmitter implements ReSharperIssueHandler, ReSharperReportLoader.ReportHandler<ReSharperIssueStore>, ReSharperIssuePipeline.Writer {
+
+    private final ReSharperFileResolver resolver;
+    private final ReSharperActiveRules activeRules;
+    private final ReSharperSensorMetrics metrics;
+    private final Stopwatch parsing;
+    private final Stopwatch resolving;
+    private final Stopwatch adding;
+    private final boolean sampling = LOG.isDebugEnabled();
+    private final Map<InputFile, Issuable> issuables = Maps.newHashMap();
+
+    IssueEmitter(ReSharperFileResolver resolver, ReSharperActiveRules activeRules, ReSharperSensorMetrics metrics) {
+      this.resolver = resolver;
+      this.activeRules = activeRules;
+      this.metrics = metrics;
+      this.parsing = metrics.stopwatch(Phase.PARSE);
+      this.resolving = metrics.stopwatch(Phase.RESOLVE);
+      this.adding = metrics.stopwatch(Phase.ISSUES);
+    }
+
+    @Override
+    public void handle(ReSharperIssue issue) {
+      // The issues are handled while the reports are being parsed: that time is not parsing time
+      boolean parsingRunning = parsing.isRunning();
+      if (parsingRunning) {
+        parsing.stop();
+      }
+      metrics.issueRead();
+      Integer line = issue.line();
+      emit(issue.reportLine(), issue.ruleKey(), issue.filePath(), line != null, line == null ? 0 : line, issue.message());
+      if (parsingRunning) {
+        parsing.start();
+      }
+    }
+
+    /**
+     * Reads the issues column by column, without creating any {@link ReSharperIssue}, and file by file:
+     * the path of each file is resolved, and its {@link Issuable} looked up, once for all its issues.
+     */
+    @Override
+    public void handle(ReSharperIssueStore issues) {
+      boolean parsingRunning = parsing.isRunning();
+      if (parsingRunning) {
+        parsing.stop();
+      }
+      int[] rows = issues.rowsByFile();
+      int from = 0;
+      while (from < rows.length) {
+        int fileId = issues.fileId(rows[from]);
+        int to = from + 1;
+        while (to < rows.length && issues.fileId(rows[to]) == fileId) {
+          to++;
+        }
+        emitFile(issues, rows, from, to);
+        from = to;
+      }
+      if (parsingRunning) {
+        parsing.start();
+      }
+    }
+
+    /**
+     * Writes an issue whose file path has already been resolved by the pipeline.
+     */
+    @Override
+    public void write(ReSharperIssueStore issues, int row, @Nullable ReSharperFileResolver.Resolution resolution) {
+      metrics.issueRead();
+      String filePath = issues.filePath(row);
+      if (resolution == null) {
+        skip(SkipReason.NO_FILE_OR_LINE, issues.reportLine(row), issues.ruleKey(row), filePath, null);
+        return;
+      }
+      resolving.start();
+      Issuable issuable = issuable(resolution.inputFile());
+      resolving.stop();
+      emit(issuable, resolution, issues.reportLine(row), issues.ruleKey(row), filePath, issues.line(row), issues.message(row));
+    }
+
+    /**
+     * @param rows the rows of the issues of a same file path, from the given index included to the given one excluded
+     */
+    private void emitFile(ReSharperIssueStore issues, int[] rows, int from, int to) {
+      String filePath = issues.filePath(rows[from]);
+      ReSharperFileResolver.Resolution resolution = null;
+      Issuable issuable = null;
+      for (int i = from; i < to; i++) {
+        int row = rows[i];
+        metrics.issueRead();
+        if (filePath == null || !issues.hasLine(row)) {
+          skip(SkipReason.NO_FILE_OR_LINE, issues.reportLine(row), issues.ruleKey(row), filePath, null);
+          continue;
+        }
+        if (resolution == null) {
+          resolving.start();
+          resolution = resolver.resolve(filePath);
+          issuable = issuable(resolution.inputFile());
+          resolving.stop();
+        }
+        emit(issuable, resolution, issues.reportLine(row), issues.ruleKey(row), filePath, issues.line(row), issues.message(row));
+      }
+    }
+
+    private void emit(int reportLine, String ruleKeyString, @Nullable String filePath, boolean hasLine, int line, String message) {
+      if (filePath == null || !hasLine) {
+        skip(SkipReason.NO_FILE_OR_LINE, reportLine, ruleKeyString, filePath, null);
+        return;
+      }
+
+      resolving.start();
+      ReSharperFileResolver.Resolution resolution = resolver.resolve(filePath);
+      Issuable issuable = issuable(resolution.inputFile());
+      resolving.stop();
+      emit(issuable, resolution, reportLine, ruleKeyString, filePath, line, message);
+    }
+
+    private void emit(@Nullable Issuable issuable, ReSharperFileResolver.Resolution resolution, int reportLine, String ruleKeyString, String filePath,
+      int line, String message) {
+      if (issuable == null) {
+        if (resolution.isRejected()) {
+          metrics.issueRejectedByPathIndex();
+        }
+        skip(SkipReason.NOT_IN_SONARQUBE, reportLine, ruleKeyString, filePath, resolution.file());
+        return;
+      }
+
+      RuleKey ruleKey = activeRules.ruleKey(ruleKeyString);
+      if (ruleKey == null) {
+        skip(SkipReason.INACTIVE_RULE, reportLine, ruleKeyString, filePath, null);
+      } else {
+        adding.start();
+        issuable.addIssue(
+          issuable.newIssueBuilder()
+            .ruleKey(ruleKey)
+            .line(line)
+            .message(message)
+            .build());
+        adding.stop();
+        metrics.issueAdded();
+      }
+    }
+
+    /**
+     * The perspective of each input file is looked up once, however many issues and report paths it has.
+     */
+    @CheckForNull
+    private Issuable issuable(@Nullable InputFile inputFile) {
+      if (inputFile == null) {
+        return null;
+      }
+      Issuable issuable = issuables.get(inputFile);
+      if (issuable == null && !issuables.containsKey(inputFile)) {
+        issuable = perspectives.as(Issuable.class, inputFile);
+        issuables.put(inputFile, issuable);
+      }
+      return issuable;
+    }
+
+    /**
+     * Only counts the skipped issue, unless debug logging is enabled and examples of this reason are still missing.
+     */
+    private void skip(SkipReason reason, int reportLine, String ruleKey, @Nullable String filePath, @Nullable File file) {
+      metrics.issueSkipped(reason);
+      if (sampling && metrics.needsSample(reason)) {
+        metrics.sample(reason, sample(reportLine, ruleKey, filePath, file));
+      }
+    }
+
+  }
+
+  private static String sample(int reportLine, String ruleKey, @Nullable String filePath, @Nullable File file) {
+    return "line " + reportLine + " of the report (" + ruleKey + " in " + (file == null ? filePath : file.getAbsolutePath()) + ")";
+  }
+
+  private ReSharperActiveRules activeRules(ReSharperSensorMetrics metrics) {
+    Stopwatch stopwatch = metrics.stopwatch(Phase.ACTIVE_RULES).start();
+    ReSharperActiveRules activeRules = ReSharperActiveRules.of(profile, reSharperConf.repositoryKey());
+    stopwatch.stop();
+    return activeRules;
   }
 
   private static void checkProperty(Settings settings, String property) {
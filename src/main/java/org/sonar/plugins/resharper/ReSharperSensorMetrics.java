@@ -0,0 +1,274 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall time of each phase of a {@link ReSharperSensor} execution, and counts of the issues it read, skipped and added.
+ */
+public class ReSharperSensorMetrics {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReSharperSensorMetrics.class);
+
+  public enum Phase {
+    ACTIVE_RULES("activeRules"),
+    DOT_SETTINGS("dotSettings"),
+    INSPECTCODE("inspectcode"),
+    PARSE("parse"),
+    RESOLVE("resolve"),
+    ISSUES("issues");
+
+    private final String key;
+
+    Phase(String key) {
+      this.key = key;
+    }
+
+    public String key() {
+      return key;
+    }
+  }
+
+  public enum SkipReason {
+    NO_FILE_OR_LINE("noFileOrLine", "which have no associated file or line"),
+    NOT_IN_SONARQUBE("notInSonarQube", "whose file is not in SonarQube"),
+    INACTIVE_RULE("inactiveRule", "whose rule is either missing or inactive in the quality profile");
+
+    private final String key;
+    private final String description;
+
+    SkipReason(String key, String description) {
+      this.key = key;
+      this.description = description;
+    }
+
+    public String key() {
+      return key;
+    }
+
+    public String description() {
+      return description;
+    }
+  }
+
+  public static final int MAX_SAMPLES = 10;
+
+  private final Stopwatch total = new Stopwatch().start();
+  private final Map<Phase, Stopwatch> stopwatches = new EnumMap<Phase, Stopwatch>(Phase.class);
+  private final long[] addedNanos = new long[Phase.values().length];
+  private final long[] skipped = new long[SkipReason.values().length];
+  private final Map<SkipReason, List<String>> samples = new EnumMap<SkipReason, List<String>>(SkipReason.class);
+  private long issuesRead;
+  private long issuesAdded;
+  private long issuesRejectedByPathIndex;
+  private int pathsResolved;
+  private int filesResolved;
+
+  public ReSharperSensorMetrics() {
+    for (Phase phase : Phase.values()) {
+      stopwatches.put(phase, new Stopwatch());
+    }
+  }
+
+  /**
+   * @return the stopwatch of the given phase, which can be started and stopped any number of times
+   */
+  public Stopwatch stopwatch(Phase phase) {
+    return stopwatches.get(phase);
+  }
+
+  /**
+   * Adds time spent in the given phase by other threads, on top of the time of its stopwatch.
+   */
+  public void addElapsed(Phase phase, long nanos) {
+    addedNanos[phase.ordinal()] += nanos;
+  }
+
+  public long elapsedMillis(Phase phase) {
+    return TimeUnit.NANOSECONDS.toMillis(stopwatches.get(phase).elapsedTime(TimeUnit.NANOSECONDS) + addedNanos[phase.ordinal()]);
+  }
+
+  public long totalMillis() {
+    return total.elapsedTime(TimeUnit.MILLISECONDS);
+  }
+
+  public void issueRead() {
+    issuesRead++;
+  }
+
+  public void issueSkipped(SkipReason reason) {
+    skipped[reason.ordinal()]++;
+  }
+
+  /**
+   * Counts an issue skipped as not in SonarQube, which was rejected by the index of file names without resolving its path.
+   */
+  public void issueRejectedByPathIndex() {
+    issuesRejectedByPathIndex++;
+  }
+
+  /**
+   * @return whether {@link #sample(SkipReason, String)} would still keep an example of the issues skipped for this reason
+   */
+  public boolean needsSample(SkipReason reason) {
+    List<String> reasonSamples = samples.get(reason);
+    return reasonSamples == null || reasonSamples.size() < MAX_SAMPLES;
+  }
+
+  /**
+   * Keeps an example of the issues skipped for this reason, up to {@link #MAX_SAMPLES} of them.
+   */
+  public void sample(SkipReason reason, String example) {
+    List<String> reasonSamples = samples.get(reason);
+    if (reasonSamples == null) {
+      reasonSamples = Lists.newArrayList();
+      samples.put(reason, reasonSamples);
+    }
+    if (reasonSamples.size() < MAX_SAMPLES) {
+      reasonSamples.add(example);
+    }
+  }
+
+  public List<String> samples(SkipReason reason) {
+    List<String> reasonSamples = samples.get(reason);
+    return reasonSamples == null ? Collections.<String>emptyList() : Collections.unmodifiableList(reasonSamples);
+  }
+
+  public void issueAdded() {
+    issuesAdded++;
+  }
+
+  public void resolved(int paths, int files) {
+    this.pathsResolved = paths;
+    this.filesResolved = files;
+  }
+
+  public long issuesRead() {
+    return issuesRead;
+  }
+
+  public long issuesSkipped(SkipReason reason) {
+    return skipped[reason.ordinal()];
+  }
+
+  public long issuesSkipped() {
+    long result = 0;
+    for (long count : skipped) {
+      result += count;
+    }
+    return result;
+  }
+
+  public long issuesAdded() {
+    return issuesAdded;
+  }
+
+  public long issuesRejectedByPathIndex() {
+    return issuesRejectedByPathIndex;
+  }
+
+  public int pathsResolved() {
+    return pathsResolved;
+  }
+
+  public int filesResolved() {
+    return filesResolved;
+  }
+
+  /**
+   * Stops the total wall time, from the creation of these metrics.
+   */
+  public void stop() {
+    if (total.isRunning()) {
+      total.stop();
+    }
+  }
+
+  public String summary() {
+    List<String> reasons = Lists.newArrayList();
+    for (SkipReason reason : SkipReason.values()) {
+      reasons.add(reason.key() + ": " + issuesSkipped(reason));
+    }
+    List<String> phases = Lists.newArrayList();
+    for (Phase phase : Phase.values()) {
+      phases.add(phase.key() + ": " + elapsedMillis(phase) + " ms");
+    }
+    return issuesRead + " issues read, " + issuesAdded + " added, " + issuesSkipped() + " skipped (" + Joiner.on(", ").join(reasons) + "), " +
+      issuesRejectedByPathIndex + " rejected by the path index, " +
+      pathsResolved + " distinct paths resolved to " + filesResolved + " files, in " + totalMillis() + " ms (" + Joiner.on(", ").join(phases) + ")";
+  }
+
+  /**
+   * Writes these metrics as a JSON object. Its keys are constants and its values numbers, so that nothing needs escaping.
+   * A failure to write the file only loses the metrics: it is logged, never thrown.
+   */
+  public void writeJson(File file) {
+    List<String> phases = Lists.newArrayList();
+    for (Phase phase : Phase.values()) {
+      phases.add(jsonProperty(phase.key() + "Millis", elapsedMillis(phase)));
+    }
+    List<String> reasons = Lists.newArrayList();
+    for (SkipReason reason : SkipReason.values()) {
+      reasons.add(jsonProperty(reason.key(), issuesSkipped(reason)));
+    }
+
+    StringBuilder json = new StringBuilder();
+    json.append('{')
+      .append(jsonProperty("totalMillis", totalMillis())).append(',')
+      .append("\"phases\":{").append(Joiner.on(',').join(phases)).append("},")
+      .append("\"issues\":{")
+      .append(jsonProperty("read", issuesRead)).append(',')
+      .append(jsonProperty("added", issuesAdded)).append(',')
+      .append(jsonProperty("skipped", issuesSkipped())).append(',')
+      .append("\"skippedByReason\":{").append(Joiner.on(',').join(reasons)).append("},")
+      .append(jsonProperty("rejectedByPathIndex", issuesRejectedByPathIndex)).append("},")
+      .append("\"files\":{")
+      .append(jsonProperty("pathsResolved", pathsResolved)).append(',')
+      .append(jsonProperty("filesResolved", filesResolved))
+      .append("}}");
+
+    try {
+      Files.createParentDirs(file);
+      Files.write(json, file, Charsets.UTF_8);
+    } catch (IOException e) {
+      LOG.warn("Unable to write the ReSharper sensor metrics " + file.getAbsolutePath(), e);
+    }
+  }
+
+  private static String jsonProperty(String name, long value) {
+    return "\"" + name + "\":" + value;
+  }
+
+}
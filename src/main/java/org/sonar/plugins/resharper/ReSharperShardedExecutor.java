@@ -0,0 +1,219 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.utils.command.TimeoutException;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inspects each project of a solution with an inspectcode.exe process of its own, on a bounded pool of threads,
+ * then concatenates the reports of all the projects into a single report.
+ * <p>
+ * Each process has its own timeout, and its own caches home if any. A failed project fails the whole inspection once the other ones are over,
+ * since SonarQube would otherwise close all the issues of that project.
+ */
+public class ReSharperShardedExecutor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReSharperShardedExecutor.class);
+
+  /**
+   * inspectcode.exe runs on several threads itself, so that each of its processes gets that many cores by default
+   */
+  static final int CORES_PER_PROCESS = 2;
+
+  private final ReSharperExecutor executor;
+  private final int threads;
+
+  /**
+   * @param threads the maximum number of inspectcode.exe processes run concurrently
+   */
+  public ReSharperShardedExecutor(ReSharperExecutor executor, int threads) {
+    this.executor = executor;
+    this.threads = threads;
+  }
+
+  /**
+   * @return the number of available cores divided by {@link #CORES_PER_PROCESS}, and at least 1
+   */
+  public static int defaultThreads() {
+    return Math.max(1, Runtime.getRuntime().availableProcessors() / CORES_PER_PROCESS);
+  }
+
+  /**
+   * @param projects the names of the projects to inspect, each by a process of its own
+   * @param timeout the timeout of each process, in minutes
+   * @return the outcome of each project, in the order of the projects
+   */
+  public List<Shard> execute(final String executable, List<String> projects, final String solutionFile, final File rulesetFile, File reportFile,
+    final int timeout, final List<String> includes) {
+    if (projects.isEmpty()) {
+      throw new IllegalStateException("No project to inspect in the solution " + solutionFile);
+    }
+    int poolSize = Math.min(Math.max(1, threads), projects.size());
+    LOG.info("Inspecting the " + projects.size() + " projects of the solution with up to " + poolSize + " concurrent inspectcode.exe processes");
+
+    ExecutorService pool = Executors.newFixedThreadPool(poolSize, new ThreadFactoryBuilder()
+      .setNameFormat("resharper-inspectcode-%d")
+      .setDaemon(true)
+      .build());
+    final ReSharperCachesHome cachesHome = executor.cachesHome();
+    List<Shard> shards = Lists.newArrayList();
+    try {
+      List<Future<Shard>> futures = Lists.newArrayList();
+      for (int i = 0; i < projects.size(); i++) {
+        final String project = projects.get(i);
+        final File shardReportFile = new File(reportFile.getAbsolutePath() + ".shard-" + i + ".xml");
+        futures.add(pool.submit(new Callable<Shard>() {
+          @Override
+          public Shard call() {
+            Stopwatch stopwatch = new Stopwatch().start();
+            RuntimeException failure = null;
+            try {
+              executor.execute(executable, project, solutionFile, rulesetFile, shardReportFile, timeout, includes,
+                cachesHome == null ? null : cachesHome.use(cachesHome.projectDirectory(project)));
+            } catch (RuntimeException e) {
+              failure = e;
+            }
+            return new Shard(project, shardReportFile, stopwatch.elapsedTime(TimeUnit.MILLISECONDS), failure);
+          }
+        }));
+      }
+      for (Future<Shard> future : futures) {
+        shards.add(get(future));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    List<File> shardReportFiles = Lists.newArrayList();
+    List<Shard> failedShards = Lists.newArrayList();
+    for (Shard shard : shards) {
+      log(shard, timeout);
+      if (shard.failure() == null) {
+        shardReportFiles.add(shard.reportFile());
+      } else {
+        failedShards.add(shard);
+      }
+    }
+    try {
+      if (!failedShards.isEmpty()) {
+        throw new IllegalStateException("inspectcode.exe failed on " + failedShards.size() + " of the " + shards.size() + " projects: "
+          + Joiner.on(", ").join(failedShards), failedShards.get(0).failure());
+      }
+      ReSharperReportMerger.concatenate(shardReportFiles, reportFile);
+    } finally {
+      for (Shard shard : shards) {
+        if (shard.reportFile().exists() && !shard.reportFile().delete()) {
+          LOG.debug("Unable to delete " + shard.reportFile().getAbsolutePath());
+        }
+      }
+    }
+    return ImmutableList.copyOf(shards);
+  }
+
+  private static void log(Shard shard, int timeout) {
+    if (shard.isTimedOut()) {
+      LOG.error("inspectcode.exe timed out after " + timeout + " minutes on the project " + shard.project());
+    } else if (shard.failure() != null) {
+      LOG.error("inspectcode.exe failed on the project " + shard.project() + " after " + shard.elapsedMillis() + " ms: " + shard.failure().getMessage());
+    } else {
+      LOG.info("inspectcode.exe inspected the project " + shard.project() + " in " + shard.elapsedMillis() + " ms");
+    }
+  }
+
+  private static <T> T get(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Throwables.propagate(e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  /**
+   * The outcome of the inspection of a project.
+   */
+  public static class Shard {
+
+    private final String project;
+    private final File reportFile;
+    private final long elapsedMillis;
+    private final RuntimeException failure;
+
+    Shard(String project, File reportFile, long elapsedMillis, @Nullable RuntimeException failure) {
+      this.project = project;
+      this.reportFile = reportFile;
+      this.elapsedMillis = elapsedMillis;
+      this.failure = failure;
+    }
+
+    public String project() {
+      return project;
+    }
+
+    public File reportFile() {
+      return reportFile;
+    }
+
+    public long elapsedMillis() {
+      return elapsedMillis;
+    }
+
+    /**
+     * @return the failure of the inspection, or null if it succeeded
+     */
+    @CheckForNull
+    public RuntimeException failure() {
+      return failure;
+    }
+
+    public boolean isTimedOut() {
+      return failure instanceof TimeoutException;
+    }
+
+    @Override
+    public String toString() {
+      return project + (isTimedOut() ? " (timed out)" : (failure != null ? " (" + failure.getMessage() + ")" : ""));
+    }
+
+  }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the names of the projects of a Visual Studio solution file.
+ */
+public class ReSharperSolutionFile {
+
+  /**
+   * Project("{type GUID}") = "name", "path", "{project GUID}"
+   */
+  private static final Pattern PROJECT = Pattern.compile("^\\s*Project\\(\"\\{([^}]*)\\}\"\\)\\s*=\\s*\"([^\"]*)\"");
+  private static final String SOLUTION_FOLDER_TYPE = "2150E333-8FDC-42A3-9474-1A3956D46DE8";
+
+  private ReSharperSolutionFile() {
+  }
+
+  /**
+   * @return the names of the projects of the solution, in solution order, without its solution folders
+   */
+  public static ImmutableList<String> projects(File solutionFile) {
+    ImmutableList.Builder<String> projects = ImmutableList.builder();
+    try {
+      for (String line : Files.readLines(solutionFile, Charsets.UTF_8)) {
+        Matcher matcher = PROJECT.matcher(line);
+        if (matcher.find() && !SOLUTION_FOLDER_TYPE.equalsIgnoreCase(matcher.group(1))) {
+          projects.add(matcher.group(2));
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read the solution file " + solutionFile.getAbsolutePath(), e);
+    }
+    return projects.build();
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns consecutive ids, from zero, to distinct strings.
+ */
+public class ReSharperStringDictionary {
+
+  private final Map<String, Integer> ids = Maps.newHashMap();
+  private final List<String> strings = Lists.newArrayList();
+
+  public int id(String string) {
+    Integer id = ids.get(string);
+    if (id == null) {
+      id = strings.size();
+      ids.put(string, id);
+      strings.add(string);
+    }
+    return id;
+  }
+
+  public int size() {
+    return strings.size();
+  }
+
+  /**
+   * @return the strings, indexed by id
+   */
+  public String[] toArray() {
+    return strings.toArray(new String[strings.size()]);
+  }
+
+}
@@ -52,8 +52,9 @@ public class VBNetReSharperProvider {
 
   public static class VBNetReSharperSensor extends ReSharperSensor {
 
-    public VBNetReSharperSensor(Settings settings, RulesProfile profile, FileSystem fileSystem, ResourcePerspectives perspectives) {
-      super(RESHARPER_CONF, settings, profile, fileSystem, perspectives);
+    public VBNetReSharperSensor(Settings settings, RulesProfile profile, FileSystem fileSystem, ResourcePerspectives perspectives,
+      ReSharperReportCache reportCache, ReSharperInspectCodeRuns inspectCodeRuns) {
+      super(RESHARPER_CONF, settings, profile, fileSystem, perspectives, reportCache, inspectCodeRuns);
     }
 
   }
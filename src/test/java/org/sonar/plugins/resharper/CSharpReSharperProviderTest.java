@@ -87,7 +87,8 @@ public class CSharpReSharperProviderTest {
 
   @Test
   public void testSensorInstantiation() throws Exception {
-    CSharpReSharperSensor sensor = new CSharpReSharperSensor(new Settings(), mock(RulesProfile.class), new DefaultFileSystem(), mock(ResourcePerspectives.class));
+    CSharpReSharperSensor sensor = new CSharpReSharperSensor(new Settings(), mock(RulesProfile.class), new DefaultFileSystem(), mock(ResourcePerspectives.class),
+      new ReSharperReportCache(), new ReSharperInspectCodeRuns());
     ReSharperConfiguration configuration = sensor.getConfiguration();
     assertThat(configuration.languageKey()).isEqualTo("cs");
     assertThat(configuration.repositoryKey()).isEqualTo("resharper-cs");
@@ -0,0 +1,102 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.ActiveRule;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReSharperActiveRulesTest {
+
+  @Test
+  public void test() {
+    RulesProfile profile = mock(RulesProfile.class);
+    ImmutableList<ActiveRule> rules = ImmutableList.of(
+      mockActiveRule("AccessToDisposedClosure"),
+      mockActiveRule("RedundantUsingDirective"),
+      mockActiveRule("AccessToDisposedClosure"));
+    when(profile.getActiveRulesByRepository("foo-resharper")).thenReturn(rules);
+
+    ReSharperActiveRules activeRules = ReSharperActiveRules.of(profile, "foo-resharper");
+
+    assertThat(activeRules.repositoryKey()).isEqualTo("foo-resharper");
+    assertThat(activeRules.isEmpty()).isFalse();
+    assertThat(activeRules.size()).isEqualTo(2);
+    assertThat(activeRules.keys()).containsExactly("AccessToDisposedClosure", "RedundantUsingDirective");
+
+    assertThat(activeRules.isActive("RedundantUsingDirective")).isTrue();
+    assertThat(activeRules.isActive("JoinDeclarationAndInitializer")).isFalse();
+    assertThat(activeRules.ruleKey("RedundantUsingDirective")).isEqualTo(RuleKey.of("foo-resharper", "RedundantUsingDirective"));
+    assertThat(activeRules.ruleKey("RedundantUsingDirective")).isSameAs(activeRules.ruleKey("RedundantUsingDirective"));
+    assertThat(activeRules.ruleKey("JoinDeclarationAndInitializer")).isNull();
+
+    verify(profile, times(1)).getActiveRulesByRepository("foo-resharper");
+  }
+
+  @Test
+  public void empty() {
+    RulesProfile profile = mock(RulesProfile.class);
+    when(profile.getActiveRulesByRepository("foo-resharper")).thenReturn(ImmutableList.<ActiveRule>of());
+
+    ReSharperActiveRules activeRules = ReSharperActiveRules.of(profile, "foo-resharper");
+
+    assertThat(activeRules.isEmpty()).isTrue();
+    assertThat(activeRules.keys()).isEmpty();
+  }
+
+  @Test
+  public void digest() {
+    ActiveRule accessToDisposedClosure = mockActiveRule("AccessToDisposedClosure");
+    ActiveRule redundantUsingDirective = mockActiveRule("RedundantUsingDirective");
+    RulesProfile profile = mock(RulesProfile.class);
+    when(profile.getActiveRulesByRepository("foo-resharper")).thenReturn(ImmutableList.of(accessToDisposedClosure, redundantUsingDirective));
+    when(profile.getActiveRulesByRepository("bar-resharper")).thenReturn(ImmutableList.of(accessToDisposedClosure, redundantUsingDirective));
+    when(profile.getActiveRulesByRepository("baz-resharper")).thenReturn(ImmutableList.of(accessToDisposedClosure));
+    String digest = digest(profile, "foo-resharper");
+
+    assertThat(digest).hasSize(16);
+    assertThat(digest(profile, "foo-resharper")).isEqualTo(digest);
+    assertThat(digest(profile, "baz-resharper")).isNotEqualTo(digest);
+    // Same rules in another repository
+    assertThat(digest(profile, "bar-resharper")).isNotEqualTo(digest);
+
+    when(profile.getActiveRulesByRepository("foo-resharper")).thenReturn(ImmutableList.of(redundantUsingDirective, accessToDisposedClosure));
+    assertThat(digest(profile, "foo-resharper")).isEqualTo(digest);
+  }
+
+  private static String digest(RulesProfile profile, String repositoryKey) {
+    return ReSharperActiveRules.digest(ImmutableList.of(repositoryKey), ReSharperActiveRules.of(profile, repositoryKey).keys());
+  }
+
+  private static ActiveRule mockActiveRule(String key) {
+    ActiveRule activeRule = mock(ActiveRule.class);
+    when(activeRule.getRuleKey()).thenReturn(key);
+    return activeRule;
+  }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.Settings;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperCachesHomeTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void create() {
+    Settings settings = new Settings();
+    assertThat(ReSharperCachesHome.create(settings)).isNull();
+
+    settings.setProperty(ReSharperPlugin.CACHES_HOME_PROPERTY_KEY, "target/caches");
+    settings.setProperty(ReSharperPlugin.CACHES_HOME_MAX_SIZE_PROPERTY_KEY, "2");
+    assertThat(ReSharperCachesHome.create(settings).directory()).isEqualTo(new File("target/caches"));
+  }
+
+  @Test
+  public void clean_up_missing_directory() {
+    assertThat(new ReSharperCachesHome(new File(tmp.getRoot(), "missing"), 0).cleanUp()).isEqualTo(0);
+  }
+
+  @Test
+  public void clean_up() throws Exception {
+    File directory = tmp.newFolder("caches");
+    long now = System.currentTimeMillis();
+    File oldest = cache(directory, "Oldest.sln", 40, now - 30000);
+    File older = cache(directory, "Older.sln", 40, now - 20000);
+    File newest = cache(directory, "Newest.sln", 40, now - 10000);
+    // Recently used entry, whatever the modification times of its files
+    oldest.setLastModified(now);
+    new File(newest, "cache.bin").setLastModified(now + 10000);
+
+    ReSharperCachesHome cachesHome = new ReSharperCachesHome(directory, 100);
+    assertThat(cachesHome.cleanUp()).isEqualTo(80);
+    assertThat(oldest.exists()).isTrue();
+    assertThat(older.exists()).isFalse();
+    assertThat(newest.exists()).isTrue();
+
+    // The most recently used cache is kept, even when it exceeds the maximum size on its own
+    cachesHome = new ReSharperCachesHome(directory, 10);
+    assertThat(cachesHome.cleanUp()).isEqualTo(40);
+    assertThat(oldest.exists()).isTrue();
+    assertThat(newest.exists()).isFalse();
+  }
+
+  @Test
+  public void keep_caches_used_since() throws Exception {
+    File directory = tmp.newFolder("caches");
+    long now = System.currentTimeMillis();
+    File old = cache(directory, "Old.sln", 40, now - 30000);
+    File first = cache(directory, "project-First", 40, now - 1000);
+    File second = cache(directory, "project-Second", 40, now);
+
+    assertThat(new ReSharperCachesHome(directory, 10).cleanUp(now - 1000)).isEqualTo(80);
+    assertThat(old.exists()).isFalse();
+    assertThat(first.exists()).isTrue();
+    assertThat(second.exists()).isTrue();
+  }
+
+  @Test
+  public void project_directory() {
+    ReSharperCachesHome cachesHome = new ReSharperCachesHome(new File("caches"), 0);
+    assertThat(cachesHome.projectDirectory("My.Library-2_x").getName()).matches("project-My\\.Library-2_x-[0-9a-f]{16}");
+    assertThat(cachesHome.projectDirectory("My Library/..").getName()).matches("project-My_Library_\\.\\.-[0-9a-f]{16}");
+    assertThat(cachesHome.projectDirectory("My Lib")).isNotEqualTo(cachesHome.projectDirectory("My_Lib"));
+    assertThat(cachesHome.projectDirectory("My Lib").getParentFile()).isEqualTo(new File("caches"));
+  }
+
+  @Test
+  public void solution_directory() {
+    ReSharperCachesHome cachesHome = new ReSharperCachesHome(new File("caches"), 0);
+    assertThat(cachesHome.solutionDirectory("src/My App.sln").getName()).matches("solution-My_App\\.sln-[0-9a-f]{16}");
+    assertThat(cachesHome.solutionDirectory("src/My App.sln")).isNotEqualTo(cachesHome.solutionDirectory("other/My App.sln"));
+  }
+
+  @Test
+  public void use() throws Exception {
+    File directory = tmp.newFolder("caches");
+    ReSharperCachesHome cachesHome = new ReSharperCachesHome(directory, 0);
+    File entry = cachesHome.use(cachesHome.projectDirectory("MyLibrary"));
+    assertThat(entry.isDirectory()).isTrue();
+
+    long lastModified = System.currentTimeMillis() - 30000;
+    entry.setLastModified(lastModified);
+    assertThat(cachesHome.use(entry).lastModified()).isGreaterThan(lastModified);
+  }
+
+  private static File cache(File directory, String solution, int size, long lastModified) throws Exception {
+    File cache = new File(directory, solution);
+    File nested = new File(cache, "nested");
+    nested.mkdirs();
+    File file = new File(nested, "cache.bin");
+    Files.write(Strings.repeat("x", size / 2), file, Charsets.UTF_8);
+    file.setLastModified(lastModified);
+    File other = new File(cache, "cache.bin");
+    Files.write(Strings.repeat("x", size / 2), other, Charsets.UTF_8);
+    other.setLastModified(lastModified);
+    nested.setLastModified(lastModified);
+    cache.setLastModified(lastModified);
+    return cache;
+  }
+
+}
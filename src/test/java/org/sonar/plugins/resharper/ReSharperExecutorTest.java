@@ -19,7 +19,13 @@
  */
 package org.sonar.plugins.resharper;
 
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.junit.Assume;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 
@@ -27,9 +33,64 @@ import static org.fest.assertions.Assertions.assertThat;
 
 public class ReSharperExecutorTest {
 
+  /**
+   * Stand-in of inspectcode.exe, which writes the canned report of the included files or of the whole project
+   */
+  static final File FAKE_INSPECTCODE = new File("src/test/resources/ReSharperExecutorTest/inspectcode.exe");
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
   @Test
   public void testGetExecutable() throws Exception {
     assertThat(ReSharperExecutor.getExecutable("a")).isEqualTo(new File("a", ReSharperExecutor.EXECUTABLE).getAbsolutePath());
     assertThat(ReSharperExecutor.getExecutable(ReSharperExecutor.EXECUTABLE)).isEqualTo(ReSharperExecutor.EXECUTABLE);
   }
+
+  @Test
+  public void execute() throws Exception {
+    assumeShellScripts();
+    File report = new File(tmp.getRoot(), "report.xml");
+
+    new ReSharperExecutor().execute(FAKE_INSPECTCODE.getParent(), "MyLibrary", "CSharpPlayground.sln", new File("ruleset.DotSettings"), report, 1);
+
+    assertThat(Files.readLines(new File(tmp.getRoot(), "report.xml.args"), Charsets.UTF_8)).containsExactly(
+      "/output=" + report.getAbsolutePath(), "/no-swea", "/project=MyLibrary", "/profile=" + new File("ruleset.DotSettings").getAbsolutePath(),
+      "/no-buildin-settings", "CSharpPlayground.sln");
+    assertThat(Files.toString(report, Charsets.UTF_8)).contains("File=\"MyLibrary\\Class2.cs\"");
+  }
+
+  @Test
+  public void execute_on_included_files() throws Exception {
+    assumeShellScripts();
+    File report = new File(tmp.getRoot(), "report.xml");
+
+    new ReSharperExecutor().execute(FAKE_INSPECTCODE.getPath(), "MyLibrary", "CSharpPlayground.sln", new File("ruleset.DotSettings"), report, 1,
+      ImmutableList.of("MyLibrary/Class1.cs", "MyLibrary/Properties/*.cs"));
+
+    assertThat(Files.readLines(new File(tmp.getRoot(), "report.xml.args"), Charsets.UTF_8))
+      .contains("/include=MyLibrary/Class1.cs;MyLibrary/Properties/*.cs");
+    assertThat(Files.toString(report, Charsets.UTF_8)).doesNotContain("Class2.cs");
+  }
+
+  @Test
+  public void execute_with_caches_home() throws Exception {
+    assumeShellScripts();
+    File report = new File(tmp.getRoot(), "report.xml");
+    File cachesHome = new File(tmp.getRoot(), "caches");
+
+    ReSharperExecutor executor = new ReSharperExecutor(new ReSharperCachesHome(cachesHome, Long.MAX_VALUE));
+    executor.execute(FAKE_INSPECTCODE.getPath(), "MyLibrary", "CSharpPlayground.sln", new File("ruleset.DotSettings"), report, 1);
+
+    File solutionCachesHome = executor.cachesHome().solutionDirectory("CSharpPlayground.sln");
+    assertThat(solutionCachesHome.getParentFile()).isEqualTo(cachesHome);
+    assertThat(Files.readLines(new File(tmp.getRoot(), "report.xml.args"), Charsets.UTF_8)).containsExactly(
+      "/output=" + report.getAbsolutePath(), "/no-swea", "/project=MyLibrary", "/profile=" + new File("ruleset.DotSettings").getAbsolutePath(),
+      "/no-buildin-settings", "/caches-home=" + solutionCachesHome.getAbsolutePath(), "CSharpPlayground.sln");
+    assertThat(new File(solutionCachesHome, "CSharpPlayground.sln/cache.bin").isFile()).isTrue();
+  }
+
+  static void assumeShellScripts() {
+    Assume.assumeTrue(!System.getProperty("os.name").startsWith("Windows") && FAKE_INSPECTCODE.canExecute());
+  }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperFileNameIndexTest {
+
+  @Test
+  public void file_names() {
+    ReSharperFileNameIndex index = new ReSharperFileNameIndex(ImmutableList.of("/src/MyLibrary/Class1.cs", "/src/MyLibrary/Properties/AssemblyInfo.cs"));
+
+    assertThat(index.mightContain("MyLibrary\\Class1.cs")).isTrue();
+    assertThat(index.mightContain("Other/Class1.cs")).isTrue();
+    assertThat(index.mightContain("CLASS1.CS")).isTrue();
+    assertThat(index.mightContain("D:\\\"D:\\MyLibrary\\Class1.cs\"")).isTrue();
+    assertThat(index.mightContain("MyLibrary\\Properties\\AssemblyInfo.cs")).isTrue();
+
+    assertThat(index.mightContain("MyLibrary\\Form1.Designer.cs")).isFalse();
+    assertThat(index.mightContain("MyLibrary\\obj\\Debug\\TemporaryGeneratedFile.cs")).isFalse();
+    assertThat(index.mightContain("MyLibrary\\Class1.cs\\")).isFalse();
+    assertThat(index.mightContain("")).isFalse();
+  }
+
+  @Test
+  public void empty() {
+    assertThat(new ReSharperFileNameIndex(ImmutableList.<String>of()).mightContain("Class1.cs")).isFalse();
+  }
+
+  @Test
+  public void many_names() {
+    ImmutableList.Builder<String> paths = ImmutableList.builder();
+    for (int i = 0; i < 10000; i++) {
+      paths.add("/src/Class" + i + ".cs");
+    }
+    ReSharperFileNameIndex index = new ReSharperFileNameIndex(paths.build());
+    for (int i = 0; i < 10000; i++) {
+      assertThat(index.mightContain("Dir\\Class" + i + ".cs")).isTrue();
+    }
+  }
+
+}
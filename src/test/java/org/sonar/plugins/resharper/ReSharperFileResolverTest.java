@@ -0,0 +1,173 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ReSharperFileResolverTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void resolve() {
+    File solutionFile = new File("src/test/resources/ReSharperFileResolverTest/MySolution.sln");
+    File baseDir = solutionFile.getAbsoluteFile().getParentFile();
+
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    DefaultInputFile class1Cs = inputFile(baseDir, "MyLibrary/Class1.cs", "cs");
+    fileSystem.add(class1Cs);
+    fileSystem.add(inputFile(baseDir, "MyLibrary/Class1.vb", "vbnet"));
+    fileSystem.add(inputFile(baseDir, "MyLibrary/Class1Test.cs", "cs").setType(InputFile.Type.TEST));
+
+    FileProvider fileProvider = spy(new FileProvider());
+    ReSharperFileResolver resolver = new ReSharperFileResolver(fileSystem, "cs", fileProvider, solutionFile);
+
+    ReSharperFileResolver.Resolution resolution = resolver.resolve("MyLibrary\\Class1.cs");
+    assertThat(resolution.inputFile()).isSameAs(class1Cs);
+    assertThat(resolution.file().getAbsolutePath()).isEqualTo(new File(baseDir, "MyLibrary/Class1.cs").getAbsolutePath());
+    assertThat(resolver.resolve("MyLibrary\\Class1.cs")).isSameAs(resolution);
+
+    assertThat(resolution.isRejected()).isFalse();
+
+    // Whatever the case and separators
+    assertThat(resolver.resolve("mylibrary/Dir/../CLASS1.cs").inputFile()).isSameAs(class1Cs);
+    assertThat(resolver.resolve(new File(baseDir, "MyLibrary/Class1.cs").getAbsolutePath().toUpperCase()).inputFile()).isSameAs(class1Cs);
+
+    resolution = resolver.resolve("Other\\Class1.cs");
+    assertThat(resolution.inputFile()).isNull();
+    assertThat(resolution.isRejected()).isFalse();
+
+    // No indexed file has these names
+    assertThat(resolver.resolve("MyLibrary\\Class1.vb").isRejected()).isTrue();
+    assertThat(resolver.resolve("MyLibrary\\Class1Test.cs").isRejected()).isTrue();
+    resolution = resolver.resolve("MyLibrary\\NonExisting.cs");
+    assertThat(resolution.isRejected()).isTrue();
+    assertThat(resolution.inputFile()).isNull();
+    assertThat(resolution.file()).isNull();
+
+    assertThat(resolver.resolvedPaths()).isEqualTo(4);
+    assertThat(resolver.resolvedFiles()).isEqualTo(1);
+    // Only the path which is not in the path index is resolved by the file provider
+    verify(fileProvider, times(1)).fileInSolution(solutionFile, "Other\\Class1.cs");
+    verify(fileProvider, times(1)).fileInSolution(Mockito.eq(solutionFile), Mockito.anyString());
+  }
+
+  @Test
+  public void resolve_path_relative_to_another_root() {
+    File solutionFile = new File("src/test/resources/ReSharperFileResolverTest/MySolution.sln");
+    File baseDir = solutionFile.getAbsoluteFile().getParentFile();
+
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    DefaultInputFile sharedCs = inputFile(baseDir, "../Shared/Common/Shared.cs", "cs");
+    fileSystem.add(sharedCs);
+    fileSystem.add(inputFile(baseDir, "MyLibrary/V1/Helpers.cs", "cs"));
+    fileSystem.add(inputFile(baseDir, "MyLibrary/V2/Helpers.cs", "cs"));
+
+    ReSharperFileResolver resolver = new ReSharperFileResolver(fileSystem, "cs", new FileProvider(), solutionFile);
+
+    ReSharperFileResolver.Resolution resolution = resolver.resolve("C:\\Agent\\Work\\Shared\\Common\\Shared.cs");
+    assertThat(resolution.inputFile()).isSameAs(sharedCs);
+    assertThat(resolution.file()).isEqualTo(sharedCs.file());
+    assertThat(resolver.resolve("Nested\\..\\..\\Common\\Shared.cs").inputFile()).isSameAs(sharedCs);
+
+    // Both V1 and V2 have a file named Helpers.cs
+    assertThat(resolver.resolve("Other\\MyLibrary\\Helpers.cs").inputFile()).isNull();
+  }
+
+  @Test
+  public void do_not_match_existing_file_by_suffix() throws Exception {
+    File solutionFile = tmp.newFile("MySolution.sln");
+    File baseDir = tmp.getRoot();
+    File excluded = new File(baseDir, "Generated/Common/Shared.cs");
+    excluded.getParentFile().mkdirs();
+    excluded.createNewFile();
+
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    DefaultInputFile sharedCs = inputFile(baseDir, "Shared/Common/Shared.cs", "cs");
+    fileSystem.add(sharedCs);
+
+    ReSharperFileResolver resolver = new ReSharperFileResolver(fileSystem, "cs", new FileProvider(), solutionFile);
+
+    // The excluded file exists in the solution: its issues are not moved to the indexed file with the same suffix
+    ReSharperFileResolver.Resolution resolution = resolver.resolve("Generated/Common/Shared.cs");
+    assertThat(resolution.inputFile()).isNull();
+    assertThat(resolution.file().getAbsolutePath()).isEqualTo(excluded.getAbsolutePath());
+    assertThat(resolver.resolve("Missing/Common/Shared.cs").inputFile()).isSameAs(sharedCs);
+  }
+
+  @Test
+  public void resolve_quoted_path() {
+    File solutionFile = new File("src/test/resources/ReSharperFileResolverTest/MySolution.sln");
+    File class1 = new File("src/test/resources/ReSharperFileResolverTest/Common Libraries/Class1.cs").getAbsoluteFile();
+
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    DefaultInputFile class1Cs = new DefaultInputFile("Common Libraries/Class1.cs").setAbsolutePath(class1.getAbsolutePath()).setLanguage("cs");
+    fileSystem.add(class1Cs);
+
+    FileProvider fileProvider = Mockito.mock(FileProvider.class);
+    File wonkyFile = Mockito.mock(File.class);
+    Mockito.when(wonkyFile.getAbsolutePath()).thenReturn("D:\\vssrc\\GregsProject\\\"" + class1.getAbsolutePath() + "\"");
+    String wonkyPath = "\"D:\\vssrc\\GregsProject\\Common Libraries\\Class1.cs\"";
+    Mockito.when(fileProvider.fileInSolution(solutionFile, wonkyPath)).thenReturn(wonkyFile);
+
+    ReSharperFileResolver resolver = new ReSharperFileResolver(fileSystem, "cs", fileProvider, solutionFile);
+    assertThat(resolver.resolve(wonkyPath).inputFile()).isSameAs(class1Cs);
+  }
+
+  @Test
+  public void resolve_quoted_path_with_path_index() {
+    File solutionFile = new File("src/test/resources/ReSharperFileResolverTest/MySolution.sln");
+    File class1 = new File("src/test/resources/ReSharperFileResolverTest/Common Libraries/Class1.cs").getAbsoluteFile();
+
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    DefaultInputFile class1Cs = new DefaultInputFile("Common Libraries/Class1.cs").setAbsolutePath(class1.getAbsolutePath()).setLanguage("cs");
+    fileSystem.add(class1Cs);
+
+    FileProvider fileProvider = spy(new FileProvider());
+    ReSharperFileResolver resolver = new ReSharperFileResolver(fileSystem, "cs", fileProvider, solutionFile);
+    assertThat(resolver.resolve("\"" + class1.getAbsolutePath().replace('/', '\\') + "\"").inputFile()).isSameAs(class1Cs);
+    verify(fileProvider, Mockito.never()).fileInSolution(Mockito.any(File.class), Mockito.anyString());
+  }
+
+  @Test
+  public void repair_quoted_path() {
+    File file = new File("foo.cs");
+    assertThat(ReSharperFileResolver.repairQuotedPath(file)).isSameAs(file);
+  }
+
+  private static DefaultInputFile inputFile(File baseDir, String relativePath, String language) {
+    return new DefaultInputFile(relativePath).setAbsolutePath(new File(baseDir, relativePath).getAbsolutePath()).setLanguage(language);
+  }
+
+}
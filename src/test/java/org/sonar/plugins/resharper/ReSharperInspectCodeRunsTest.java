@@ -0,0 +1,83 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Supplier;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReSharperInspectCodeRunsTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void run_once_per_key() throws Exception {
+    File report = tmp.newFile("report.xml");
+    File otherReport = tmp.newFile("other-report.xml");
+    Supplier<File> inspection = mockInspection(report);
+    Supplier<File> otherInspection = mockInspection(otherReport);
+
+    ReSharperInspectCodeRuns runs = new ReSharperInspectCodeRuns();
+    assertThat(runs.report("key", inspection)).isEqualTo(report);
+    assertThat(runs.report("key", inspection)).isEqualTo(report);
+    assertThat(runs.report("other", otherInspection)).isEqualTo(otherReport);
+    verify(inspection, times(1)).get();
+    verify(otherInspection, times(1)).get();
+
+    // The report was deleted since
+    report.delete();
+    runs.report("key", inspection);
+    verify(inspection, times(2)).get();
+  }
+
+  @Test
+  public void failed_run_is_run_again() throws Exception {
+    File report = tmp.newFile("report.xml");
+    Supplier<File> inspection = mockInspection(report);
+    when(inspection.get()).thenThrow(new IllegalStateException("inspectcode.exe failed")).thenReturn(report);
+
+    ReSharperInspectCodeRuns runs = new ReSharperInspectCodeRuns();
+    try {
+      runs.report("key", inspection);
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("inspectcode.exe failed");
+    }
+    assertThat(runs.report("key", inspection)).isEqualTo(report);
+    verify(inspection, times(2)).get();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Supplier<File> mockInspection(File report) {
+    Supplier<File> inspection = mock(Supplier.class);
+    when(inspection.get()).thenReturn(report);
+    return inspection;
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperIssueFilterTest {
+
+  @Test
+  public void accept_all() {
+    ReSharperIssueFilter filter = ReSharperIssueFilter.ACCEPT_ALL;
+    assertThat(filter.acceptsAll()).isTrue();
+    assertThat(filter.accepts("Rule", null)).isTrue();
+    assertThat(filter.cacheKey()).isEqualTo("all");
+  }
+
+  @Test
+  public void type_ids_and_files() {
+    ReSharperIssueFilter filter = ReSharperIssueFilter.of(ImmutableList.of("Rule1", "Rule2"));
+    assertThat(filter.acceptsAll()).isFalse();
+    assertThat(filter.hasFilePredicate()).isFalse();
+    assertThat(filter.accepts("Rule1", null)).isTrue();
+    assertThat(filter.accepts("Rule3", "Foo.cs")).isFalse();
+
+    filter = filter.withFilePredicate(Predicates.<String>notNull());
+    assertThat(filter.hasFilePredicate()).isTrue();
+    assertThat(filter.accepts("Rule1", null)).isFalse();
+    assertThat(filter.accepts("Rule2", "Foo.cs")).isTrue();
+    assertThat(filter.acceptsTypeId("Rule3")).isFalse();
+  }
+
+  @Test
+  public void cache_key() {
+    ReSharperIssueFilter filter = ReSharperIssueFilter.of(ImmutableList.of("Rule1", "Rule2"));
+    ReSharperIssueFilter sameFilter = ReSharperIssueFilter.of(ImmutableList.of("Rule2", "Rule1", "Rule1"));
+    assertThat(sameFilter).isEqualTo(filter);
+    assertThat(sameFilter.hashCode()).isEqualTo(filter.hashCode());
+    assertThat(sameFilter.cacheKey()).isEqualTo(filter.cacheKey());
+    assertThat(filter.cacheKey()).hasSize(16);
+    assertThat(ReSharperIssueFilter.of(ImmutableList.of("Rule1")).cacheKey()).isNotEqualTo(filter.cacheKey());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void file_predicates_cannot_be_cached() {
+    ReSharperIssueFilter.ACCEPT_ALL.withFilePredicate(Predicates.<String>notNull()).cacheKey();
+  }
+
+}
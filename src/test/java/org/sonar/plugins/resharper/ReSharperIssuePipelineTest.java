@@ -0,0 +1,133 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperIssuePipelineTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void writes_in_report_order_on_the_calling_thread() {
+    final int issueCount = 5 * ReSharperIssuePipeline.BATCH_SIZE + 3;
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    DefaultInputFile inputFile = new DefaultInputFile("Foo.cs").setAbsolutePath(new File("Foo.cs").getAbsolutePath()).setLanguage("cs");
+    fileSystem.add(inputFile);
+    ReSharperIssuePipeline pipeline = new ReSharperIssuePipeline(
+      new ReSharperFileResolver(fileSystem, "cs", new FileProvider(), new File("Solution.sln").getAbsoluteFile()), 3);
+
+    final Thread caller = Thread.currentThread();
+    final List<Integer> reportLines = Lists.newArrayList();
+    final List<ReSharperFileResolver.Resolution> resolutions = Lists.newArrayList();
+    pipeline.run(new ReSharperIssuePipeline.Producer() {
+      @Override
+      public void produce(ReSharperIssuePipeline.Sink sink) {
+        assertThat(Thread.currentThread()).isNotSameAs(caller);
+        // Issues handed over both one by one and as stores
+        for (int i = 0; i < issueCount; i++) {
+          sink.handle(new ReSharperIssue(i, "Rule", i % 3 == 0 ? null : "Foo.cs", i % 5 == 0 ? null : i, "Message"));
+        }
+        sink.handle(ReSharperIssueStore.copyOf(ImmutableList.of(
+          new ReSharperIssue(issueCount, "Rule", "Bar.cs", 1, "Message"),
+          new ReSharperIssue(issueCount + 1, "Rule", "Foo.cs", 1, "Message"))));
+      }
+    }, new ReSharperIssuePipeline.Writer() {
+      @Override
+      public void write(ReSharperIssueStore issues, int row, @Nullable ReSharperFileResolver.Resolution resolution) {
+        assertThat(Thread.currentThread()).isSameAs(caller);
+        reportLines.add(issues.reportLine(row));
+        resolutions.add(resolution);
+      }
+    });
+
+    assertThat(reportLines).hasSize(issueCount + 2);
+    for (int i = 0; i < issueCount + 2; i++) {
+      assertThat(reportLines.get(i)).isEqualTo(i);
+    }
+    assertThat(resolutions.get(0)).isNull();
+    assertThat(resolutions.get(3)).isNull();
+    assertThat(resolutions.get(5)).isNull();
+    assertThat(resolutions.get(1).inputFile()).isSameAs(inputFile);
+    assertThat(resolutions.get(issueCount).inputFile()).isNull();
+    assertThat(resolutions.get(issueCount + 1).inputFile()).isSameAs(inputFile);
+    assertThat(pipeline.resolvingNanos()).isGreaterThan(0);
+  }
+
+  @Test
+  public void producer_failure() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Cannot parse");
+
+    newPipeline().run(new ReSharperIssuePipeline.Producer() {
+      @Override
+      public void produce(ReSharperIssuePipeline.Sink sink) {
+        for (int i = 0; i < 2 * ReSharperIssuePipeline.BATCH_SIZE; i++) {
+          sink.handle(new ReSharperIssue(i, "Rule", "Foo.cs", 1, "Message"));
+        }
+        throw new IllegalStateException("Cannot parse");
+      }
+    }, new ReSharperIssuePipeline.Writer() {
+      @Override
+      public void write(ReSharperIssueStore issues, int row, @Nullable ReSharperFileResolver.Resolution resolution) {
+      }
+    });
+  }
+
+  @Test
+  public void writer_failure_stops_the_producer() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Cannot write");
+
+    newPipeline().run(new ReSharperIssuePipeline.Producer() {
+      @Override
+      public void produce(ReSharperIssuePipeline.Sink sink) {
+        // Far more batches than the queue holds: the producer would wait forever if it was not interrupted
+        while (true) {
+          sink.handle(new ReSharperIssue(1, "Rule", "Foo.cs", 1, "Message"));
+        }
+      }
+    }, new ReSharperIssuePipeline.Writer() {
+      @Override
+      public void write(ReSharperIssueStore issues, int row, @Nullable ReSharperFileResolver.Resolution resolution) {
+        throw new IllegalStateException("Cannot write");
+      }
+    });
+  }
+
+  private static ReSharperIssuePipeline newPipeline() {
+    return new ReSharperIssuePipeline(new ReSharperFileResolver(new DefaultFileSystem(), "cs", new FileProvider(), new File("Solution.sln")), 2);
+  }
+
+}
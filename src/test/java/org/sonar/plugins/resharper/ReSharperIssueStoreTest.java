@@ -0,0 +1,135 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperIssueStoreTest {
+
+  @Test
+  public void columns() {
+    ReSharperStringDictionary dictionary = new ReSharperStringDictionary();
+    ReSharperIssueStore issues = new ReSharperIssueStore.Builder(dictionary)
+      .add(3, "Rule1", "Foo.cs", 10, "Message")
+      .add(5, "Rule2", null, null, "Message")
+      .add(-1, "Rule1", "Foo.cs", 0, "Other message")
+      .build(dictionary.toArray());
+
+    assertThat(issues.size()).isEqualTo(3);
+    assertThat(issues.dictionarySize()).isEqualTo(5);
+
+    assertThat(issues.reportLine(0)).isEqualTo(3);
+    assertThat(issues.ruleKey(0)).isEqualTo("Rule1");
+    assertThat(issues.filePath(0)).isEqualTo("Foo.cs");
+    assertThat(issues.hasLine(0)).isTrue();
+    assertThat(issues.line(0)).isEqualTo(10);
+    assertThat(issues.message(0)).isEqualTo("Message");
+
+    assertThat(issues.fileId(1)).isEqualTo(ReSharperIssueStore.NO_FILE);
+    assertThat(issues.filePath(1)).isNull();
+    assertThat(issues.hasLine(1)).isFalse();
+    assertThat(issues.messageId(1)).isEqualTo(issues.messageId(0));
+
+    assertThat(issues.reportLine(2)).isEqualTo(-1);
+    assertThat(issues.ruleKeyId(2)).isEqualTo(issues.ruleKeyId(0));
+    assertThat(issues.fileId(2)).isEqualTo(issues.fileId(0));
+    assertThat(issues.hasLine(2)).isTrue();
+    assertThat(issues.line(2)).isEqualTo(0);
+    assertThat(issues.string(issues.messageId(2))).isEqualTo("Other message");
+  }
+
+  @Test
+  public void list() {
+    List<ReSharperIssue> expected = ImmutableList.of(
+      new ReSharperIssue(1, "Rule1", "Foo.cs", 10, "Message"),
+      new ReSharperIssue(2, "Rule2", null, null, "Message"));
+
+    ReSharperIssueStore issues = ReSharperIssueStore.copyOf(expected);
+
+    ReSharperReportCodecTest.assertEquals(ImmutableMap.of("Project", issues), ImmutableMap.of("Project", expected));
+    assertThat(ReSharperIssueStore.copyOf(issues)).isSameAs(issues);
+    assertThat(ReSharperIssueStore.empty()).isEmpty();
+  }
+
+  @Test
+  public void rows_by_file() {
+    ReSharperIssueStore issues = ReSharperIssueStore.copyOf(ImmutableList.of(
+      new ReSharperIssue(1, "Rule", "Foo.cs", 1, "Message"),
+      new ReSharperIssue(2, "Rule", "Bar.cs", 1, "Message"),
+      new ReSharperIssue(3, "Rule", null, null, "Message"),
+      new ReSharperIssue(4, "Rule", "Foo.cs", 2, "Message"),
+      new ReSharperIssue(5, "Rule", "Bar.cs", 2, "Message"),
+      new ReSharperIssue(6, "Rule", "Foo.cs", 3, "Message")));
+
+    assertThat(issues.rowsByFile()).isEqualTo(new int[] {2, 0, 3, 5, 1, 4});
+    assertThat(ReSharperIssueStore.empty().rowsByFile()).isEmpty();
+  }
+
+  @Test
+  public void rows_by_file_of_a_project_sharing_a_large_dictionary() {
+    ReSharperStringDictionary dictionary = new ReSharperStringDictionary();
+    for (int i = 0; i < 100000; i++) {
+      dictionary.id("Other" + i + ".cs");
+    }
+    ReSharperIssueStore.Builder builder = new ReSharperIssueStore.Builder(dictionary);
+    builder.add(1, "Rule", "Foo.cs", 1, "Message");
+    builder.add(2, "Rule", null, null, "Message");
+    builder.add(3, "Rule", "Bar.cs", 1, "Message");
+    builder.add(4, "Rule", "Foo.cs", 2, "Message");
+    assertThat(builder.build(dictionary.toArray()).rowsByFile()).isEqualTo(new int[] {1, 0, 3, 2});
+
+    // File ids too far apart for the counting sort
+    builder = new ReSharperIssueStore.Builder(dictionary);
+    builder.add(1, "Rule", "Other99999.cs", 1, "Message");
+    builder.add(2, "Rule", null, null, "Message");
+    builder.add(3, "Rule", "Other0.cs", 1, "Message");
+    builder.add(4, "Rule", "Other99999.cs", 2, "Message");
+    assertThat(builder.build(dictionary.toArray()).rowsByFile()).isEqualTo(new int[] {1, 2, 0, 3});
+
+    builder = new ReSharperIssueStore.Builder(dictionary);
+    builder.add(1, "Rule", null, null, "Message");
+    builder.add(2, "Rule", null, null, "Message");
+    assertThat(builder.build(dictionary.toArray()).rowsByFile()).isEqualTo(new int[] {0, 1});
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void out_of_bounds() {
+    ReSharperIssueStore.copyOf(ImmutableList.of(new ReSharperIssue(1, "Rule1", "Foo.cs", 10, "Message"))).reportLine(1);
+  }
+
+  @Test
+  public void projects_share_the_dictionary() {
+    Map<String, List<ReSharperIssue>> issuesByProject = new ReSharperReportParser().parseProjects(
+      new File("src/test/resources/ReSharperReportParserTest/report-multiple-projects.xml"));
+
+    ReSharperIssueStore first = (ReSharperIssueStore) issuesByProject.get("MyLibrary");
+    ReSharperIssueStore second = (ReSharperIssueStore) issuesByProject.get("MyLibrary.Common");
+    assertThat(first.string(first.ruleKeyId(0))).isSameAs(second.string(first.ruleKeyId(0)));
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperPathIndexTest {
+
+  @Test
+  public void key() {
+    assertThat(ReSharperPathIndex.key("D:\\Src\\MyLibrary\\Class1.cs")).isEqualTo("d:/src/mylibrary/class1.cs");
+    assertThat(ReSharperPathIndex.key("d:/src//MyLibrary/./Class1.CS")).isEqualTo("d:/src/mylibrary/class1.cs");
+    assertThat(ReSharperPathIndex.key("D:\\Src\\Other\\..\\MyLibrary\\Class1.cs")).isEqualTo("d:/src/mylibrary/class1.cs");
+    assertThat(ReSharperPathIndex.key("D:\\..\\Src\\MyLibrary\\Class1.cs")).isEqualTo("d:/src/mylibrary/class1.cs");
+    assertThat(ReSharperPathIndex.key("/src/MyLibrary/Class1.cs")).isEqualTo("/src/mylibrary/class1.cs");
+    assertThat(ReSharperPathIndex.key("/../src/a/b/../../MyLibrary/Class1.cs")).isEqualTo("/src/mylibrary/class1.cs");
+    assertThat(ReSharperPathIndex.key("\\\\server\\share\\Class1.cs")).isEqualTo("/server/share/class1.cs");
+    assertThat(ReSharperPathIndex.key("MyLibrary\\Class1.cs")).isEqualTo("mylibrary/class1.cs");
+    assertThat(ReSharperPathIndex.key("..\\..\\MyLibrary\\Class1.cs")).isEqualTo("../../mylibrary/class1.cs");
+    assertThat(ReSharperPathIndex.key("MyLibrary\\..\\..\\Class1.cs")).isEqualTo("../class1.cs");
+    assertThat(ReSharperPathIndex.key("")).isEmpty();
+    assertThat(ReSharperPathIndex.key("/")).isEqualTo("/");
+  }
+
+  @Test
+  public void key_of_quoted_paths() {
+    assertThat(ReSharperPathIndex.key("\"D:\\Src\\Common Libraries\\Class1.cs\"")).isEqualTo("d:/src/common libraries/class1.cs");
+    assertThat(ReSharperPathIndex.key("D:\\vssrc\\GregsProject\\\"D:\\vssrc\\GregsProject\\Common Libraries\\Class1.cs\""))
+      .isEqualTo("d:/vssrc/gregsproject/common libraries/class1.cs");
+    assertThat(ReSharperPathIndex.key("/src/Class1.cs\"")).isEqualTo("/src/class1.cs\"");
+    assertThat(ReSharperPathIndex.key("\"")).isEqualTo("\"");
+  }
+
+  @Test
+  public void get() {
+    File baseDir = new File("src/test/resources/ReSharperPathIndexTest").getAbsoluteFile();
+    InputFile class1 = inputFile(baseDir, "MyLibrary/Class1.cs");
+    InputFile assemblyInfo = inputFile(baseDir, "MyLibrary/Properties/AssemblyInfo.cs");
+    ReSharperPathIndex index = new ReSharperPathIndex(ImmutableList.of(class1, assemblyInfo), baseDir);
+
+    assertThat(index.size()).isEqualTo(2);
+    assertThat(index.get("MyLibrary\\Class1.cs")).isSameAs(class1);
+    assertThat(index.get("MYLIBRARY\\CLASS1.CS")).isSameAs(class1);
+    assertThat(index.get("MyLibrary\\Properties\\..\\Class1.cs")).isSameAs(class1);
+    assertThat(index.get(".\\MyLibrary\\Properties\\AssemblyInfo.cs")).isSameAs(assemblyInfo);
+    assertThat(index.get(new File(baseDir, "MyLibrary/Class1.cs").getAbsolutePath())).isSameAs(class1);
+    assertThat(index.get("\"" + new File(baseDir, "MyLibrary/Class1.cs").getAbsolutePath().replace('/', '\\') + "\"")).isSameAs(class1);
+
+    assertThat(index.get("Class1.cs")).isNull();
+    assertThat(index.get("Other\\Class1.cs")).isNull();
+    assertThat(index.get("/MyLibrary/Class1.cs")).isNull();
+  }
+
+  @Test
+  public void colliding_keys_are_not_indexed() {
+    File baseDir = new File("src/test/resources/ReSharperPathIndexTest").getAbsoluteFile();
+    InputFile class1 = inputFile(baseDir, "MyLibrary/Class1.cs");
+    InputFile class1UpperCase = inputFile(baseDir, "MyLibrary/CLASS1.cs");
+    InputFile class2 = inputFile(baseDir, "MyLibrary/Class2.cs");
+    ReSharperPathIndex index = new ReSharperPathIndex(ImmutableList.of(class1, class1UpperCase, class2), baseDir);
+
+    assertThat(index.size()).isEqualTo(1);
+    assertThat(index.get("MyLibrary\\Class1.cs")).isNull();
+    assertThat(index.get("MyLibrary\\Class2.cs")).isSameAs(class2);
+  }
+
+  private static InputFile inputFile(File baseDir, String relativePath) {
+    return new DefaultInputFile(relativePath).setAbsolutePath(new File(baseDir, relativePath).getAbsolutePath()).setLanguage("cs");
+  }
+
+}
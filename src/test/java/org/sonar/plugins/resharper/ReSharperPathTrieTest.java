@@ -0,0 +1,79 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperPathTrieTest {
+
+  private final InputFile class1 = inputFile("/src/Solution/MyLibrary/Class1.cs");
+  private final InputFile util = inputFile("/src/Shared/Common/Util.cs");
+  private final InputFile util1 = inputFile("/src/Solution/Tools/V1/Helpers.cs");
+  private final InputFile util2 = inputFile("/src/Solution/Tools/V2/Helpers.cs");
+  private final ReSharperPathTrie trie = new ReSharperPathTrie(ImmutableList.of(class1, util, util1, util2));
+
+  @Test
+  public void longest_suffix() {
+    assertThat(trie.get("MyLibrary\\Class1.cs")).isSameAs(class1);
+    assertThat(trie.get("C:\\Agent\\Work\\Solution\\MyLibrary\\Class1.cs")).isSameAs(class1);
+    assertThat(trie.get("..\\..\\Shared\\Common\\Util.cs")).isSameAs(util);
+    assertThat(trie.get("\"D:\\Work\\Shared\\Common\\Util.cs\"")).isSameAs(util);
+    assertThat(trie.get("SHARED/COMMON/UTIL.CS")).isSameAs(util);
+  }
+
+  @Test
+  public void whole_report_path() {
+    assertThat(trie.get("Class1.cs")).isSameAs(class1);
+    assertThat(trie.get("..\\Util.cs")).isSameAs(util);
+  }
+
+  @Test
+  public void not_enough_segments() {
+    assertThat(trie.get("Other\\Class1.cs")).isNull();
+    assertThat(trie.get("C:\\Other\\Class1.cs")).isNull();
+  }
+
+  @Test
+  public void no_match() {
+    assertThat(trie.get("MyLibrary\\Class2.cs")).isNull();
+    assertThat(trie.get("")).isNull();
+    assertThat(new ReSharperPathTrie(ImmutableList.<InputFile>of()).get("Class1.cs")).isNull();
+  }
+
+  @Test
+  public void ambiguous() {
+    assertThat(trie.get("Helpers.cs")).isNull();
+    assertThat(trie.get("Other\\Helpers.cs")).isNull();
+    assertThat(trie.get("C:\\Work\\Tools\\Helpers.cs")).isNull();
+
+    assertThat(trie.get("C:\\Work\\Tools\\V1\\Helpers.cs")).isSameAs(util1);
+    assertThat(trie.get("V2\\Helpers.cs")).isSameAs(util2);
+  }
+
+  private static InputFile inputFile(String absolutePath) {
+    return new DefaultInputFile(absolutePath.substring(1)).setAbsolutePath(absolutePath).setLanguage("cs");
+  }
+
+}
@@ -42,13 +42,27 @@ public class ReSharperPluginTest {
       VBNetReSharperProvider.VBNetReSharperRulesDefinition.class,
       VBNetReSharperSensor.class,
       VBNetReSharperProvider.VBNetReSharperProfileExporter.class,
-      VBNetReSharperProvider.VBNetReSharperProfileImporter.class);
+      VBNetReSharperProvider.VBNetReSharperProfileImporter.class,
+      ReSharperReportCache.class,
+      ReSharperInspectCodeRuns.class);
 
     assertThat(propertyKeys(new ReSharperPlugin().getExtensions())).containsOnly(
       "sonar.resharper.cs.reportPath",
       "sonar.resharper.vbnet.reportPath",
+      "sonar.resharper.reportParsingThreads",
+      "sonar.resharper.pipelineThreads",
+      "sonar.resharper.reportScanner",
+      "sonar.resharper.reportCacheDirectory",
+      "sonar.resharper.reportCacheMaxSizeMb",
 
       "sonar.resharper.projectName",
+      "sonar.resharper.changedFiles",
+      "sonar.resharper.changedFilesList",
+      "sonar.resharper.fullReportDirectory",
+      "sonar.resharper.cachesHome",
+      "sonar.resharper.cachesHomeMaxSizeMb",
+      "sonar.resharper.shardedInspection",
+      "sonar.resharper.shardedInspectionThreads",
       "sonar.resharper.solutionFile",
       "sonar.resharper.inspectCodePath",
       "sonar.resharper.timeoutMinutes",
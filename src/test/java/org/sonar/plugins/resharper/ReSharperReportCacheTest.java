@@ -0,0 +1,156 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ReSharperReportCacheTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void parse_once_for_all_projects() {
+    File reportFile = new File("src/test/resources/ReSharperReportParserTest/report-multiple-projects.xml");
+    ReSharperReportParser parser = spy(new ReSharperReportParser());
+    ReSharperReportCache cache = new ReSharperReportCache();
+
+    List<ReSharperIssue> issues = cache.issues(parser, reportFile, "MyLibrary");
+    assertThat(issues).hasSize(2);
+    assertThat(issues.get(0).reportLine()).isEqualTo(22);
+
+    assertThat(cache.issues(parser, reportFile, "MyLibrary.Common")).hasSize(3);
+    assertThat(cache.issues(parser, reportFile, "MyLibrary")).isSameAs(issues);
+    assertThat(cache.issues(parser, new File(reportFile.getAbsolutePath()), "MyLibrary")).isSameAs(issues);
+    assertThat(cache.issues(parser, reportFile, "Unknown")).isEmpty();
+
+    verify(parser, times(1)).parseProjects(reportFile, ReSharperIssueFilter.ACCEPT_ALL);
+  }
+
+  @Test
+  public void parse_once_per_filter() {
+    File reportFile = new File("src/test/resources/ReSharperReportParserTest/report-multiple-projects.xml");
+    ReSharperReportParser parser = spy(new ReSharperReportParser());
+    ReSharperReportCache cache = new ReSharperReportCache();
+    ReSharperIssueFilter filter = ReSharperIssueFilter.of(ImmutableList.of("JoinDeclarationAndInitializer"));
+
+    List<ReSharperIssue> issues = cache.issues(parser, reportFile, "MyLibrary", filter);
+    assertThat(issues).hasSize(1);
+    assertThat(cache.issues(parser, reportFile, "MyLibrary", ReSharperIssueFilter.of(ImmutableList.of("JoinDeclarationAndInitializer"))))
+      .isSameAs(issues);
+    assertThat(cache.issues(parser, reportFile, "MyLibrary")).hasSize(2);
+
+    verify(parser, times(1)).parseProjects(reportFile, filter);
+    verify(parser, times(1)).parseProjects(reportFile, ReSharperIssueFilter.ACCEPT_ALL);
+  }
+
+  @Test
+  public void release_projects_claimed_by_all_their_readers() {
+    File reportFile = new File("src/test/resources/ReSharperReportParserTest/report-multiple-projects.xml");
+    ReSharperReportParser parser = spy(new ReSharperReportParser());
+    ReSharperReportCache cache = new ReSharperReportCache();
+    ReSharperIssueFilter filter = ReSharperIssueFilter.ACCEPT_ALL;
+
+    List<ReSharperIssue> issues = cache.issues(parser, reportFile, "MyLibrary", filter, 2);
+    assertThat(issues).hasSize(2);
+    assertThat(cache.issues(parser, reportFile, "MyLibrary", filter, 2)).isSameAs(issues);
+    assertThat(cache.issues(parser, reportFile, "MyLibrary.Common", filter, 1)).hasSize(3);
+    verify(parser, times(1)).parseProjects(reportFile, filter);
+    verify(parser, never()).parse(Mockito.eq(reportFile), Mockito.anyString(), Mockito.eq(filter), Mockito.any(ReSharperIssueHandler.class));
+
+    // Requested once more than expected: the released project is parsed again, on its own
+    List<ReSharperIssue> again = cache.issues(parser, reportFile, "MyLibrary", filter, 2);
+    assertThat(again).isNotSameAs(issues);
+    assertThat(again).hasSize(2);
+    assertThat(again.get(0).reportLine()).isEqualTo(issues.get(0).reportLine());
+    verify(parser, times(1)).parseProjects(reportFile, filter);
+    verify(parser, times(1)).parse(Mockito.eq(reportFile), Mockito.eq("MyLibrary"), Mockito.eq(filter), Mockito.any(ReSharperIssueHandler.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void file_filters_are_not_shared() {
+    new ReSharperReportCache().issues(new ReSharperReportParser(), new File("src/test/resources/ReSharperReportParserTest/valid.xml"), "MyLibrary",
+      ReSharperIssueFilter.ACCEPT_ALL.withFilePredicate(Predicates.<String>notNull()));
+  }
+
+  @Test
+  public void parse_again_when_report_changes() throws Exception {
+    File reportFile = tmp.newFile("report.xml");
+    Files.copy(new File("src/test/resources/ReSharperReportParserTest/report-multiple-projects.xml"), reportFile);
+    ReSharperReportParser parser = spy(new ReSharperReportParser());
+    ReSharperReportCache cache = new ReSharperReportCache();
+
+    assertThat(cache.issues(parser, reportFile, "MyLibrary")).hasSize(2);
+
+    Files.copy(new File("src/test/resources/ReSharperReportParserTest/valid.xml"), reportFile);
+    assertThat(reportFile.setLastModified(reportFile.lastModified() + 10000)).isTrue();
+
+    assertThat(cache.issues(parser, reportFile, "MyLibrary")).hasSize(3);
+    verify(parser, times(2)).parseProjects(reportFile, ReSharperIssueFilter.ACCEPT_ALL);
+  }
+
+  @Test
+  public void concurrent_requests() throws Exception {
+    final File reportFile = new File("src/test/resources/ReSharperReportParserTest/report-multiple-projects.xml");
+    final File otherReportFile = new File("src/test/resources/ReSharperReportParserTest/valid.xml");
+    final ReSharperReportParser parser = spy(new ReSharperReportParser());
+    final ReSharperReportCache cache = new ReSharperReportCache();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<List<ReSharperIssue>>> futures = Lists.newArrayList();
+    for (int i = 0; i < 32; i++) {
+      final File file = i % 2 == 0 ? reportFile : otherReportFile;
+      futures.add(executor.submit(new Callable<List<ReSharperIssue>>() {
+        @Override
+        public List<ReSharperIssue> call() {
+          return cache.issues(parser, file, "MyLibrary");
+        }
+      }));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      assertThat(futures.get(i).get()).isSameAs(futures.get(i % 2).get());
+    }
+    executor.shutdown();
+
+    verify(parser, times(1)).parseProjects(reportFile, ReSharperIssueFilter.ACCEPT_ALL);
+    verify(parser, times(1)).parseProjects(otherReportFile, ReSharperIssueFilter.ACCEPT_ALL);
+  }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperReportCodecTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void round_trip() throws Exception {
+    Map<String, List<ReSharperIssue>> parsed = new ReSharperReportParser().parseProjects(
+      new File("src/test/resources/ReSharperReportParserTest/report-repeated-projects.xml"));
+
+    Map<String, List<ReSharperIssue>> read = ReSharperReportCodec.read(new ByteArrayInputStream(toBytes(parsed)));
+
+    assertEquals(read, parsed);
+  }
+
+  @Test
+  public void shares_repeated_strings() throws Exception {
+    Map<String, List<ReSharperIssue>> read = ReSharperReportCodec.read(new ByteArrayInputStream(toBytes(new ReSharperReportParser().parseProjects(
+      new File("src/test/resources/ReSharperReportParserTest/report-multiple-projects.xml")))));
+
+    List<ReSharperIssue> issues = read.get("MyLibrary.Common");
+    assertThat(issues.get(0).filePath()).isSameAs(issues.get(1).filePath());
+    assertThat(issues.get(0).ruleKey()).isSameAs(issues.get(2).ruleKey());
+  }
+
+  @Test
+  public void nulls() throws Exception {
+    Map<String, List<ReSharperIssue>> issues = ImmutableMap.<String, List<ReSharperIssue>>of(
+      "Project", ImmutableList.of(new ReSharperIssue(3, "Rule", null, null, "Message")));
+
+    assertEquals(ReSharperReportCodec.read(new ByteArrayInputStream(toBytes(issues))), issues);
+  }
+
+  @Test
+  public void read_one_project() throws Exception {
+    Map<String, List<ReSharperIssue>> parsed = new ReSharperReportParser().parseProjects(
+      new File("src/test/resources/ReSharperReportParserTest/report-multiple-projects.xml"));
+    byte[] bytes = toBytes(parsed);
+
+    for (String projectName : new String[] {"MyLibrary.Common", "MyLibrary", "Unknown"}) {
+      final ImmutableList.Builder<ReSharperIssue> issues = ImmutableList.builder();
+      ReSharperReportCodec.read(new ByteArrayInputStream(bytes), projectName, new ReSharperIssueHandler() {
+        @Override
+        public void handle(ReSharperIssue issue) {
+          issues.add(issue);
+        }
+      });
+      List<ReSharperIssue> expected = parsed.get(projectName);
+      assertEquals(ImmutableMap.of(projectName, issues.build()), ImmutableMap.of(projectName, expected == null ? ImmutableList.<ReSharperIssue>of() : expected));
+    }
+  }
+
+  @Test
+  public void varints() throws Exception {
+    int[] values = {0, 1, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE};
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int value : values) {
+      ReSharperReportCodec.writeVarint(out, value);
+    }
+    assertThat(out.size()).isEqualTo(1 + 1 + 1 + 2 + 2 + 2 + 3 + 5);
+
+    ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+    for (int value : values) {
+      assertThat(ReSharperReportCodec.readVarint(in)).isEqualTo(value);
+    }
+  }
+
+  @Test
+  public void compact() throws Exception {
+    File xmlReport = new File("src/test/resources/ReSharperReportParserTest/report-repeated-projects.xml");
+    assertThat(toBytes(new ReSharperReportParser().parseProjects(xmlReport)).length).isLessThan((int) xmlReport.length() / 2);
+  }
+
+  @Test
+  public void is_binary_report() throws Exception {
+    File binaryReport = tmp.newFile("report.bin");
+    ReSharperReportConverter.convert(new File("src/test/resources/ReSharperReportParserTest/valid.xml"), binaryReport);
+
+    assertThat(ReSharperReportCodec.isBinaryReport(binaryReport)).isTrue();
+    assertThat(ReSharperReportCodec.isBinaryReport(new File("src/test/resources/ReSharperReportParserTest/valid.xml"))).isFalse();
+    assertThat(ReSharperReportCodec.isBinaryReport(tmp.newFile("empty"))).isFalse();
+    assertThat(ReSharperReportCodec.isBinaryReport(new File("missing"))).isFalse();
+  }
+
+  @Test
+  public void unsupported_version() throws Exception {
+    thrown.expect(IOException.class);
+    thrown.expectMessage("Unsupported binary ReSharper report format version: 1");
+
+    ReSharperReportCodec.read(new ByteArrayInputStream(new byte[] {'R', 'S', 'R', 'B', 1}));
+  }
+
+  @Test
+  public void not_a_parsed_report() throws Exception {
+    thrown.expect(IOException.class);
+    thrown.expectMessage("Not a binary ReSharper report");
+
+    ReSharperReportCodec.read(new ByteArrayInputStream(new byte[] {0, 1, 2, 3, 4, 5, 6, 7}));
+  }
+
+  @Test
+  public void truncated() throws Exception {
+    thrown.expect(IOException.class);
+
+    byte[] bytes = toBytes(new ReSharperReportParser().parseProjects(new File("src/test/resources/ReSharperReportParserTest/valid.xml")));
+    byte[] truncated = new byte[bytes.length / 2];
+    System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+    ReSharperReportCodec.read(new ByteArrayInputStream(truncated));
+  }
+
+  private static byte[] toBytes(Map<String, List<ReSharperIssue>> issuesByProject) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ReSharperReportCodec.write(issuesByProject, out);
+    return out.toByteArray();
+  }
+
+  static void assertEquals(Map<String, ? extends List<ReSharperIssue>> actual, Map<String, ? extends List<ReSharperIssue>> expected) {
+    assertThat(actual.keySet()).isEqualTo(expected.keySet());
+    for (Map.Entry<String, ? extends List<ReSharperIssue>> entry : expected.entrySet()) {
+      List<ReSharperIssue> actualIssues = actual.get(entry.getKey());
+      assertThat(actualIssues).hasSize(entry.getValue().size());
+      for (int i = 0; i < actualIssues.size(); i++) {
+        ReSharperIssue actualIssue = actualIssues.get(i);
+        ReSharperIssue expectedIssue = entry.getValue().get(i);
+        assertThat(actualIssue.reportLine()).isEqualTo(expectedIssue.reportLine());
+        assertThat(actualIssue.ruleKey()).isEqualTo(expectedIssue.ruleKey());
+        assertThat(actualIssue.filePath()).isEqualTo(expectedIssue.filePath());
+        assertThat(actualIssue.line()).isEqualTo(expectedIssue.line());
+        assertThat(actualIssue.message()).isEqualTo(expectedIssue.message());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.CharStreams;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperReportConverterTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void binary_reports_are_parsed_as_the_xml_ones() throws Exception {
+    for (String name : new String[] {"valid.xml", "report-multiple-projects.xml", "report-repeated-projects.xml"}) {
+      File xmlReport = new File("src/test/resources/ReSharperReportParserTest", name);
+      File binaryReport = new File(tmp.getRoot(), name + ".bin");
+
+      ReSharperReportParser parser = new ReSharperReportParser();
+      Map<String, List<ReSharperIssue>> expected = parser.parseProjects(xmlReport);
+      int issues = ReSharperReportConverter.convert(xmlReport, binaryReport);
+
+      int expectedIssues = 0;
+      for (List<ReSharperIssue> projectIssues : expected.values()) {
+        expectedIssues += projectIssues.size();
+      }
+      assertThat(issues).isEqualTo(expectedIssues);
+      assertThat(binaryReport.length()).isLessThan(xmlReport.length());
+      ReSharperReportCodecTest.assertEquals(parser.parseProjects(binaryReport), expected);
+
+      for (String projectName : expected.keySet()) {
+        ReSharperReportCodecTest.assertEquals(
+          ImmutableMap.of(projectName, parser.parse(binaryReport, projectName)),
+          ImmutableMap.of(projectName, expected.get(projectName)));
+      }
+    }
+  }
+
+  @Test
+  public void main() {
+    File binaryReport = new File(tmp.getRoot(), "sub/report.bin");
+    ReSharperReportConverter.main(new String[] {"src/test/resources/ReSharperReportParserTest/valid.xml", binaryReport.getPath()});
+
+    assertThat(ReSharperReportCodec.isBinaryReport(binaryReport)).isTrue();
+  }
+
+  @Test
+  public void command_line() throws Exception {
+    // The classes of the plugin, with only the libraries the documented command line adds to them
+    List<String> classpath = Lists.newArrayList(new File("target/classes").getAbsolutePath());
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      String name = new File(entry).getName();
+      if (name.startsWith("guava-") || name.startsWith("slf4j-api-")) {
+        classpath.add(entry);
+      }
+    }
+    assertThat(classpath).hasSize(3);
+    File binaryReport = new File(tmp.getRoot(), "report.bin");
+
+    Process process = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+      "-cp", Joiner.on(File.pathSeparator).join(classpath), ReSharperReportConverter.class.getName(),
+      "src/test/resources/ReSharperReportParserTest/valid.xml", binaryReport.getPath())
+      .redirectErrorStream(true)
+      .start();
+    String output = CharStreams.toString(new InputStreamReader(process.getInputStream(), Charsets.UTF_8));
+
+    assertThat(process.waitFor()).as(output).isEqualTo(0);
+    assertThat(output).contains("Converted 3 issues");
+    assertThat(ReSharperReportCodec.isBinaryReport(binaryReport)).isTrue();
+  }
+
+}
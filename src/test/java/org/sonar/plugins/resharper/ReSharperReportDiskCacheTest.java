@@ -0,0 +1,138 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.Settings;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ReSharperReportDiskCacheTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void create() {
+    Settings settings = new Settings();
+    assertThat(ReSharperReportDiskCache.create(settings)).isNull();
+
+    settings.setProperty(ReSharperPlugin.REPORT_CACHE_DIRECTORY_PROPERTY_KEY, "target/cache");
+    settings.setProperty(ReSharperPlugin.REPORT_CACHE_MAX_SIZE_PROPERTY_KEY, "2");
+    ReSharperReportDiskCache cache = ReSharperReportDiskCache.create(settings);
+    assertThat(cache.directory()).isEqualTo(new File("target/cache"));
+  }
+
+  @Test
+  public void key() throws Exception {
+    File report = tmp.newFile("report.xml");
+    Files.write("<Report />", report, Charsets.UTF_8);
+    File copy = tmp.newFile("copy.xml");
+    Files.copy(report, copy);
+
+    String key = ReSharperReportDiskCache.key(report);
+    assertThat(key).matches("[0-9a-f]{64}-v" + ReSharperReportParser.VERSION + "\\." + ReSharperReportCodec.FORMAT_VERSION);
+    assertThat(ReSharperReportDiskCache.key(copy)).isEqualTo(key);
+
+    Files.write("<Report></Report>", copy, Charsets.UTF_8);
+    assertThat(ReSharperReportDiskCache.key(copy)).isNotEqualTo(key);
+  }
+
+  @Test
+  public void store_and_load() {
+    ReSharperReportDiskCache cache = new ReSharperReportDiskCache(new File(tmp.getRoot(), "cache"), Long.MAX_VALUE);
+    assertThat(cache.load("foo")).isNull();
+
+    Map<String, List<ReSharperIssue>> issues = issues("Project");
+    cache.store("foo", issues);
+    assertThat(cache.file("foo").isFile()).isTrue();
+    assertThat(cache.directory().list()).containsOnly("foo.bin");
+
+    ReSharperReportCodecTest.assertEquals(cache.load("foo"), issues);
+    assertThat(cache.load("bar")).isNull();
+  }
+
+  @Test
+  public void corrupted_entry_is_dropped() throws Exception {
+    ReSharperReportDiskCache cache = new ReSharperReportDiskCache(tmp.getRoot(), Long.MAX_VALUE);
+    Files.write("garbage", cache.file("foo"), Charsets.UTF_8);
+
+    assertThat(cache.load("foo")).isNull();
+    assertThat(cache.file("foo").exists()).isFalse();
+  }
+
+  @Test
+  public void evict_least_recently_used() {
+    ReSharperReportDiskCache unbounded = new ReSharperReportDiskCache(tmp.getRoot(), Long.MAX_VALUE);
+    unbounded.store("a", issues("A"));
+    long entrySize = unbounded.file("a").length();
+
+    ReSharperReportDiskCache cache = new ReSharperReportDiskCache(tmp.getRoot(), 2 * entrySize);
+    cache.store("b", issues("B"));
+    assertThat(cache.file("a").setLastModified(1000000000000L)).isTrue();
+    assertThat(cache.file("b").setLastModified(1000000001000L)).isTrue();
+
+    // "a" is used after "b"
+    assertThat(cache.load("a")).isNotNull();
+    cache.store("c", issues("C"));
+
+    assertThat(cache.file("a").exists()).isTrue();
+    assertThat(cache.file("b").exists()).isFalse();
+    assertThat(cache.file("c").exists()).isTrue();
+  }
+
+  @Test
+  public void parser_loads_unchanged_reports_from_the_cache() throws Exception {
+    File report = tmp.newFile("report.xml");
+    Files.copy(new File("src/test/resources/ReSharperReportParserTest/report-multiple-projects.xml"), report);
+    ReSharperReportDiskCache cache = spy(new ReSharperReportDiskCache(new File(tmp.getRoot(), "cache"), Long.MAX_VALUE));
+
+    Map<String, List<ReSharperIssue>> parsed = new ReSharperReportParser(cache, true).parseProjects(report);
+    Map<String, List<ReSharperIssue>> loaded = new ReSharperReportParser(cache, true).parseProjects(report);
+
+    ReSharperReportCodecTest.assertEquals(loaded, parsed);
+    assertThat(loaded).isNotSameAs(parsed);
+    verify(cache, times(1)).store(ReSharperReportDiskCache.key(report), parsed);
+
+    Files.copy(new File("src/test/resources/ReSharperReportParserTest/valid.xml"), report);
+    assertThat(new ReSharperReportParser(cache, true).parseProjects(report).get("MyLibrary")).hasSize(3);
+    assertThat(cache.directory().list()).hasSize(2);
+  }
+
+  private static Map<String, List<ReSharperIssue>> issues(String projectName) {
+    return ImmutableMap.<String, List<ReSharperIssue>>of(projectName, ImmutableList.of(
+      new ReSharperIssue(10, "Rule", "File.cs", 1, "Message"),
+      new ReSharperIssue(11, "Rule", "File.cs", 2, "Message")));
+  }
+
+}
@@ -0,0 +1,417 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates synthetic inspectcode reports, with the matching solution and source tree, to exercise the plugin at scale.
+ * Issues are spread over the projects and files, with TypeIds drawn from the rules of rules.xml.
+ *
+ * <p>Command line usage: ReSharperReportGenerator outputDir [--projects=N] [--files=N] [--issues=N] [--distribution=uniform|zipf]
+ * [--message-length=N] [--lines=N] [--quoted-paths=RATIO] [--slashes] [--seed=N]</p>
+ */
+public class ReSharperReportGenerator {
+
+  public enum Distribution {
+    /**
+     * Every rule is equally likely to raise an issue.
+     */
+    UNIFORM,
+    /**
+     * A few rules raise most of the issues, as in real reports.
+     */
+    ZIPF
+  }
+
+  private static final String RULES_XML = "/org/sonar/plugins/resharper/rules.xml";
+  private static final String CSHARP_PROJECT_TYPE = "{FAE04EC0-301F-11D3-BF4B-00C04F79EFBC}";
+
+  private int projectCount = 1;
+  private int fileCount = 10;
+  private long issueCount = 100;
+  private Distribution distribution = Distribution.ZIPF;
+  private int messageLength = 60;
+  private int linesPerFile = 100;
+  private double quotedPathRatio = 0;
+  private boolean backslashes = true;
+  private long seed = 42;
+
+  public ReSharperReportGenerator projects(int projectCount) {
+    this.projectCount = projectCount;
+    return this;
+  }
+
+  public ReSharperReportGenerator files(int fileCount) {
+    this.fileCount = fileCount;
+    return this;
+  }
+
+  public ReSharperReportGenerator issues(long issueCount) {
+    this.issueCount = issueCount;
+    return this;
+  }
+
+  public ReSharperReportGenerator distribution(Distribution distribution) {
+    this.distribution = distribution;
+    return this;
+  }
+
+  public ReSharperReportGenerator messageLength(int messageLength) {
+    this.messageLength = messageLength;
+    return this;
+  }
+
+  public ReSharperReportGenerator linesPerFile(int linesPerFile) {
+    this.linesPerFile = linesPerFile;
+    return this;
+  }
+
+  /**
+   * @param quotedPathRatio share of the issues whose File attribute is the quoted absolute path of the file
+   */
+  public ReSharperReportGenerator quotedPathRatio(double quotedPathRatio) {
+    this.quotedPathRatio = quotedPathRatio;
+    return this;
+  }
+
+  /**
+   * @param backslashes whether the File attributes use Windows separators, as inspectcode does
+   */
+  public ReSharperReportGenerator backslashes(boolean backslashes) {
+    this.backslashes = backslashes;
+    return this;
+  }
+
+  public ReSharperReportGenerator seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public Result generate(File dir) throws IOException {
+    if (projectCount < 1 || fileCount < projectCount) {
+      throw new IllegalArgumentException("At least one project, and one file per project, are required");
+    }
+
+    Random random = new Random(seed);
+    List<String> ruleKeys = ruleKeys();
+    RuleSampler sampler = new RuleSampler(ruleKeys.size(), distribution);
+
+    ImmutableList.Builder<String> projects = ImmutableList.builder();
+    for (int i = 0; i < projectCount; i++) {
+      projects.add("Project" + i);
+    }
+    List<String> projectNames = projects.build();
+
+    ImmutableList.Builder<String> filePaths = ImmutableList.builder();
+    for (int i = 0; i < fileCount; i++) {
+      filePaths.add(projectNames.get(i % projectCount) + "/Folder" + (i / projectCount % 10) + "/Class" + i + ".cs");
+    }
+
+    Result result = new Result(dir, new File(dir, "Generated.sln"), new File(dir, "report.xml"), projectNames, filePaths.build(), ruleKeys, issueCount);
+    writeSources(result);
+    writeSolution(result);
+    writeReport(result, random, sampler);
+    return result;
+  }
+
+  private void writeSources(Result result) throws IOException {
+    String body = Strings.repeat("    // line\n", Math.max(0, linesPerFile - 3));
+    for (String filePath : result.filePaths()) {
+      File file = result.file(filePath);
+      Files.createParentDirs(file);
+      Files.write("namespace Generated\n{\n" + body + "}\n", file, Charsets.UTF_8);
+    }
+    for (String project : result.projects()) {
+      Files.write("<Project ToolsVersion=\"4.0\" xmlns=\"http://schemas.microsoft.com/developer/msbuild/2003\">\n"
+        + "  <ItemGroup>\n    <Compile Include=\"**\\*.cs\" />\n  </ItemGroup>\n</Project>\n",
+        new File(result.baseDir(), project + "/" + project + ".csproj"), Charsets.UTF_8);
+    }
+  }
+
+  private static void writeSolution(Result result) throws IOException {
+    StringBuilder sb = new StringBuilder("\nMicrosoft Visual Studio Solution File, Format Version 11.00\n# Visual Studio 2010\n");
+    Random random = new Random(result.projects().size());
+    for (String project : result.projects()) {
+      String guid = new UUID(random.nextLong(), random.nextLong()).toString().toUpperCase(Locale.ENGLISH);
+      sb.append("Project(\"").append(CSHARP_PROJECT_TYPE).append("\") = \"").append(project).append("\", \"")
+        .append(project).append('\\').append(project).append(".csproj\", \"{").append(guid).append("}\"\nEndProject\n");
+    }
+    sb.append("Global\nEndGlobal\n");
+    Files.write(sb.toString(), result.solutionFile(), Charsets.UTF_8);
+  }
+
+  private void writeReport(Result result, Random random, RuleSampler sampler) throws IOException {
+    BufferedWriter writer = Files.newWriter(result.reportFile(), Charsets.UTF_8);
+    try {
+      writeReport(result, random, sampler, writer);
+    } catch (XMLStreamException e) {
+      throw new IOException(e);
+    } finally {
+      writer.close();
+    }
+  }
+
+  private void writeReport(Result result, Random random, RuleSampler sampler, Writer writer) throws XMLStreamException {
+    XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+    xml.writeStartDocument("utf-8", "1.0");
+    xml.writeCharacters("\n");
+    xml.writeComment(" Generated by " + getClass().getSimpleName() + " ");
+    xml.writeCharacters("\n");
+    xml.writeStartElement("Report");
+    xml.writeAttribute("ToolsVersion", "8.2");
+    xml.writeCharacters("\n  ");
+    xml.writeStartElement("Information");
+    xml.writeStartElement("Solution");
+    xml.writeCharacters(result.solutionFile().getName());
+    xml.writeEndElement();
+    xml.writeEndElement();
+    xml.writeCharacters("\n  ");
+    xml.writeStartElement("Issues");
+
+    int projectCount = result.projects().size();
+    int filesPerProject = result.filePaths().size() / projectCount;
+    for (int project = 0; project < projectCount; project++) {
+      xml.writeCharacters("\n    ");
+      xml.writeStartElement("Project");
+      xml.writeAttribute("Name", result.projects().get(project));
+      long projectIssues = issueCount / projectCount + (project < issueCount % projectCount ? 1 : 0);
+      for (long i = 0; i < projectIssues; i++) {
+        String filePath = result.filePaths().get(project + projectCount * random.nextInt(filesPerProject));
+        xml.writeCharacters("\n      ");
+        xml.writeEmptyElement("Issue");
+        xml.writeAttribute("TypeId", result.ruleKeys().get(sampler.next(random)));
+        xml.writeAttribute("File", reportPath(result, filePath, random));
+        int offset = random.nextInt(10000);
+        xml.writeAttribute("Offset", offset + "-" + (offset + 1 + random.nextInt(40)));
+        xml.writeAttribute("Line", Integer.toString(1 + random.nextInt(linesPerFile)));
+        xml.writeAttribute("Message", message(random));
+      }
+      xml.writeCharacters("\n    ");
+      xml.writeEndElement();
+    }
+
+    xml.writeCharacters("\n  ");
+    xml.writeEndElement();
+    xml.writeCharacters("\n");
+    xml.writeEndElement();
+    xml.writeCharacters("\n");
+    xml.writeEndDocument();
+    xml.close();
+  }
+
+  private String reportPath(Result result, String filePath, Random random) {
+    String path;
+    if (quotedPathRatio > 0 && random.nextDouble() < quotedPathRatio) {
+      path = "\"" + result.file(filePath).getAbsolutePath() + "\"";
+    } else {
+      path = filePath;
+    }
+    return backslashes ? path.replace('/', '\\') : path;
+  }
+
+  private String message(Random random) {
+    StringBuilder sb = new StringBuilder(messageLength);
+    sb.append("Issue ").append(random.nextInt(100)).append(' ');
+    while (sb.length() < messageLength) {
+      sb.append("lorem ipsum ");
+    }
+    sb.setLength(messageLength);
+    return sb.toString();
+  }
+
+  /**
+   * @return the keys of all the rules defined in rules.xml
+   */
+  public static List<String> ruleKeys() {
+    InputStream input = ReSharperReportGenerator.class.getResourceAsStream(RULES_XML);
+    XMLStreamReader stream = null;
+    try {
+      stream = XMLInputFactory.newInstance().createXMLStreamReader(input, Charsets.UTF_8.name());
+      ImmutableList.Builder<String> builder = ImmutableList.builder();
+      while (stream.hasNext()) {
+        if (stream.next() == XMLStreamConstants.START_ELEMENT && "rule".equals(stream.getLocalName())) {
+          builder.add(stream.getAttributeValue(null, "key"));
+        }
+      }
+      return builder.build();
+    } catch (XMLStreamException e) {
+      throw new IllegalStateException(e);
+    } finally {
+      if (stream != null) {
+        try {
+          stream.close();
+        } catch (XMLStreamException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      Closeables.closeQuietly(input);
+    }
+  }
+
+  private static class RuleSampler {
+
+    private final int size;
+    private final double[] cumulativeWeights;
+
+    RuleSampler(int size, Distribution distribution) {
+      this.size = size;
+      if (distribution == Distribution.ZIPF) {
+        cumulativeWeights = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+          total += 1.0 / (i + 1);
+          cumulativeWeights[i] = total;
+        }
+      } else {
+        cumulativeWeights = null;
+      }
+    }
+
+    int next(Random random) {
+      if (cumulativeWeights == null) {
+        return random.nextInt(size);
+      }
+      double value = random.nextDouble() * cumulativeWeights[size - 1];
+      int index = Arrays.binarySearch(cumulativeWeights, value);
+      return Math.min(size - 1, index >= 0 ? index : -index - 1);
+    }
+
+  }
+
+  public static class Result {
+
+    private final File baseDir;
+    private final File solutionFile;
+    private final File reportFile;
+    private final List<String> projects;
+    private final List<String> filePaths;
+    private final List<String> ruleKeys;
+    private final long issueCount;
+
+    Result(File baseDir, File solutionFile, File reportFile, List<String> projects, List<String> filePaths, List<String> ruleKeys, long issueCount) {
+      this.baseDir = baseDir;
+      this.solutionFile = solutionFile;
+      this.reportFile = reportFile;
+      this.projects = projects;
+      this.filePaths = filePaths;
+      this.ruleKeys = ruleKeys;
+      this.issueCount = issueCount;
+    }
+
+    public File baseDir() {
+      return baseDir;
+    }
+
+    public File solutionFile() {
+      return solutionFile;
+    }
+
+    public File reportFile() {
+      return reportFile;
+    }
+
+    public List<String> projects() {
+      return projects;
+    }
+
+    /**
+     * @return the paths of the source files, relative to the solution directory and with forward slashes
+     */
+    public List<String> filePaths() {
+      return filePaths;
+    }
+
+    public List<String> ruleKeys() {
+      return ruleKeys;
+    }
+
+    public long issueCount() {
+      return issueCount;
+    }
+
+    public File file(String filePath) {
+      return new File(baseDir, filePath).getAbsoluteFile();
+    }
+
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("Usage: " + ReSharperReportGenerator.class.getSimpleName() + " outputDir [--projects=N] [--files=N] [--issues=N]"
+        + " [--distribution=uniform|zipf] [--message-length=N] [--lines=N] [--quoted-paths=RATIO] [--slashes] [--seed=N]");
+      System.exit(1);
+    }
+
+    ReSharperReportGenerator generator = new ReSharperReportGenerator();
+    for (int i = 1; i < args.length; i++) {
+      String arg = args[i];
+      String value = arg.substring(arg.indexOf('=') + 1);
+      if (arg.startsWith("--projects=")) {
+        generator.projects(Integer.parseInt(value));
+      } else if (arg.startsWith("--files=")) {
+        generator.files(Integer.parseInt(value));
+      } else if (arg.startsWith("--issues=")) {
+        generator.issues(Long.parseLong(value));
+      } else if (arg.startsWith("--distribution=")) {
+        generator.distribution(Distribution.valueOf(value.toUpperCase(Locale.ENGLISH)));
+      } else if (arg.startsWith("--message-length=")) {
+        generator.messageLength(Integer.parseInt(value));
+      } else if (arg.startsWith("--lines=")) {
+        generator.linesPerFile(Integer.parseInt(value));
+      } else if (arg.startsWith("--quoted-paths=")) {
+        generator.quotedPathRatio(Double.parseDouble(value));
+      } else if ("--slashes".equals(arg)) {
+        generator.backslashes(false);
+      } else if (arg.startsWith("--seed=")) {
+        generator.seed(Long.parseLong(value));
+      } else {
+        throw new IllegalArgumentException("Unknown option: " + arg);
+      }
+    }
+
+    File dir = new File(args[0]);
+    Result result = generator.generate(dir);
+    System.out.println("Generated " + result.issueCount() + " issues in " + result.reportFile().getAbsolutePath());
+  }
+
+}
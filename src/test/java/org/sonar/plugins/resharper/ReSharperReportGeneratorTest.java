@@ -0,0 +1,99 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperReportGeneratorTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void generate() throws Exception {
+    ReSharperReportGenerator.Result result = new ReSharperReportGenerator()
+      .projects(3)
+      .files(12)
+      .issues(1000)
+      .messageLength(30)
+      .linesPerFile(20)
+      .quotedPathRatio(0.5)
+      .generate(tmp.getRoot());
+
+    assertThat(result.solutionFile()).exists();
+    assertThat(Files.toString(result.solutionFile(), Charsets.UTF_8)).contains("\"Project2\", \"Project2\\Project2.csproj\"");
+    assertThat(result.filePaths()).hasSize(12);
+    for (String filePath : result.filePaths()) {
+      assertThat(result.file(filePath)).exists();
+      assertThat(Files.readLines(result.file(filePath), Charsets.UTF_8)).hasSize(20);
+    }
+
+    Map<String, List<ReSharperIssue>> issuesByProject = new ReSharperReportParser().parseProjects(result.reportFile());
+    assertThat(issuesByProject).hasSize(3);
+
+    int issueCount = 0;
+    int quotedPaths = 0;
+    Set<String> ruleKeys = Sets.newHashSet(ReSharperReportGenerator.ruleKeys());
+    for (Map.Entry<String, List<ReSharperIssue>> entry : issuesByProject.entrySet()) {
+      for (ReSharperIssue issue : entry.getValue()) {
+        issueCount++;
+        assertThat(ruleKeys).contains(issue.ruleKey());
+        assertThat(issue.line()).isGreaterThan(0).isLessThanOrEqualTo(20);
+        assertThat(issue.message()).hasSize(30);
+        if (issue.filePath().startsWith("\"")) {
+          quotedPaths++;
+          assertThat(issue.filePath()).endsWith("\"");
+        } else {
+          assertThat(issue.filePath()).startsWith(entry.getKey() + "\\");
+        }
+      }
+    }
+    assertThat(issueCount).isEqualTo(1000);
+    assertThat(quotedPaths).isGreaterThan(0).isLessThan(1000);
+  }
+
+  @Test
+  public void main() throws Exception {
+    File dir = tmp.newFolder("main");
+    ReSharperReportGenerator.main(new String[] {dir.getPath(), "--projects=2", "--files=4", "--issues=10", "--distribution=uniform", "--slashes"});
+
+    List<ReSharperIssue> issues = new ReSharperReportParser().parse(new File(dir, "report.xml"), "Project1");
+    assertThat(issues).hasSize(5);
+    assertThat(issues.get(0).filePath()).startsWith("Project1/");
+  }
+
+  @Test
+  public void rule_keys() {
+    assertThat(ReSharperReportGenerator.ruleKeys()).hasSize(675).contains("AccessToDisposedClosure");
+  }
+
+}
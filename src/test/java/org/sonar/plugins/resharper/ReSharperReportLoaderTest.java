@@ -0,0 +1,139 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperReportLoaderTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void sequential() {
+    assertThat(load(1, files(3))).containsExactly("0.0", "0.1", "1.0", "1.1", "2.0", "2.1");
+    assertThat(load(0, files(2))).containsExactly("0.0", "0.1", "1.0", "1.1");
+  }
+
+  @Test
+  public void concurrent_loading_keeps_the_order_and_handles_on_the_calling_thread() {
+    final Thread caller = Thread.currentThread();
+    final Set<String> loaderThreads = Collections.synchronizedSet(Sets.<String>newHashSet());
+    final List<String> handled = Lists.newArrayList();
+
+    new ReSharperReportLoader(4).load(files(20), new Function<File, List<ReSharperIssue>>() {
+      @Override
+      public List<ReSharperIssue> apply(File file) {
+        loaderThreads.add(Thread.currentThread().getName());
+        int index = Integer.parseInt(file.getName());
+        try {
+          // The first reports are the slowest to load
+          Thread.sleep(20 - index);
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+        return issues(file);
+      }
+    }, new ReSharperReportLoader.ReportHandler<List<ReSharperIssue>>() {
+      @Override
+      public void handle(List<ReSharperIssue> issues) {
+        assertThat(Thread.currentThread()).isSameAs(caller);
+        for (ReSharperIssue issue : issues) {
+          handled.add(issue.message());
+        }
+      }
+    });
+
+    assertThat(handled).hasSize(40);
+    for (int i = 0; i < 20; i++) {
+      assertThat(handled.get(2 * i)).isEqualTo(i + ".0");
+      assertThat(handled.get(2 * i + 1)).isEqualTo(i + ".1");
+    }
+    assertThat(loaderThreads.size()).isGreaterThan(1);
+    assertThat(loaderThreads.size()).isLessThanOrEqualTo(4);
+    assertThat(loaderThreads).excludes(caller.getName());
+  }
+
+  @Test
+  public void loading_failure() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Cannot load 1");
+
+    new ReSharperReportLoader(2).load(files(3), new Function<File, List<ReSharperIssue>>() {
+      @Override
+      public List<ReSharperIssue> apply(File file) {
+        if ("1".equals(file.getName())) {
+          throw new IllegalStateException("Cannot load 1");
+        }
+        return issues(file);
+      }
+    }, new ReSharperReportLoader.ReportHandler<List<ReSharperIssue>>() {
+      @Override
+      public void handle(List<ReSharperIssue> issues) {
+      }
+    });
+  }
+
+  private static List<String> load(int threads, List<File> files) {
+    final List<String> handled = Lists.newArrayList();
+    new ReSharperReportLoader(threads).load(files, new Function<File, List<ReSharperIssue>>() {
+      @Override
+      public List<ReSharperIssue> apply(File file) {
+        return issues(file);
+      }
+    }, new ReSharperReportLoader.ReportHandler<List<ReSharperIssue>>() {
+      @Override
+      public void handle(List<ReSharperIssue> issues) {
+        for (ReSharperIssue issue : issues) {
+          handled.add(issue.message());
+        }
+      }
+    });
+    return handled;
+  }
+
+  private static List<File> files(int count) {
+    ImmutableList.Builder<File> builder = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      builder.add(new File(Integer.toString(i)));
+    }
+    return builder.build();
+  }
+
+  private static List<ReSharperIssue> issues(File file) {
+    return ImmutableList.of(
+      new ReSharperIssue(1, "Rule", "File.cs", 1, file.getName() + ".0"),
+      new ReSharperIssue(2, "Rule", "File.cs", 2, file.getName() + ".1"));
+  }
+
+}
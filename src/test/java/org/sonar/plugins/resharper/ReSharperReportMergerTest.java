@@ -0,0 +1,164 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperReportMergerTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void merge() throws Exception {
+    File previous = report("previous.xml",
+      "<IssueType Id=\"RedundantUsingDirective\" Severity=\"WARNING\" />",
+      "<Project Name=\"MyLibrary\">"
+        + "<Issue TypeId=\"RedundantUsingDirective\" File=\"MyLibrary\\Class1.cs\" Line=\"1\" Message=\"First\" />"
+        + "<Issue TypeId=\"RedundantUsingDirective\" File=\"MyLibrary\\Class2.cs\" Line=\"2\" Message=\"Second\" />"
+        + "<Issue TypeId=\"RedundantUsingDirective\" File=\"MyLibrary\\Deleted.cs\" Line=\"3\" Message=\"Third\" />"
+        + "<Issue TypeId=\"RedundantUsingDirective\" Message=\"Without file\" />"
+        + "</Project>"
+        + "<Project Name=\"Other\"><Issue TypeId=\"RedundantUsingDirective\" File=\"Other\\Class1.cs\" Line=\"4\" Message=\"Fourth\" /></Project>");
+    File partial = report("partial.xml",
+      "<IssueType Id=\"RedundantUsingDirective\" Severity=\"WARNING\" /><IssueType Id=\"JoinDeclarationAndInitializer\" Severity=\"SUGGESTION\" />",
+      "<Project Name=\"MyLibrary\">"
+        + "<Issue TypeId=\"JoinDeclarationAndInitializer\" File=\"MyLibrary\\Class1.cs\" Line=\"5\" Message=\"Fifth\" />"
+        + "<Issue TypeId=\"RedundantUsingDirective\" Message=\"Without file\" />"
+        + "</Project>"
+        + "<Project Name=\"New\"><Issue TypeId=\"RedundantUsingDirective\" File=\"New\\Class1.cs\" Line=\"6\" Message=\"Sixth\" /></Project>");
+    File merged = new File(tmp.getRoot(), "merged.xml");
+
+    ReSharperReportMerger.merge(previous, partial, new Predicate<String>() {
+      @Override
+      public boolean apply(String filePath) {
+        return filePath.endsWith("Deleted.cs");
+      }
+    }, merged);
+
+    Map<String, List<ReSharperIssue>> issues = new ReSharperReportParser().parseProjects(merged);
+    assertThat(issues.keySet()).containsOnly("MyLibrary", "Other", "New");
+    assertThat(messages(issues.get("MyLibrary"))).containsExactly("Second", "Without file", "Fifth");
+    assertThat(messages(issues.get("Other"))).containsExactly("Fourth");
+    assertThat(messages(issues.get("New"))).containsExactly("Sixth");
+
+    String xml = Files.toString(merged, Charsets.UTF_8);
+    assertThat(xml).contains("Id=\"RedundantUsingDirective\"");
+    assertThat(xml).contains("Id=\"JoinDeclarationAndInitializer\"");
+    assertThat(xml.indexOf("<IssueType Id=\"RedundantUsingDirective\"")).isEqualTo(xml.lastIndexOf("<IssueType Id=\"RedundantUsingDirective\""));
+  }
+
+  @Test
+  public void merge_repeated_projects() throws Exception {
+    File previous = new File("src/test/resources/ReSharperReportParserTest/report-repeated-projects.xml");
+    File partial = report("partial.xml", "",
+      "<Project Name=\"MyLibrary.Common\">"
+        + "<Issue TypeId=\"RedundantUsingDirective\" File=\"MyLibrary.Common\\Class2.cs\" Line=\"1\" Message=\"Partial\" />"
+        + "</Project>");
+    File merged = new File(tmp.getRoot(), "merged.xml");
+
+    ReSharperReportMerger.merge(previous, partial, Predicates.<String>alwaysFalse(), merged);
+
+    Map<String, List<ReSharperIssue>> issues = new ReSharperReportParser().parseProjects(merged);
+    // Written once, although the project has two elements
+    assertThat(messages(issues.get("MyLibrary.Common"))).containsExactly("Using directive is not required by the code and can be safely removed",
+      "Join declaration and assignment", "Using directive is not required by the code and can be safely removed", "Partial");
+    assertThat(issues.get("MyLibrary")).hasSize(2);
+  }
+
+  @Test
+  public void merge_into_partial_report() throws Exception {
+    File previous = report("previous.xml", "",
+      "<Project Name=\"MyLibrary\"><Issue TypeId=\"RedundantUsingDirective\" File=\"MyLibrary\\Class2.cs\" Line=\"2\" Message=\"Second\" /></Project>");
+    File partial = report("partial.xml", "",
+      "<Project Name=\"MyLibrary\"><Issue TypeId=\"RedundantUsingDirective\" File=\"MyLibrary\\Class1.cs\" Line=\"1\" Message=\"First\" /></Project>");
+
+    ReSharperReportMerger.merge(previous, partial, Predicates.<String>alwaysFalse(), partial);
+
+    assertThat(messages(new ReSharperReportParser().parseProjects(partial).get("MyLibrary"))).containsExactly("Second", "First");
+    assertThat(Arrays.asList(tmp.getRoot().list())).containsOnly("previous.xml", "partial.xml");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void invalid_previous_report() throws Exception {
+    File previous = tmp.newFile("previous.xml");
+    Files.write("<Report><Issues>", previous, Charsets.UTF_8);
+    ReSharperReportMerger.merge(previous, report("partial.xml", "", ""), Predicates.<String>alwaysFalse(), new File(tmp.getRoot(), "merged.xml"));
+  }
+
+  @Test
+  public void concatenate() throws Exception {
+    File first = tmp.newFile("first.xml");
+    Files.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<Report ToolsVersion=\"8.1\">"
+      + "<Information><Solution>CSharpPlayground.sln</Solution></Information>"
+      + "<IssueTypes><IssueType Id=\"RedundantUsingDirective\" Severity=\"WARNING\" /></IssueTypes>"
+      + "<Issues><Project Name=\"MyLibrary\">"
+      + "<Issue TypeId=\"RedundantUsingDirective\" File=\"MyLibrary\\Class1.cs\" Line=\"1\" Message=\"First\" />"
+      + "</Project></Issues></Report>", first, Charsets.UTF_8);
+    File second = report("second.xml",
+      "<IssueType Id=\"RedundantUsingDirective\" Severity=\"WARNING\" /><IssueType Id=\"JoinDeclarationAndInitializer\" Severity=\"SUGGESTION\" />",
+      "<Project Name=\"Other\"><Issue TypeId=\"JoinDeclarationAndInitializer\" File=\"Other\\Class1.cs\" Line=\"2\" Message=\"Second\" /></Project>");
+    File empty = tmp.newFile("empty.xml");
+    Files.write("<Report ToolsVersion=\"8.1\"><IssueTypes /><Issues /></Report>", empty, Charsets.UTF_8);
+    File concatenated = new File(tmp.getRoot(), "concatenated.xml");
+
+    ReSharperReportMerger.concatenate(Arrays.asList(first, empty, second), concatenated);
+
+    Map<String, List<ReSharperIssue>> issues = new ReSharperReportParser().parseProjects(concatenated);
+    assertThat(issues.keySet()).containsOnly("MyLibrary", "Other");
+    assertThat(messages(issues.get("MyLibrary"))).containsExactly("First");
+    assertThat(messages(issues.get("Other"))).containsExactly("Second");
+
+    String xml = Files.toString(concatenated, Charsets.UTF_8);
+    assertThat(xml).contains("<Report ToolsVersion=\"8.1\"><Information><Solution>CSharpPlayground.sln</Solution></Information>");
+    assertThat(xml).contains("<IssueType Id=\"JoinDeclarationAndInitializer\"");
+    assertThat(xml.indexOf("<IssueType Id=\"RedundantUsingDirective\"")).isEqualTo(xml.lastIndexOf("<IssueType Id=\"RedundantUsingDirective\""));
+  }
+
+  private File report(String name, String issueTypes, String projects) throws Exception {
+    File file = tmp.newFile(name);
+    Files.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<Report ToolsVersion=\"8.1\"><IssueTypes>" + issueTypes + "</IssueTypes><Issues>" + projects
+      + "</Issues></Report>", file, Charsets.UTF_8);
+    return file;
+  }
+
+  private static List<String> messages(List<ReSharperIssue> issues) {
+    List<String> messages = Lists.newArrayList();
+    for (ReSharperIssue issue : issues) {
+      messages.add(issue.message());
+    }
+    return messages;
+  }
+
+}
@@ -19,12 +19,20 @@
  */
 package org.sonar.plugins.resharper;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 import static org.fest.assertions.Assertions.assertThat;
 
@@ -33,6 +41,9 @@ public class ReSharperReportParserTest {
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
   @Test
   public void valid() {
     List<ReSharperIssue> issues = new ReSharperReportParser().parse(new File("src/test/resources/ReSharperReportParserTest/valid.xml"), "MyLibrary");
@@ -61,6 +72,23 @@ public class ReSharperReportParserTest {
     assertThat(issue.message()).isEqualTo("Using directive is not required by the code and can be safely removed");
   }
 
+  @Test
+  public void streaming() {
+    final List<ReSharperIssue> issues = Lists.newArrayList();
+    new ReSharperReportParser().parse(new File("src/test/resources/ReSharperReportParserTest/valid.xml"), "MyLibrary", new ReSharperIssueHandler() {
+      @Override
+      public void handle(ReSharperIssue issue) {
+        issues.add(issue);
+      }
+    });
+
+    assertThat(issues).hasSize(3);
+    assertThat(issues.get(0).reportLine()).isEqualTo(16);
+    assertThat(issues.get(1).reportLine()).isEqualTo(17);
+    assertThat(issues.get(2).reportLine()).isEqualTo(18);
+    assertThat(issues.get(2).filePath()).isEqualTo("MyLibrary\\Properties\\AssemblyInfo.cs");
+  }
+
   @Test
   public void invalid_line() {
     thrown.expectMessage("Expected an integer instead of \"foo\" for the attribute \"Line\"");
@@ -134,4 +162,114 @@ public class ReSharperReportParserTest {
     assertThat(issue.line()).isEqualTo(2);
     assertThat(issue.message()).isEqualTo("Using directive is not required by the code and can be safely removed");
   }
+
+  @Test
+  public void parse_projects() {
+    Map<String, List<ReSharperIssue>> issuesByProject = new ReSharperReportParser().parseProjects(
+      new File("src/test/resources/ReSharperReportParserTest/report-multiple-projects.xml"));
+
+    assertThat(ImmutableList.copyOf(issuesByProject.keySet())).containsExactly("MyLibrary.Common", "MyLibrary");
+
+    List<ReSharperIssue> issues = issuesByProject.get("MyLibrary.Common");
+    assertThat(issues).hasSize(3);
+    assertThat(issues.get(0).reportLine()).isEqualTo(17);
+    assertThat(issues.get(2).reportLine()).isEqualTo(19);
+    assertThat(issues.get(2).filePath()).isEqualTo("MyLibrary.Common\\Properties\\AssemblyInfo.cs");
+
+    issues = issuesByProject.get("MyLibrary");
+    assertThat(issues).hasSize(2);
+    assertThat(issues.get(0).reportLine()).isEqualTo(22);
+    assertThat(issues.get(1).reportLine()).isEqualTo(23);
+    assertThat(issues.get(1).ruleKey()).isEqualTo("JoinDeclarationAndInitializer");
+  }
+
+
+  @Test
+  public void parse_projects_merges_and_shares_values() {
+    Map<String, List<ReSharperIssue>> issuesByProject = new ReSharperReportParser().parseProjects(
+      new File("src/test/resources/ReSharperReportParserTest/report-repeated-projects.xml"));
+
+    assertThat(ImmutableList.copyOf(issuesByProject.keySet())).containsExactly("MyLibrary.Common", "MyLibrary");
+
+    List<ReSharperIssue> issues = issuesByProject.get("MyLibrary.Common");
+    assertThat(issues).hasSize(4);
+    assertThat(issues.get(3).reportLine()).isEqualTo(25);
+    assertThat(issues.get(3).filePath()).isEqualTo("MyLibrary.Common\\Class2.cs");
+
+    ReSharperIssue first = issues.get(1);
+    ReSharperIssue last = issues.get(3);
+    assertThat(last.ruleKey()).isSameAs(first.ruleKey());
+    assertThat(last.message()).isSameAs(first.message());
+    assertThat(last.line()).isSameAs(first.line());
+    assertThat(issues.get(0).filePath()).isSameAs(first.filePath());
+    assertThat(issuesByProject.get("MyLibrary").get(0).message()).isSameAs(issues.get(0).message());
+  }
+
+  @Test
+  public void parse_merges_repeated_projects() throws Exception {
+    File xmlReport = new File("src/test/resources/ReSharperReportParserTest/report-repeated-projects.xml");
+    File binaryReport = tmp.newFile("report.bin");
+    ReSharperReportConverter.convert(xmlReport, binaryReport);
+
+    List<List<ReSharperIssue>> results = ImmutableList.of(
+      new ReSharperReportParser().parse(xmlReport, "MyLibrary.Common"),
+      new ReSharperReportParser(null, false).parse(xmlReport, "MyLibrary.Common"),
+      new ReSharperReportParser().parse(binaryReport, "MyLibrary.Common"));
+    for (List<ReSharperIssue> issues : results) {
+      assertThat(issues).hasSize(4);
+      assertThat(issues.get(3).reportLine()).isEqualTo(25);
+      assertThat(issues.get(3).filePath()).isEqualTo("MyLibrary.Common\\Class2.cs");
+    }
+  }
+
+  @Test
+  public void filter() throws Exception {
+    File xmlReport = new File("src/test/resources/ReSharperReportParserTest/report-multiple-projects.xml");
+    File binaryReport = tmp.newFile("report.bin");
+    ReSharperReportConverter.convert(xmlReport, binaryReport);
+    ReSharperIssueFilter filter = ReSharperIssueFilter.of(ImmutableList.of("RedundantUsingDirective")).withFilePredicate(new Predicate<String>() {
+      @Override
+      public boolean apply(String filePath) {
+        return filePath.startsWith("MyLibrary.Common\\");
+      }
+    });
+
+    for (ReSharperReportParser parser : ImmutableList.of(new ReSharperReportParser(null, true), new ReSharperReportParser(null, false))) {
+      for (File report : ImmutableList.of(xmlReport, binaryReport)) {
+        Map<String, List<ReSharperIssue>> issuesByProject = parser.parseProjects(report, filter);
+        assertThat(ImmutableList.copyOf(issuesByProject.keySet())).containsExactly("MyLibrary.Common");
+        List<ReSharperIssue> issues = issuesByProject.get("MyLibrary.Common");
+        assertThat(issues).hasSize(2);
+        assertThat(issues.get(0).reportLine()).isEqualTo(17);
+        assertThat(issues.get(1).reportLine()).isEqualTo(19);
+
+        final List<ReSharperIssue> handled = Lists.newArrayList();
+        parser.parse(report, "MyLibrary.Common", filter, new ReSharperIssueHandler() {
+          @Override
+          public void handle(ReSharperIssue issue) {
+            handled.add(issue);
+          }
+        });
+        ReSharperReportCodecTest.assertEquals(ImmutableMap.of("MyLibrary.Common", handled), issuesByProject);
+      }
+    }
+  }
+
+  @Test
+  public void rejected_issues_are_not_decoded() throws Exception {
+    File report = tmp.newFile("report.xml");
+    Files.write("<Report><Issues><Project Name=\"Foo\">\n"
+      + "<Issue TypeId=\"Inactive\" File=\"Foo.cs\" Line=\"invalid\" />\n"
+      + "<Issue TypeId=\"Active\" File=\"Foo.cs\" Line=\"1\" Message=\"Message\" />\n"
+      + "</Project></Issues></Report>", report, Charsets.UTF_8);
+    ReSharperIssueFilter filter = ReSharperIssueFilter.of(ImmutableList.of("Active"));
+
+    for (ReSharperReportParser parser : ImmutableList.of(new ReSharperReportParser(null, true), new ReSharperReportParser(null, false))) {
+      List<ReSharperIssue> issues = parser.parseProjects(report, filter).get("Foo");
+      assertThat(issues).hasSize(1);
+      assertThat(issues.get(0).reportLine()).isEqualTo(3);
+      assertThat(issues.get(0).message()).isEqualTo("Message");
+    }
+  }
+
 }
@@ -0,0 +1,80 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperReportPathsTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void plain_paths() {
+    assertThat(ReSharperReportPaths.resolve("foo/report.xml", "bar.xml")).containsExactly(
+      new File("foo/report.xml").getAbsoluteFile(),
+      new File("bar.xml").getAbsoluteFile());
+  }
+
+  @Test
+  public void glob_patterns() throws Exception {
+    File root = tmp.getRoot();
+    File a = newFile(root, "shards/a/cs-report.xml");
+    File b = newFile(root, "shards/b/cs-report.xml");
+    File c = newFile(root, "shards/cs-report.xml");
+    newFile(root, "shards/a/vbnet-report.xml");
+    File d = newFile(root, "d.xml");
+
+    String base = root.getAbsolutePath().replace('\\', '/');
+    assertThat(ReSharperReportPaths.resolve(base + "/shards/*/cs-*.xml")).containsExactly(a, b);
+    assertThat(ReSharperReportPaths.resolve(base + "/shards/**/cs-*.xml")).containsExactly(a, b);
+    assertThat(ReSharperReportPaths.resolve(base + "/shards/cs-report.xml", base + "/*.xml", base + "/shards/?/cs-report.xml")).containsExactly(c, d, a, b);
+    assertThat(ReSharperReportPaths.resolve(base + "/shards/a/cs-report.xml", base + "/shards/*/cs-report.xml")).containsExactly(a, b);
+  }
+
+  @Test
+  public void glob_without_match() {
+    assertThat(ReSharperReportPaths.resolve(tmp.getRoot().getAbsolutePath() + "/*.xml")).isEmpty();
+    assertThat(ReSharperReportPaths.resolve(tmp.getRoot().getAbsolutePath() + "/missing/*.xml")).isEmpty();
+  }
+
+  @Test
+  public void is_glob() {
+    assertThat(ReSharperReportPaths.isGlob("reports/report.xml")).isFalse();
+    assertThat(ReSharperReportPaths.isGlob("reports/*.xml")).isTrue();
+    assertThat(ReSharperReportPaths.isGlob("reports/report?.xml")).isTrue();
+    assertThat(ReSharperReportPaths.isGlob("reports/{cs,vbnet}.xml")).isTrue();
+    assertThat(ReSharperReportPaths.isGlob("reports/[ab].xml")).isTrue();
+  }
+
+  private static File newFile(File root, String path) throws Exception {
+    File file = new File(root, path);
+    file.getParentFile().mkdirs();
+    file.createNewFile();
+    return file;
+  }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperReportScannerTest {
+
+  private static final String[] FIXTURES = {"valid.xml", "report-multiple-projects.xml", "report-repeated-projects.xml"};
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void parity_with_the_xml_parser() throws Exception {
+    ReSharperReportParser xmlParser = new ReSharperReportParser(null, false);
+    for (String fixture : FIXTURES) {
+      File report = new File("src/test/resources/ReSharperReportParserTest", fixture);
+      Map<String, List<ReSharperIssue>> expected = xmlParser.parseProjects(report);
+
+      ReSharperProjectIssuesBuilder builder = new ReSharperProjectIssuesBuilder();
+      assertThat(ReSharperReportScanner.scan(report, null, true, builder)).isTrue();
+      ReSharperReportCodecTest.assertEquals(builder.build(), expected);
+
+      for (String projectName : expected.keySet()) {
+        builder = new ReSharperProjectIssuesBuilder();
+        assertThat(ReSharperReportScanner.scan(report, projectName, false, builder)).isTrue();
+        ReSharperReportCodecTest.assertEquals(builder.build(), ImmutableMap.of(projectName, expected.get(projectName)));
+        ReSharperReportCodecTest.assertEquals(builder.build(), ImmutableMap.of(projectName, xmlParser.parse(report, projectName)));
+      }
+    }
+  }
+
+  @Test
+  public void tags_across_the_windows_of_the_file() throws Exception {
+    for (String fixture : FIXTURES) {
+      File report = tmp.newFile();
+      Files.copy(new File("src/test/resources/ReSharperReportParserTest", fixture), report);
+      Map<String, List<ReSharperIssue>> expected = new ReSharperReportParser(null, false).parseProjects(report);
+
+      for (int bufferSize : new int[] {1, 7, 64}) {
+        ReSharperProjectIssuesBuilder builder = new ReSharperProjectIssuesBuilder();
+        assertThat(ReSharperReportScanner.scan(report, null, false, ReSharperIssueFilter.ACCEPT_ALL, builder, bufferSize)).isTrue();
+        ReSharperReportCodecTest.assertEquals(builder.build(), expected);
+      }
+      // Not left mapped, hence locked on Windows
+      assertThat(report.delete()).isTrue();
+    }
+  }
+
+  @Test
+  public void shares_repeated_values() throws Exception {
+    ReSharperProjectIssuesBuilder builder = new ReSharperProjectIssuesBuilder();
+    ReSharperReportScanner.scan(new File("src/test/resources/ReSharperReportParserTest/report-repeated-projects.xml"), null, true, builder);
+
+    List<ReSharperIssue> issues = builder.build().get("MyLibrary.Common");
+    assertThat(issues.get(3).ruleKey()).isSameAs(issues.get(1).ruleKey());
+    assertThat(issues.get(3).message()).isSameAs(issues.get(1).message());
+    assertThat(issues.get(0).filePath()).isSameAs(issues.get(1).filePath());
+  }
+
+  @Test
+  public void entities_comments_and_line_breaks() throws Exception {
+    String report = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\r\n"
+      + "<!-- Generated by InspectCode -->\r\n"
+      + "<Report>\r\n"
+      + "  <Issues>\r"
+      + "    <Project Name=\"A&amp;B\">\n"
+      + "      <Issue TypeId='Foo' File=\"a\\&quot;b&quot;.cs\" Line=\"12\"\n"
+      + "        Message=\"x &lt; y &#38;&#x26; &gt; &apos;é€\" />\r\n"
+      + "      <Issue TypeId=\"Bar\" Message=\"No file\"></Issue>\n"
+      + "    </Project>\n"
+      + "  </Issues>\n"
+      + "</Report>\n";
+
+    Map<String, List<ReSharperIssue>> scanned = scan(report);
+    Map<String, List<ReSharperIssue>> parsed = new ReSharperReportParser(null, false).parseProjects(write(report));
+    ReSharperReportCodecTest.assertEquals(scanned, parsed);
+
+    List<ReSharperIssue> issues = scanned.get("A&B");
+    assertThat(issues.get(0).reportLine()).isEqualTo(6);
+    assertThat(issues.get(0).filePath()).isEqualTo("a\\\"b\".cs");
+    assertThat(issues.get(0).message()).isEqualTo("x < y && > 'é€");
+    assertThat(issues.get(1).reportLine()).isEqualTo(8);
+    assertThat(issues.get(1).filePath()).isNull();
+    assertThat(issues.get(1).line()).isNull();
+  }
+
+  @Test
+  public void gives_up_on_unexpected_content() throws Exception {
+    String issue = "<Issue TypeId=\"Foo\" File=\"Foo.cs\" Line=\"1\" Message=\"Foo\" />";
+
+    assertThat(scans(wrap(issue))).isTrue();
+    // The byte order mark of inspectcode is skipped, as the XML parser does
+    String withByteOrderMark = "\uFEFF" + wrap(issue);
+    ReSharperReportCodecTest.assertEquals(scan(withByteOrderMark), new ReSharperReportParser(null, false).parseProjects(write(withByteOrderMark)));
+    assertThat(scans("<!DOCTYPE Report>" + wrap(issue))).isFalse();
+    assertThat(scans(wrap("<Issue TypeId=\"Foo\" Line=\"1\" Message=\"Multi\nline\" />"))).isFalse();
+    assertThat(scans(wrap("<Issue TypeId=\"Foo\" Line=\"1\" Message=\"&unknown;\" />"))).isFalse();
+    assertThat(scans(wrap("<Issue TypeId=\"Foo\" Line=\"foo\" Message=\"Foo\" />"))).isFalse();
+    assertThat(scans(wrap("<Issue TypeId=\"Foo\" Line=\"-1\" Message=\"Foo\" />"))).isFalse();
+    assertThat(scans(wrap("<Issue Line=\"1\" Message=\"Foo\" />"))).isFalse();
+    assertThat(scans(wrap("<Issue TypeId=\"Foo\" Line=\"1\" />"))).isFalse();
+    assertThat(scans(wrap("<r:Issue TypeId=\"Foo\" Message=\"Foo\" />"))).isFalse();
+    assertThat(scans(wrap("<Project Name=\"Nested\">" + issue + "</Project>"))).isFalse();
+    assertThat(scans("<Report><Issues><Project Name=\"Foo\">" + issue + "</Project></Issues>")).isFalse();
+    assertThat(scans("<Report><Issues><Project Name=\"Foo\">" + issue)).isFalse();
+    assertThat(scans(wrap(issue) + "<Report />")).isFalse();
+    assertThat(scans("")).isFalse();
+  }
+
+  @Test
+  public void parser_falls_back_without_handling_issues_twice() throws Exception {
+    File report = write(wrap("<Issue TypeId=\"Foo\" Line=\"1\" Message=\"First\" />"
+      + "<Issue TypeId=\"Foo\" Line=\"2\" Message=\"Multi\nline\" />"
+      + "<Issue TypeId=\"Foo\" Line=\"3\" Message=\"Third\" />"));
+
+    List<ReSharperIssue> issues = new ReSharperReportParser().parse(report, "Foo");
+    assertThat(issues).hasSize(3);
+    assertThat(issues.get(0).message()).isEqualTo("First");
+    assertThat(issues.get(1).message()).isEqualTo("Multi line");
+    assertThat(issues.get(2).message()).isEqualTo("Third");
+
+    assertThat(new ReSharperReportParser().parseProjects(report).get("Foo")).hasSize(3);
+  }
+
+  @Test
+  public void unescape() {
+    assertThat(ReSharperReportScanner.unescape("a&lt;b&gt;c&amp;d&quot;e&apos;f&#65;&#x42;")).isEqualTo("a<b>c&d\"e'fAB");
+    assertThat(ReSharperReportScanner.unescape("&#x1F600;")).isEqualTo(new String(Character.toChars(0x1F600)));
+    assertThat(ReSharperReportScanner.unescape("&nbsp;")).isNull();
+    assertThat(ReSharperReportScanner.unescape("&amp")).isNull();
+    assertThat(ReSharperReportScanner.unescape("&#;")).isNull();
+    assertThat(ReSharperReportScanner.unescape("&#0;")).isNull();
+  }
+
+  private static String wrap(String issues) {
+    return "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<Report><Issues><Project Name=\"Foo\">" + issues + "</Project></Issues></Report>\n";
+  }
+
+  private boolean scans(String report) throws Exception {
+    return ReSharperReportScanner.scan(write(report), null, false, new ReSharperProjectIssuesBuilder());
+  }
+
+  private Map<String, List<ReSharperIssue>> scan(String report) throws Exception {
+    ReSharperProjectIssuesBuilder builder = new ReSharperProjectIssuesBuilder();
+    assertThat(ReSharperReportScanner.scan(write(report), null, false, builder)).isTrue();
+    return builder.build();
+  }
+
+  private File write(String report) throws Exception {
+    File file = tmp.newFile();
+    Files.write(report, file, Charsets.UTF_8);
+    return file;
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.plugins.resharper.ReSharperSensorMetrics.Phase;
+import org.sonar.plugins.resharper.ReSharperSensorMetrics.SkipReason;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperSensorMetricsTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void counts() {
+    ReSharperSensorMetrics metrics = newMetrics();
+
+    assertThat(metrics.issuesRead()).isEqualTo(5);
+    assertThat(metrics.issuesAdded()).isEqualTo(2);
+    assertThat(metrics.issuesSkipped()).isEqualTo(3);
+    assertThat(metrics.issuesSkipped(SkipReason.NO_FILE_OR_LINE)).isEqualTo(0);
+    assertThat(metrics.issuesSkipped(SkipReason.NOT_IN_SONARQUBE)).isEqualTo(2);
+    assertThat(metrics.issuesSkipped(SkipReason.INACTIVE_RULE)).isEqualTo(1);
+    assertThat(metrics.issuesRejectedByPathIndex()).isEqualTo(1);
+    assertThat(metrics.pathsResolved()).isEqualTo(4);
+    assertThat(metrics.filesResolved()).isEqualTo(2);
+  }
+
+  @Test
+  public void stopwatches() {
+    ReSharperSensorMetrics metrics = new ReSharperSensorMetrics();
+    for (Phase phase : Phase.values()) {
+      assertThat(metrics.stopwatch(phase).isRunning()).isFalse();
+      assertThat(metrics.elapsedMillis(phase)).isEqualTo(0);
+    }
+    assertThat(metrics.stopwatch(Phase.PARSE)).isSameAs(metrics.stopwatch(Phase.PARSE));
+
+    metrics.stop();
+    long total = metrics.totalMillis();
+    metrics.stop();
+    assertThat(metrics.totalMillis()).isEqualTo(total);
+  }
+
+  @Test
+  public void samples() {
+    ReSharperSensorMetrics metrics = new ReSharperSensorMetrics();
+    assertThat(metrics.needsSample(SkipReason.INACTIVE_RULE)).isTrue();
+    assertThat(metrics.samples(SkipReason.INACTIVE_RULE)).isEmpty();
+
+    for (int i = 0; i < ReSharperSensorMetrics.MAX_SAMPLES + 5; i++) {
+      metrics.sample(SkipReason.INACTIVE_RULE, "line " + i);
+    }
+    metrics.sample(SkipReason.NOT_IN_SONARQUBE, "line 42");
+
+    assertThat(metrics.needsSample(SkipReason.INACTIVE_RULE)).isFalse();
+    assertThat(metrics.samples(SkipReason.INACTIVE_RULE)).hasSize(ReSharperSensorMetrics.MAX_SAMPLES);
+    assertThat(metrics.samples(SkipReason.INACTIVE_RULE).get(0)).isEqualTo("line 0");
+    assertThat(metrics.needsSample(SkipReason.NOT_IN_SONARQUBE)).isTrue();
+    assertThat(metrics.samples(SkipReason.NOT_IN_SONARQUBE)).containsExactly("line 42");
+    assertThat(metrics.samples(SkipReason.NO_FILE_OR_LINE)).isEmpty();
+  }
+
+  @Test
+  public void summary() {
+    String summary = newMetrics().summary();
+
+    assertThat(summary).startsWith("5 issues read, 2 added, 3 skipped (noFileOrLine: 0, notInSonarQube: 2, inactiveRule: 1), 1 rejected by the path index, 4 distinct paths resolved to 2 files, in ");
+    assertThat(summary).contains("(activeRules: 0 ms, dotSettings: 0 ms, inspectcode: 0 ms, parse: 0 ms, resolve: 0 ms, issues: 0 ms)");
+  }
+
+  @Test
+  public void write_json() throws Exception {
+    File file = new File(tmp.getRoot(), "sub/metrics.json");
+    newMetrics().writeJson(file);
+
+    String json = Files.toString(file, Charsets.UTF_8);
+    assertThat(json).startsWith("{\"totalMillis\":");
+    assertThat(json).contains("\"phases\":{\"activeRulesMillis\":0,\"dotSettingsMillis\":0,\"inspectcodeMillis\":0,\"parseMillis\":0,\"resolveMillis\":0,\"issuesMillis\":0}");
+    assertThat(json).contains(
+      "\"issues\":{\"read\":5,\"added\":2,\"skipped\":3,\"skippedByReason\":{\"noFileOrLine\":0,\"notInSonarQube\":2,\"inactiveRule\":1},\"rejectedByPathIndex\":1}");
+    assertThat(json).endsWith("\"files\":{\"pathsResolved\":4,\"filesResolved\":2}}");
+  }
+
+  @Test
+  public void write_json_failure_is_not_thrown() throws Exception {
+    File file = tmp.newFile("not-a-directory");
+    newMetrics().writeJson(new File(file, "metrics.json"));
+
+    assertThat(file.isFile()).isTrue();
+  }
+
+  private static ReSharperSensorMetrics newMetrics() {
+    ReSharperSensorMetrics metrics = new ReSharperSensorMetrics();
+    for (int i = 0; i < 5; i++) {
+      metrics.issueRead();
+    }
+    metrics.issueAdded();
+    metrics.issueAdded();
+    metrics.issueSkipped(SkipReason.NOT_IN_SONARQUBE);
+    metrics.issueSkipped(SkipReason.NOT_IN_SONARQUBE);
+    metrics.issueRejectedByPathIndex();
+    metrics.issueSkipped(SkipReason.INACTIVE_RULE);
+    metrics.resolved(4, 2);
+    return metrics;
+  }
+
+}
@@ -19,12 +19,19 @@
  */
 package org.sonar.plugins.resharper;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
@@ -38,9 +45,13 @@ import org.sonar.api.profiles.RulesProfile;
 import org.sonar.api.resources.Project;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rules.ActiveRule;
+import org.sonar.plugins.resharper.CSharpReSharperProvider.CSharpReSharperSensor;
+import org.sonar.plugins.resharper.VBNetReSharperProvider.VBNetReSharperSensor;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -54,6 +65,9 @@ public class ReSharperSensorTest {
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
   @Test
   public void shouldExecuteOnProject() {
     Settings settings = mock(Settings.class);
@@ -65,7 +79,7 @@ public class ReSharperSensorTest {
 
     ReSharperSensor sensor = new ReSharperSensor(
       new ReSharperConfiguration("lang", "foo-resharper", "fooReportkey"),
-      settings, profile, fileSystem, perspectives);
+      settings, profile, fileSystem, perspectives, new ReSharperReportCache(), new ReSharperInspectCodeRuns());
 
     assertThat(sensor.shouldExecuteOnProject(project)).isFalse();
 
@@ -96,13 +110,12 @@ public class ReSharperSensorTest {
 
     ReSharperSensor sensor = new ReSharperSensor(
       new ReSharperConfiguration(languageKey, "foo-resharper", "fooReport"),
-      settings, profile, fileSystem, perspectives);
+      settings, profile, fileSystem, perspectives, new ReSharperReportCache(), new ReSharperInspectCodeRuns());
 
     List<ActiveRule> activeRules = mockActiveRules("RedundantUsingDirective");
     when(profile.getActiveRulesByRepository("foo-resharper")).thenReturn(activeRules);
 
-    File workingDir = new File("src/test/resources/SensorTest");
-    fileSystem.setWorkDir(workingDir);
+    fileSystem.setWorkDir(tmp.newFolder("work"));
 
     DefaultInputFile class1Cs = new DefaultInputFile("MyLibrary/Class1.cs").setAbsolutePath(new File("MyLibrary/Class1.cs").getAbsolutePath()).setLanguage(languageKey);
     fileSystem.add(class1Cs);
@@ -137,6 +150,124 @@ public class ReSharperSensorTest {
     verify(issueBuilder2).message("Using directive is not required by the code and can be safely removed");
   }
 
+  @Test
+  public void analyze_several_report_paths() throws Exception {
+    analyzeSeveralReportPaths(0);
+  }
+
+  @Test
+  public void analyze_several_report_paths_pipelined() throws Exception {
+    analyzeSeveralReportPaths(2);
+  }
+
+  private void analyzeSeveralReportPaths(int pipelineThreads) throws Exception {
+    String languageKey = "foo";
+    File reports = new File("target/ReSharperSensorTest/reports");
+    Files.createParentDirs(new File(reports, "a/report.xml"));
+    Files.createParentDirs(new File(reports, "b/report.xml"));
+    Files.copy(new File("src/test/resources/SensorTest/report.xml"), new File(reports, "a/report.xml"));
+    Files.copy(new File("src/test/resources/SensorTest/report.xml"), new File(reports, "b/report.xml"));
+
+    Settings settings = new Settings();
+    settings.setProperty(ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY, "CSharpPlayground.sln");
+    settings.setProperty(ReSharperPlugin.PROJECT_NAME_SONAR_PROPERTY_KEY, "MyLibrary");
+    settings.setProperty(ReSharperPlugin.REPORT_PARSING_THREADS_PROPERTY_KEY, "2");
+    settings.setProperty(ReSharperPlugin.PIPELINE_THREADS_PROPERTY_KEY, pipelineThreads);
+    settings.setProperty("fooReport", "src/test/resources/SensorTest/report.xml, target/ReSharperSensorTest/reports/*/report.xml");
+
+    RulesProfile profile = mock(RulesProfile.class);
+    List<ActiveRule> activeRules = mockActiveRules("RedundantUsingDirective");
+    when(profile.getActiveRulesByRepository("foo-resharper")).thenReturn(activeRules);
+
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    fileSystem.setWorkDir(new File("target/ReSharperSensorTest/several-reports"));
+    DefaultInputFile class1Cs = new DefaultInputFile("MyLibrary/Class1.cs").setAbsolutePath(new File("MyLibrary/Class1.cs").getAbsolutePath()).setLanguage(languageKey);
+    fileSystem.add(class1Cs);
+
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    Issue issue = mock(Issue.class);
+    IssueBuilder issueBuilder = mockIssueBuilder();
+    when(issueBuilder.build()).thenReturn(issue);
+    Issuable issuable = mock(Issuable.class);
+    when(perspectives.as(Issuable.class, class1Cs)).thenReturn(issuable);
+    when(issuable.newIssueBuilder()).thenReturn(issueBuilder);
+
+    ReSharperReportCache reportCache = mock(ReSharperReportCache.class);
+    ReSharperSensor sensor = new ReSharperSensor(
+      new ReSharperConfiguration(languageKey, "foo-resharper", "fooReport"),
+      settings, profile, fileSystem, perspectives, reportCache, new ReSharperInspectCodeRuns());
+    sensor.analyse(mock(Project.class), mock(SensorContext.class));
+
+    verify(issuable, Mockito.times(3)).addIssue(issue);
+    verify(perspectives, Mockito.times(1)).as(Issuable.class, class1Cs);
+    // Read by a single module and language, the reports are streamed rather than kept in the cache
+    Mockito.verifyZeroInteractions(reportCache);
+    String metrics = Files.toString(sensor.metricsFile(), Charsets.UTF_8);
+    // The 3 issues of inactive rules are dropped by the parser
+    assertThat(metrics).contains("\"issues\":{\"read\":9,\"added\":3,\"skipped\":6,");
+  }
+
+  @Test
+  public void analyze_report_path_with_repeated_projects() throws Exception {
+    Settings settings = new Settings();
+    settings.setProperty(ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY, "CSharpPlayground.sln");
+    settings.setProperty(ReSharperPlugin.PROJECT_NAME_SONAR_PROPERTY_KEY, "MyLibrary.Common");
+    settings.setProperty("fooReport", "src/test/resources/ReSharperReportParserTest/report-repeated-projects.xml");
+
+    // Streamed for a single module, the project is read from each of its elements
+    IssueBuilder issueBuilder = mockIssueBuilder();
+    analyzeSingleModule(settings, new File("MyLibrary.Common/Class2.cs"), issueBuilder, "JoinDeclarationAndInitializer");
+    verify(issueBuilder).line(9);
+    verify(issueBuilder).message("Join declaration and assignment");
+  }
+
+  @Test
+  public void analyze_report_path_from_the_disk_cache() throws Exception {
+    File cacheDirectory = tmp.newFolder("cache");
+    Settings settings = new Settings();
+    settings.setProperty(ReSharperPlugin.SOLUTION_FILE_PROPERTY_KEY, "CSharpPlayground.sln");
+    settings.setProperty(ReSharperPlugin.PROJECT_NAME_SONAR_PROPERTY_KEY, "MyLibrary");
+    settings.setProperty(ReSharperPlugin.REPORT_CACHE_DIRECTORY_PROPERTY_KEY, cacheDirectory.getPath());
+    settings.setProperty(ReSharperPlugin.REPORT_CACHE_MAX_SIZE_PROPERTY_KEY, "10");
+    settings.setProperty("fooReport", "src/test/resources/SensorTest/report.xml");
+
+    IssueBuilder issueBuilder = mockIssueBuilder();
+    analyzeSingleModule(settings, new File("MyLibrary/Class1.cs"), issueBuilder, "RedundantUsingDirective");
+    verify(issueBuilder).line(1);
+    File[] cached = cacheDirectory.listFiles();
+    assertThat(cached).hasSize(1);
+
+    // The second analysis of the same report reads the cached issues of the project, not the report
+    OutputStream out = new FileOutputStream(cached[0]);
+    try {
+      ReSharperReportCodec.write(ImmutableMap.<String, List<ReSharperIssue>>of("MyLibrary", ImmutableList.of(
+        new ReSharperIssue(15, "RedundantUsingDirective", "MyLibrary/Class1.cs", 7, "Cached"))), out);
+    } finally {
+      out.close();
+    }
+    issueBuilder = mockIssueBuilder();
+    analyzeSingleModule(settings, new File("MyLibrary/Class1.cs"), issueBuilder, "RedundantUsingDirective");
+    verify(issueBuilder).line(7);
+    verify(issueBuilder, Mockito.never()).line(1);
+  }
+
+  private void analyzeSingleModule(Settings settings, File file, IssueBuilder issueBuilder, String... activeRuleKeys) throws Exception {
+    String languageKey = "foo";
+    RulesProfile profile = mock(RulesProfile.class);
+    List<ActiveRule> activeRules = mockActiveRules(activeRuleKeys);
+    when(profile.getActiveRulesByRepository("foo-resharper")).thenReturn(activeRules);
+
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    fileSystem.setWorkDir(tmp.newFolder());
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    mockIssuable(fileSystem, perspectives, file, languageKey, issueBuilder);
+
+    ReSharperSensor sensor = new ReSharperSensor(
+      new ReSharperConfiguration(languageKey, "foo-resharper", "fooReport"),
+      settings, profile, fileSystem, perspectives, new ReSharperReportCache(), new ReSharperInspectCodeRuns());
+    sensor.analyse(mock(Project.class), mock(SensorContext.class));
+  }
+
   @Test
   public void analyze_run_inspect_code() throws Exception {
     Settings settings = createSettings("MyLibrary", "CSharpPlayground.sln", "inspectcode.exe");
@@ -147,7 +278,7 @@ public class ReSharperSensorTest {
     String languageKey = "foo";
     ReSharperSensor sensor = new ReSharperSensor(
       new ReSharperConfiguration(languageKey, "foo-resharper", "fooReportkey"),
-      settings, profile, fileSystem, perspectives);
+      settings, profile, fileSystem, perspectives, new ReSharperReportCache(), new ReSharperInspectCodeRuns());
 
     List<ActiveRule> activeRules = mockActiveRules("AccessToDisposedClosure", "AccessToForEachVariableInClosure");
     when(profile.getActiveRulesByRepository("foo-resharper")).thenReturn(activeRules);
@@ -175,11 +306,11 @@ public class ReSharperSensorTest {
     when(barFile.getAbsolutePath()).thenReturn("barFile");
     fileSystem.add(new DefaultInputFile("barFile").setAbsolutePath("barFile"));
 
-    when(fileProvider.fileInSolution(Mockito.any(File.class), Mockito.eq("Class3.cs"))).thenReturn(fileNotInSonarQube);
-    when(fileProvider.fileInSolution(Mockito.any(File.class), Mockito.eq("Class4.cs"))).thenReturn(fooFileWithIssuable);
-    when(fileProvider.fileInSolution(Mockito.any(File.class), Mockito.eq("Class5.cs"))).thenReturn(fooFileWithIssuable);
-    when(fileProvider.fileInSolution(Mockito.any(File.class), Mockito.eq("Class6.cs"))).thenReturn(fooFileWithoutIssuable);
-    when(fileProvider.fileInSolution(Mockito.any(File.class), Mockito.eq("Class7.cs"))).thenReturn(barFile);
+    when(fileProvider.fileInSolution(Mockito.any(File.class), Mockito.eq("Dir\\fileNotInSonarQube"))).thenReturn(fileNotInSonarQube);
+    when(fileProvider.fileInSolution(Mockito.any(File.class), Mockito.eq("fooFileWithIssuable"))).thenReturn(fooFileWithIssuable);
+    when(fileProvider.fileInSolution(Mockito.any(File.class), Mockito.eq("Other\\fooFileWithIssuable"))).thenReturn(fooFileWithIssuable);
+    when(fileProvider.fileInSolution(Mockito.any(File.class), Mockito.eq("fooFileWithoutIssuable"))).thenReturn(fooFileWithoutIssuable);
+    when(fileProvider.fileInSolution(Mockito.any(File.class), Mockito.eq("barFile"))).thenReturn(barFile);
 
     Issue issue1 = mock(Issue.class);
     IssueBuilder issueBuilder1 = mockIssueBuilder();
@@ -195,18 +326,17 @@ public class ReSharperSensorTest {
 
     ReSharperDotSettingsWriter writer = mock(ReSharperDotSettingsWriter.class);
 
-    ReSharperReportParser parser = mock(ReSharperReportParser.class);
-    when(parser.parse(new File(workingDir, "resharper-report.xml").getAbsoluteFile(), "MyLibrary")).thenReturn(
-      ImmutableList.of(
-        new ReSharperIssue(100, "AccessToDisposedClosure", null, 1, "Dummy message"),
-        new ReSharperIssue(200, "AccessToDisposedClosure", "Class2.cs", null, "Dummy message"),
-        new ReSharperIssue(400, "AccessToDisposedClosure", "Class3.cs", 3, "First message"),
-        new ReSharperIssue(500, "AccessToDisposedClosure", "Class4.cs", 4, "Second message"),
-        new ReSharperIssue(600, "AccessToForEachVariableInClosure", "Class5.cs", 5, "Third message"),
-        new ReSharperIssue(700, "AccessToDisposedClosure", "Class6.cs", 6, "Fourth message"),
-        new ReSharperIssue(800, "AccessToDisposedClosure", "Class7.cs", 7, "Fifth message")));
-
-    sensor.analyseRunInspectCode(fileProvider, writer, parser, executor);
+    ReSharperReportParser parser = mockParser(new File(workingDir, "resharper-report.xml").getAbsoluteFile(), "MyLibrary",
+      new ReSharperIssue(100, "AccessToDisposedClosure", null, 1, "Dummy message"),
+      new ReSharperIssue(200, "AccessToDisposedClosure", "Class2.cs", null, "Dummy message"),
+      new ReSharperIssue(400, "AccessToDisposedClosure", "Dir\\fileNotInSonarQube", 3, "First message"),
+      new ReSharperIssue(500, "AccessToDisposedClosure", "fooFileWithIssuable", 4, "Second message"),
+      new ReSharperIssue(600, "AccessToForEachVariableInClosure", "Other\\fooFileWithIssuable", 5, "Third message"),
+      new ReSharperIssue(700, "AccessToDisposedClosure", "fooFileWithoutIssuable", 6, "Fourth message"),
+      new ReSharperIssue(800, "AccessToDisposedClosure", "barFile", 7, "Fifth message"),
+      new ReSharperIssue(900, "InactiveRule", "fooFileWithIssuable", 9, "Filtered out by the parser"));
+
+    sensor.analyseRunInspectCode(mock(Project.class), fileProvider, writer, parser, executor);
 
     verify(writer).write(ImmutableList.of("AccessToDisposedClosure", "AccessToForEachVariableInClosure"), new File(workingDir, "resharper-sonarqube.DotSettings").getAbsoluteFile());
     verify(executor).execute(
@@ -221,6 +351,222 @@ public class ReSharperSensorTest {
 
     verify(issueBuilder2).line(5);
     verify(issueBuilder2).message("Third message");
+    verify(perspectives, Mockito.times(1)).as(Issuable.class, inputFileWithIssues);
+
+    verify(profile, Mockito.times(1)).getActiveRulesByRepository("foo-resharper");
+
+    File metricsFile = sensor.metricsFile();
+    assertThat(metricsFile).isEqualTo(new File(workingDir, "resharper-foo-metrics.json").getAbsoluteFile());
+    String metrics = Files.toString(metricsFile, Charsets.UTF_8);
+    // No indexed file is named like barFile, whose path is rejected without being resolved
+    assertThat(metrics).contains("\"issues\":{\"read\":7,\"added\":2,\"skipped\":5,\"skippedByReason\":{\"noFileOrLine\":2,\"notInSonarQube\":3,\"inactiveRule\":0},"
+      + "\"rejectedByPathIndex\":1}");
+    assertThat(metrics).contains("\"files\":{\"pathsResolved\":4,\"filesResolved\":3}");
+    verify(fileProvider, Mockito.never()).fileInSolution(Mockito.any(File.class), Mockito.eq("barFile"));
+  }
+
+  @Test
+  public void analyze_run_inspect_code_on_changed_files() throws Exception {
+    ReSharperExecutorTest.assumeShellScripts();
+    File dir = new File("target/ReSharperSensorTest/changed-files").getAbsoluteFile();
+    File workDir = new File(dir, "work");
+    File report = new File(workDir, "resharper-report.xml");
+    File changedFiles = new File(dir, "changed-files.txt");
+    if (workDir.isDirectory()) {
+      for (File file : workDir.listFiles()) {
+        file.delete();
+      }
+    }
+    workDir.mkdirs();
+    Files.write("MyLibrary/Class1.cs\n", changedFiles, Charsets.UTF_8);
+
+    // No previous report: the whole project is inspected
+    IssueBuilder class1Issues = mockIssueBuilder();
+    IssueBuilder class2Issues = mockIssueBuilder();
+    analyzeChangedFiles(dir, changedFiles, null, class1Issues, class2Issues);
+    assertThat(Files.toString(new File(workDir, "resharper-report.xml.args"), Charsets.UTF_8)).doesNotContain("/include=");
+    verify(class1Issues).line(1);
+    verify(class2Issues).line(3);
+
+    // Only the changed file is inspected, and its issues replace its previous ones
+    class1Issues = mockIssueBuilder();
+    class2Issues = mockIssueBuilder();
+    analyzeChangedFiles(dir, changedFiles, null, class1Issues, class2Issues);
+    assertThat(Files.toString(new File(workDir, "resharper-report.xml.args"), Charsets.UTF_8)).contains("/include=MyLibrary/Class1.cs");
+    verify(class1Issues).line(5);
+    verify(class1Issues, Mockito.never()).line(1);
+    verify(class2Issues).line(3);
+
+    // No changed file: the merged report is reused as it is
+    Files.write("", changedFiles, Charsets.UTF_8);
+    new File(workDir, "resharper-report.xml.args").delete();
+    class1Issues = mockIssueBuilder();
+    class2Issues = mockIssueBuilder();
+    analyzeChangedFiles(dir, changedFiles, null, class1Issues, class2Issues);
+    assertThat(new File(workDir, "resharper-report.xml.args").exists()).isFalse();
+    verify(class1Issues).line(5);
+    verify(class2Issues).line(3);
+    assertThat(report.isFile()).isTrue();
+  }
+
+  @Test
+  public void keep_the_full_report_across_cleaned_working_directories() throws Exception {
+    ReSharperExecutorTest.assumeShellScripts();
+    File dir = new File("target/ReSharperSensorTest/cleaned-work-dir").getAbsoluteFile();
+    FileUtils.deleteDirectory(dir);
+    File workDir = new File(dir, "work");
+    workDir.mkdirs();
+    File fullReports = new File(dir, "full-reports");
+    File changedFiles = new File(dir, "changed-files.txt");
+    Files.write("MyLibrary/Class1.cs\n", changedFiles, Charsets.UTF_8);
+
+    analyzeChangedFiles(dir, changedFiles, fullReports, mockIssueBuilder(), mockIssueBuilder());
+    assertThat(Files.toString(new File(workDir, "resharper-report.xml.args"), Charsets.UTF_8)).doesNotContain("/include=");
+    assertThat(fullReports.list()).hasSize(1);
+    assertThat(fullReports.list()[0]).startsWith("resharper-report-full-");
+
+    // The scanner cleans the working directory between analyses
+    FileUtils.deleteDirectory(workDir);
+    workDir.mkdirs();
+    IssueBuilder class1Issues = mockIssueBuilder();
+    IssueBuilder class2Issues = mockIssueBuilder();
+    analyzeChangedFiles(dir, changedFiles, fullReports, class1Issues, class2Issues);
+    assertThat(Files.toString(new File(workDir, "resharper-report.xml.args"), Charsets.UTF_8)).contains("/include=MyLibrary/Class1.cs");
+    verify(class1Issues).line(5);
+    verify(class2Issues).line(3);
+    assertThat(fullReports.list()).hasSize(1);
+  }
+
+  @Test
+  public void analyze_run_inspect_code_once_for_both_languages() throws Exception {
+    ReSharperExecutorTest.assumeShellScripts();
+    File dir = new File("target/ReSharperSensorTest/both-languages").getAbsoluteFile();
+    File workDir = new File(dir, "work");
+    workDir.mkdirs();
+    Settings settings = createSettings("MyLibrary", new File(dir, "CSharpPlayground.sln").getPath(), ReSharperExecutorTest.FAKE_INSPECTCODE.getPath());
+
+    RulesProfile profile = mock(RulesProfile.class);
+    List<ActiveRule> csActiveRules = mockActiveRules("RedundantUsingDirective");
+    List<ActiveRule> vbnetActiveRules = mockActiveRules("RedundantUsingDirective", "JoinDeclarationAndInitializer");
+    when(profile.getActiveRulesByRepository(CSharpReSharperProvider.RESHARPER_CONF.repositoryKey())).thenReturn(csActiveRules);
+    when(profile.getActiveRulesByRepository(VBNetReSharperProvider.RESHARPER_CONF.repositoryKey())).thenReturn(vbnetActiveRules);
+
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    fileSystem.setWorkDir(workDir);
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    IssueBuilder class1Issues = mockIssueBuilder();
+    IssueBuilder class2Issues = mockIssueBuilder();
+    mockIssuable(fileSystem, perspectives, new File(dir, "MyLibrary/Class1.cs"), CSharpReSharperProvider.RESHARPER_CONF.languageKey(), class1Issues);
+    mockIssuable(fileSystem, perspectives, new File(dir, "MyLibrary/Class2.cs"), VBNetReSharperProvider.RESHARPER_CONF.languageKey(), class2Issues);
+
+    ReSharperReportCache reportCache = Mockito.spy(new ReSharperReportCache());
+    ReSharperInspectCodeRuns inspectCodeRuns = new ReSharperInspectCodeRuns();
+    ReSharperDotSettingsWriter writer = Mockito.spy(new ReSharperDotSettingsWriter());
+    ReSharperExecutor executor = Mockito.spy(new ReSharperExecutor());
+    ReSharperReportParser parser = Mockito.spy(new ReSharperReportParser());
+    new CSharpReSharperSensor(settings, profile, fileSystem, perspectives, reportCache, inspectCodeRuns)
+      .analyseRunInspectCode(mock(Project.class), new FileProvider(), writer, parser, executor);
+    new VBNetReSharperSensor(settings, profile, fileSystem, perspectives, reportCache, inspectCodeRuns)
+      .analyseRunInspectCode(mock(Project.class), new FileProvider(), writer, parser, executor);
+
+    verify(writer).write(ImmutableList.of("RedundantUsingDirective", "JoinDeclarationAndInitializer"),
+      new File(workDir, "resharper-sonarqube.DotSettings"));
+    verify(executor).execute(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.any(File.class), Mockito.any(File.class),
+      Mockito.anyInt());
+    verify(class1Issues).line(1);
+    verify(class2Issues).line(3);
+    // The report is parsed once, and released once read by both languages
+    verify(reportCache, Mockito.times(2)).issues(Mockito.eq(parser), Mockito.any(File.class), Mockito.eq("MyLibrary"),
+      Mockito.any(ReSharperIssueFilter.class), Mockito.eq(2));
+    verify(parser).parseProjects(Mockito.any(File.class), Mockito.any(ReSharperIssueFilter.class));
+    verify(parser, Mockito.never()).parse(Mockito.any(File.class), Mockito.anyString(), Mockito.any(ReSharperIssueFilter.class),
+      Mockito.any(ReSharperIssueHandler.class));
+  }
+
+  @Test
+  public void analyze_run_sharded_inspect_code() throws Exception {
+    ReSharperExecutorTest.assumeShellScripts();
+    File dir = new File("target/ReSharperSensorTest/sharded").getAbsoluteFile();
+    File workDir = new File(dir, "work");
+    workDir.mkdirs();
+    File solutionFile = new File(dir, "CSharpPlayground.sln");
+    Files.write("Project(\"{FAE04EC0-301F-11D3-BF4B-00C04F79EFBC}\") = \"MyLibrary\", \"MyLibrary\\MyLibrary.csproj\", \"{1}\"\nEndProject\n"
+      + "Project(\"{FAE04EC0-301F-11D3-BF4B-00C04F79EFBC}\") = \"Other\", \"Other\\Other.csproj\", \"{2}\"\nEndProject\n", solutionFile, Charsets.UTF_8);
+    Settings settings = createSettings("MyLibrary", solutionFile.getPath(), ReSharperExecutorTest.FAKE_INSPECTCODE.getPath());
+    settings.setProperty(ReSharperPlugin.SHARDED_INSPECTION_PROPERTY_KEY, "true");
+    settings.setProperty(ReSharperPlugin.SHARDED_INSPECTION_THREADS_PROPERTY_KEY, "2");
+
+    RulesProfile profile = mock(RulesProfile.class);
+    List<ActiveRule> activeRules = mockActiveRules("RedundantUsingDirective");
+    when(profile.getActiveRulesByRepository("foo-resharper")).thenReturn(activeRules);
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    fileSystem.setWorkDir(workDir);
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    IssueBuilder class1Issues = mockIssueBuilder();
+    mockIssuable(fileSystem, perspectives, new File(dir, "MyLibrary/Class1.cs"), "foo", class1Issues);
+
+    ReSharperReportCache reportCache = new ReSharperReportCache();
+    ReSharperInspectCodeRuns inspectCodeRuns = new ReSharperInspectCodeRuns();
+    ReSharperReportParser parser = Mockito.spy(new ReSharperReportParser());
+    Project root = new Project("root");
+    Project module = new Project("module");
+    module.setParent(root);
+    new ReSharperSensor(new ReSharperConfiguration("foo", "foo-resharper", "fooReport"), settings, profile, fileSystem, perspectives,
+      reportCache, inspectCodeRuns)
+      .analyseRunInspectCode(module, new FileProvider(), new ReSharperDotSettingsWriter(), parser, new ReSharperExecutor());
+
+    assertThat(Files.readLines(new File(workDir, "resharper-report.xml.shard-0.xml.args"), Charsets.UTF_8)).contains("/project=MyLibrary");
+    assertThat(Files.readLines(new File(workDir, "resharper-report.xml.shard-1.xml.args"), Charsets.UTF_8)).contains("/project=Other");
+    assertThat(new File(workDir, "resharper-report.xml.shard-0.xml").exists()).isFalse();
+    verify(class1Issues, Mockito.atLeastOnce()).line(1);
+
+    // The module of the other project reuses both the inspection and the report parsed for the first module
+    Settings otherSettings = createSettings("Other", solutionFile.getPath(), ReSharperExecutorTest.FAKE_INSPECTCODE.getPath());
+    otherSettings.setProperty(ReSharperPlugin.SHARDED_INSPECTION_PROPERTY_KEY, "true");
+    ReSharperExecutor executor = Mockito.spy(new ReSharperExecutor());
+    Project otherModule = new Project("other");
+    otherModule.setParent(root);
+    new ReSharperSensor(new ReSharperConfiguration("foo", "foo-resharper", "fooReport"), otherSettings, profile, fileSystem, perspectives,
+      reportCache, inspectCodeRuns)
+      .analyseRunInspectCode(otherModule, new FileProvider(), new ReSharperDotSettingsWriter(), parser, executor);
+    Mockito.verifyZeroInteractions(executor);
+    verify(parser).parseProjects(Mockito.any(File.class), Mockito.any(ReSharperIssueFilter.class));
+    verify(parser, Mockito.never()).parse(Mockito.any(File.class), Mockito.anyString(), Mockito.any(ReSharperIssueFilter.class),
+      Mockito.any(ReSharperIssueHandler.class));
+  }
+
+  private static void analyzeChangedFiles(File dir, File changedFiles, @Nullable File fullReportDirectory, IssueBuilder class1Issues,
+    IssueBuilder class2Issues) {
+    String languageKey = "foo";
+    Settings settings = createSettings("MyLibrary", new File(dir, "CSharpPlayground.sln").getPath(), ReSharperExecutorTest.FAKE_INSPECTCODE.getPath());
+    settings.setProperty(ReSharperPlugin.CHANGED_FILES_LIST_PROPERTY_KEY, changedFiles.getPath());
+    if (fullReportDirectory != null) {
+      settings.setProperty(ReSharperPlugin.FULL_REPORT_DIRECTORY_PROPERTY_KEY, fullReportDirectory.getPath());
+    }
+
+    RulesProfile profile = mock(RulesProfile.class);
+    List<ActiveRule> activeRules = mockActiveRules("RedundantUsingDirective", "JoinDeclarationAndInitializer");
+    when(profile.getActiveRulesByRepository("foo-resharper")).thenReturn(activeRules);
+
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    fileSystem.setWorkDir(new File(dir, "work"));
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    mockIssuable(fileSystem, perspectives, new File(dir, "MyLibrary/Class1.cs"), languageKey, class1Issues);
+    mockIssuable(fileSystem, perspectives, new File(dir, "MyLibrary/Class2.cs"), languageKey, class2Issues);
+
+    ReSharperSensor sensor = new ReSharperSensor(
+      new ReSharperConfiguration(languageKey, "foo-resharper", "fooReport"),
+      settings, profile, fileSystem, perspectives, new ReSharperReportCache(), new ReSharperInspectCodeRuns());
+    sensor.analyseRunInspectCode(mock(Project.class), new FileProvider(), new ReSharperDotSettingsWriter(), new ReSharperReportParser(), new ReSharperExecutor());
+  }
+
+  private static void mockIssuable(DefaultFileSystem fileSystem, ResourcePerspectives perspectives, File file, String languageKey, IssueBuilder issueBuilder) {
+    DefaultInputFile inputFile = new DefaultInputFile(file.getName()).setAbsolutePath(file.getAbsolutePath()).setLanguage(languageKey);
+    fileSystem.add(inputFile);
+    when(issueBuilder.build()).thenReturn(mock(Issue.class));
+    Issuable issuable = mock(Issuable.class);
+    when(perspectives.as(Issuable.class, inputFile)).thenReturn(issuable);
+    when(issuable.newIssueBuilder()).thenReturn(issueBuilder);
   }
 
   @Test
@@ -249,6 +595,24 @@ public class ReSharperSensorTest {
     return issueBuilder;
   }
 
+  private static ReSharperReportParser mockParser(File reportFile, String projectName, final ReSharperIssue... issues) {
+    ReSharperReportParser parser = mock(ReSharperReportParser.class);
+    Mockito.doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        ReSharperIssueFilter filter = (ReSharperIssueFilter) invocation.getArguments()[2];
+        ReSharperIssueHandler handler = (ReSharperIssueHandler) invocation.getArguments()[3];
+        for (ReSharperIssue issue : issues) {
+          if (filter.accepts(issue.ruleKey(), issue.filePath())) {
+            handler.handle(issue);
+          }
+        }
+        return null;
+      }
+    }).when(parser).parse(Mockito.eq(reportFile), Mockito.eq(projectName), Mockito.any(ReSharperIssueFilter.class), Mockito.any(ReSharperIssueHandler.class));
+    return parser;
+  }
+
   private static List<ActiveRule> mockActiveRules(String... activeRuleKeys) {
     ImmutableList.Builder<ActiveRule> builder = ImmutableList.builder();
     for (String activeRuleKey : activeRuleKeys) {
@@ -261,7 +625,8 @@ public class ReSharperSensorTest {
 
   private static ReSharperSensor createReSharperSensor(Settings settings) {
     ReSharperConfiguration reSharperConf = new ReSharperConfiguration("", "", ReSharperPlugin.CS_REPORT_PATH_KEY);
-    return new ReSharperSensor(reSharperConf, settings, mock(RulesProfile.class), mock(FileSystem.class), mock(ResourcePerspectives.class));
+    return new ReSharperSensor(reSharperConf, settings, mock(RulesProfile.class), mock(FileSystem.class), mock(ResourcePerspectives.class),
+      new ReSharperReportCache(), new ReSharperInspectCodeRuns());
   }
 
   private static Settings createSettings(@Nullable String projectName, @Nullable String solutionFile, @Nullable String inspectcodePath) {
@@ -0,0 +1,174 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.command.Command;
+import org.sonar.api.utils.command.CommandException;
+import org.sonar.api.utils.command.TimeoutException;
+
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class ReSharperShardedExecutorTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void default_threads() {
+    assertThat(ReSharperShardedExecutor.defaultThreads())
+      .isEqualTo(Math.max(1, Runtime.getRuntime().availableProcessors() / ReSharperShardedExecutor.CORES_PER_PROCESS));
+  }
+
+  @Test
+  public void execute_with_fake_inspectcode() throws Exception {
+    ReSharperExecutorTest.assumeShellScripts();
+    File report = new File(tmp.getRoot(), "report.xml");
+
+    List<ReSharperShardedExecutor.Shard> shards = new ReSharperShardedExecutor(new ReSharperExecutor(), 2).execute(
+      ReSharperExecutorTest.FAKE_INSPECTCODE.getPath(), ImmutableList.of("MyLibrary", "Other", "Third"), "CSharpPlayground.sln",
+      new File("ruleset.DotSettings"), report, 1, ImmutableList.<String>of());
+
+    assertThat(shards).hasSize(3);
+    assertThat(shards.get(1).project()).isEqualTo("Other");
+    assertThat(shards.get(1).failure()).isNull();
+    // Each process writes the same canned report, of the MyLibrary project
+    Map<String, List<ReSharperIssue>> issues = new ReSharperReportParser().parseProjects(report);
+    assertThat(issues.get("MyLibrary")).hasSize(6);
+    assertThat(Arrays.asList(tmp.getRoot().list())).containsOnly("report.xml", "report.xml.shard-0.xml.args", "report.xml.shard-1.xml.args",
+      "report.xml.shard-2.xml.args");
+    assertThat(Files.readLines(new File(tmp.getRoot(), "report.xml.shard-2.xml.args"), Charsets.UTF_8)).contains("/project=Third");
+  }
+
+  @Test
+  public void each_project_has_its_own_caches_home() throws Exception {
+    ReSharperExecutorTest.assumeShellScripts();
+    File caches = new File(tmp.getRoot(), "caches");
+    File report = new File(tmp.getRoot(), "report.xml");
+
+    new ReSharperShardedExecutor(new ReSharperExecutor(new ReSharperCachesHome(caches, 0)), 2).execute(
+      ReSharperExecutorTest.FAKE_INSPECTCODE.getPath(), ImmutableList.of("MyLibrary", "My Other"), "CSharpPlayground.sln",
+      new File("ruleset.DotSettings"), report, 1, ImmutableList.<String>of());
+
+    ReSharperCachesHome cachesHome = new ReSharperCachesHome(caches, 0);
+    File myLibrary = cachesHome.projectDirectory("MyLibrary");
+    File myOther = cachesHome.projectDirectory("My Other");
+    assertThat(caches.listFiles()).containsOnly(myLibrary, myOther);
+    assertThat(new File(myOther, "CSharpPlayground.sln/cache.bin").isFile()).isTrue();
+    assertThat(Files.readLines(new File(tmp.getRoot(), "report.xml.shard-0.xml.args"), Charsets.UTF_8))
+      .contains("/caches-home=" + myLibrary.getAbsolutePath());
+  }
+
+  @Test
+  public void at_most_threads_processes() throws Exception {
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    ReSharperExecutor executor = new ReSharperExecutor() {
+      @Override
+      public void execute(String executable, String project, String solutionFile, File rulesetFile, File reportFile, int timeout, List<String> includes,
+        @Nullable File cachesDirectory) {
+        int current = running.incrementAndGet();
+        synchronized (maxRunning) {
+          maxRunning.set(Math.max(maxRunning.get(), current));
+        }
+        try {
+          Thread.sleep(50);
+          writeReport(reportFile, project);
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        } finally {
+          running.decrementAndGet();
+        }
+      }
+    };
+    File report = new File(tmp.getRoot(), "report.xml");
+
+    new ReSharperShardedExecutor(executor, 2).execute("inspectcode.exe", ImmutableList.of("A", "B", "C", "D", "E"), "Solution.sln",
+      new File("ruleset.DotSettings"), report, 1, ImmutableList.<String>of());
+
+    assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+    assertThat(new ReSharperReportParser().parseProjects(report).keySet()).containsOnly("A", "B", "C", "D", "E");
+  }
+
+  @Test
+  public void failed_projects() throws Exception {
+    final List<String> inspected = Collections.synchronizedList(Lists.<String>newArrayList());
+    ReSharperExecutor executor = new ReSharperExecutor() {
+      @Override
+      public void execute(String executable, String project, String solutionFile, File rulesetFile, File reportFile, int timeout, List<String> includes,
+        @Nullable File cachesDirectory) {
+        inspected.add(project);
+        Command command = Command.create(executable);
+        if ("B".equals(project)) {
+          throw new TimeoutException(command, "Timeout exceeded: 60000 ms", null);
+        } else if ("C".equals(project)) {
+          throw new CommandException(command, "ReSharper execution failed with exit code: 1", null);
+        }
+        try {
+          writeReport(reportFile, project);
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+    File report = new File(tmp.getRoot(), "report.xml");
+
+    try {
+      new ReSharperShardedExecutor(executor, 1).execute("inspectcode.exe", ImmutableList.of("A", "B", "C", "D"), "Solution.sln",
+        new File("ruleset.DotSettings"), report, 1, ImmutableList.<String>of());
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).isEqualTo("inspectcode.exe failed on 2 of the 4 projects: B (timed out), "
+        + "C (ReSharper execution failed with exit code: 1 [command: inspectcode.exe])");
+      assertThat(e.getCause()).isInstanceOf(TimeoutException.class);
+    }
+    assertThat(inspected).containsOnly("A", "B", "C", "D");
+    assertThat(tmp.getRoot().list()).isEmpty();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void no_project() {
+    new ReSharperShardedExecutor(new ReSharperExecutor(), 1).execute("inspectcode.exe", ImmutableList.<String>of(), "Solution.sln",
+      new File("ruleset.DotSettings"), new File(tmp.getRoot(), "report.xml"), 1, ImmutableList.<String>of());
+  }
+
+  private static void writeReport(File reportFile, String project) throws Exception {
+    Files.write("<Report ToolsVersion=\"8.1\"><IssueTypes /><Issues><Project Name=\"" + project + "\">"
+      + "<Issue TypeId=\"RedundantUsingDirective\" File=\"" + project + "\\Class1.cs\" Line=\"1\" Message=\"Message\" />"
+      + "</Project></Issues></Report>", reportFile, Charsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * SonarQube ReSharper Plugin
+ * Copyright (C) 2014 SonarSource
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.resharper;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReSharperSolutionFileTest {
+
+  @Test
+  public void projects() {
+    assertThat(ReSharperSolutionFile.projects(new File("src/test/resources/ReSharperSolutionFileTest/Solution.sln")))
+      .containsExactly("MyLibrary", "My VB Library");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void missing_solution_file() {
+    ReSharperSolutionFile.projects(new File("src/test/resources/ReSharperSolutionFileTest/Missing.sln"));
+  }
+
+}
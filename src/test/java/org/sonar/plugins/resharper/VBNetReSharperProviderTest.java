@@ -87,7 +87,8 @@ public class VBNetReSharperProviderTest {
 
   @Test
   public void testSensorInstantiation() throws Exception {
-    VBNetReSharperSensor sensor = new VBNetReSharperSensor(new Settings(), mock(RulesProfile.class), new DefaultFileSystem(), mock(ResourcePerspectives.class));
+    VBNetReSharperSensor sensor = new VBNetReSharperSensor(new Settings(), mock(RulesProfile.class), new DefaultFileSystem(), mock(ResourcePerspectives.class),
+      new ReSharperReportCache(), new ReSharperInspectCodeRuns());
     ReSharperConfiguration configuration = sensor.getConfiguration();
     assertThat(configuration.languageKey()).isEqualTo("vbnet");
     assertThat(configuration.repositoryKey()).isEqualTo("resharper-vbnet");